@@ -26,9 +26,6 @@
 
 package ece351.common.ast;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import ece351.common.visitor.ExprVisitor;
 
 public final class AndExpr extends CommutativeBinaryExpr {
@@ -37,6 +34,14 @@ public final class AndExpr extends CommutativeBinaryExpr {
 		super(left, right);
 	}
 
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static AndExpr make(final Expr left, final Expr right) {
+		return intern(new AndExpr(left, right));
+	}
+
 	public AndExpr() {this(null, null);}
     
 	public AndExpr(Object pop1, Object pop2) {
@@ -45,21 +50,12 @@ public final class AndExpr extends CommutativeBinaryExpr {
 
 	public Expr accept(final ExprVisitor v) { return v.visitAnd(this); }
     
-	@Override
-	protected Expr simplifyOnce() {
-		// return a new NaryAndExpr with the same children as this AndExpr
-		List<Expr> children = new LinkedList<Expr>();
-		children.add(this.left);
-		children.add(this.right);
-		return new NaryAndExpr(children);
-	}
-
 	@Override
 	public String operator() {
 		return Constants.AND;
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new AndExpr(left, right);
+		return make(left, right);
 	}
 }
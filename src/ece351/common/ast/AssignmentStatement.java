@@ -26,12 +26,16 @@
 
 package ece351.common.ast;
 
-import org.parboiled.common.ImmutableList;
+import java.util.Set;
 
 import ece351.f.ast.FProgram;
+import ece351.util.CommandLine.FSimplifierOptions;
 import ece351.util.Examinable;
+import ece351.util.EquivalentHashable;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 
-public final class AssignmentStatement extends Statement implements Examinable {
+public final class AssignmentStatement extends Statement implements Examinable, IsomorphicHashable, EquivalentHashable {
 
 	public final VarExpr outputVar;
 	public final Expr expr;
@@ -43,7 +47,7 @@ public final class AssignmentStatement extends Statement implements Examinable {
 	
 	public AssignmentStatement(String var, Expr expr)
 	{
-		this.outputVar = new VarExpr(var);
+		this.outputVar = VarExpr.make(var);
 		this.expr = expr;
 	}
 	
@@ -69,6 +73,11 @@ public final class AssignmentStatement extends Statement implements Examinable {
 		return outputVar.toString() + " <= " + expr.toString() + ";";
     }
 
+	@Override
+	public int hashCode() {
+		return 13 * outputVar.hashCode() + expr.hashCode();
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		// basics
@@ -96,19 +105,38 @@ public final class AssignmentStatement extends Statement implements Examinable {
 		return this.expr.isomorphic(that.expr);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return 13 * outputVar.isomorphicHashCode() + expr.isomorphicHashCode();
+	}
+
 	/**
 	 * Call a SAT solver to compute logical equivalence.
 	 */
 	@Override
 	public boolean equivalent(final Examinable obj) {
 		if (!(obj instanceof AssignmentStatement)) return false;
-		final FProgram fp1 = new FProgram(ImmutableList.of(this));
-		final FProgram fp2 = new FProgram(ImmutableList.of((AssignmentStatement)obj));
+		final FProgram fp1 = new FProgram(PersistentVector.of(this));
+		final FProgram fp2 = new FProgram(PersistentVector.of((AssignmentStatement)obj));
 		return fp1.equivalent(fp2);
 	}
+
+	@Override
+	public int equivalentHashCode() {
+		return 13 * outputVar.hashCode() + expr.equivalentHashCode();
+	}
 	
 	public AssignmentStatement simplify() {
-		return new AssignmentStatement(outputVar, expr.simplify());
+		return simplify(new SimplifierCache());
+	}
+
+	/** Simplify with only the rules enabled by the given options (e.g., CommandLine.simplifierOpts). */
+	public AssignmentStatement simplify(final Set<FSimplifierOptions> options) {
+		return simplify(new SimplifierCache(RuleSet.of(options)));
+	}
+
+	public AssignmentStatement simplify(final SimplifierCache cache) {
+		return new AssignmentStatement(outputVar, expr.simplify(cache));
 	}
 
 	public AssignmentStatement varyExpr(final Object e) {
@@ -120,6 +148,6 @@ public final class AssignmentStatement extends Statement implements Examinable {
 	}
 
 	public AssignmentStatement varyOutputVar(final String s) {
-		return new AssignmentStatement(new VarExpr(s), expr);
+		return new AssignmentStatement(VarExpr.make(s), expr);
 	}
 }
@@ -32,6 +32,11 @@ import ece351.util.Examiner;
 public abstract class BinaryExpr extends Expr {
 
 	public final Expr left, right;
+
+	/** Cached hash code; zero until first computed. */
+	private int hash;
+	/** Cached isomorphic hash code; zero until first computed. */
+	private int isomorphicHash;
 	
 	public abstract BinaryExpr newBinaryExpr(final Expr left, final Expr right);
 	
@@ -63,17 +68,34 @@ public abstract class BinaryExpr extends Expr {
 	}
 	
 	public final int hashCode() {
-		int hash = 17;
-		hash = hash * 13 + left.hashCode();
-		hash = hash * 13 + right.hashCode();
-		return hash;
+		int h = this.hash;
+		if (h == 0) {
+			h = 17;
+			h = h * 13 + operator().hashCode();
+			h = h * 13 + left.hashCode();
+			h = h * 13 + right.hashCode();
+			this.hash = h;
+		}
+		return h;
 	}
 	
+	@Override
+	protected final int compareToSameClass(final Expr e) {
+		final BinaryExpr that = (BinaryExpr) e;
+		final int h = Integer.compare(this.hashCode(), that.hashCode());
+		if (h != 0) return h;
+		final int l = this.left.compareTo(that.left);
+		if (l != 0) return l;
+		return this.right.compareTo(that.right);
+	}
+
 	/**
 	 * left equals left and right equals right.
 	 */
 	@Override
 	public final boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (distinctInterned(this, obj)) return false;
 		return examine(Examiner.Equals, obj);
 	}
 
@@ -85,6 +107,22 @@ public abstract class BinaryExpr extends Expr {
 		return examine(Examiner.Isomorphic, obj);
 	}
 
+	/**
+	 * Symmetric in the operands of a CommutativeBinaryExpr, whose 
+	 * isomorphic() allows them to be swapped.
+	 */
+	@Override
+	public final int isomorphicHashCode() {
+		int h = this.isomorphicHash;
+		if (h == 0) {
+			final int l = left.isomorphicHashCode();
+			final int r = right.isomorphicHashCode();
+			h = 17 + 13 * operator().hashCode() + (this instanceof CommutativeBinaryExpr ? l + r : 13 * l + r);
+			this.isomorphicHash = h;
+		}
+		return h;
+	}
+
 	private boolean examine(final Examiner e, final Object obj) {
 		// basics
 		if (obj == null) return false;
@@ -39,9 +39,9 @@ public final class ConstantExpr extends Expr {
 	public final Boolean b;
 
 	/** The one true instance. To be shared/aliased wherever necessary. */
-	public final static ConstantExpr TrueExpr = new ConstantExpr(true);
+	public final static ConstantExpr TrueExpr = intern(new ConstantExpr(true));
 	/** The one false instance. To be shared/aliased wherever necessary. */
-	public final static ConstantExpr FalseExpr = new ConstantExpr(false);
+	public final static ConstantExpr FalseExpr = intern(new ConstantExpr(false));
 
 	/** Private constructor prevents clients from instantiating. */
 	private ConstantExpr(final Boolean b) { this.b = b; }
@@ -81,6 +81,12 @@ public final class ConstantExpr extends Expr {
 		return "Const";
 	}
 
+	@Override
+	protected int compareToSameClass(final Expr e) {
+		// false ('0') before true ('1')
+		return this.b.compareTo(((ConstantExpr)e).b);
+	}
+
 	@Override
 	public int hashCode() {
 		return Boolean.valueOf(b).hashCode();
@@ -102,4 +108,9 @@ public final class ConstantExpr extends Expr {
 		return equals(obj);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return hashCode();
+	}
+
 }
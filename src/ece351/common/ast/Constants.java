@@ -35,5 +35,8 @@ public interface Constants {
 	public final String NAND = "nand";
 	public final String NOR = "nor";
 	public final String XNOR = "xnor";
+	public final String MUX = "mux";
+	public final String WHEN = "when";
+	public final String ELSE = "else";
 
 }
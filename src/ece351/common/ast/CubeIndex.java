@@ -0,0 +1,137 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The children of an NaryExpr viewed as cubes, for absorption. Each child
+ * of the dual kind (an and under an or, or an or under an and) is the set
+ * of its own children; we call those children literals, although they may 
+ * be any Expr. Distinct literals are interned to bit positions, so a cube
+ * is a bitset and containment is a word-wide test. The index from each 
+ * literal to the cubes that contain it means that a candidate absorber is
+ * only compared with the cubes that contain its rarest literal, rather 
+ * than with every other child.
+ */
+final class CubeIndex {
+
+	private final NaryExpr parent;
+	private final Map<Expr, Integer> literals = new HashMap<Expr, Integer>();
+	/** Cube of each child of the dual kind; null for the other children. */
+	private final long[][] cubes;
+	/** For each literal, the indices of the children whose cubes contain it. */
+	private final List<List<Integer>> occurrences = new ArrayList<List<Integer>>();
+
+	CubeIndex(final NaryExpr parent) {
+		this.parent = parent;
+		final Class<? extends NaryExpr> dual = parent instanceof NaryOrExpr ? NaryAndExpr.class : NaryOrExpr.class;
+		final int n = parent.children.size();
+		cubes = new long[n][];
+		// intern first, so that we know how wide the cubes are
+		for (int k = 0; k < n; k++) {
+			final Expr child = parent.children.get(k);
+			if (child.getClass() != dual) continue;
+			for (final Expr l : ((NaryExpr) child).children) {
+				final Integer id = literals.get(l);
+				if (id == null) {
+					literals.put(l, literals.size());
+					occurrences.add(new ArrayList<Integer>());
+				}
+			}
+		}
+		final int words = (literals.size() + 63) / 64;
+		for (int k = 0; k < n; k++) {
+			final Expr child = parent.children.get(k);
+			if (child.getClass() != dual) continue;
+			final long[] cube = new long[words];
+			for (final Expr l : ((NaryExpr) child).children) {
+				final int id = literals.get(l);
+				if ((cube[id >>> 6] & (1L << id)) == 0) {
+					occurrences.get(id).add(k);
+				}
+				cube[id >>> 6] |= 1L << id;
+			}
+			cubes[k] = cube;
+		}
+	}
+
+	/**
+	 * Which children are absorbed: x + (x . y) = x, and 
+	 * (x . y) + (x . y . z) = x . y (dually for and). A child of the dual
+	 * kind is absorbed by a child that is one of its literals, or by an 
+	 * NaryExpr child with fewer children all of which are its literals.
+	 */
+	boolean[] absorbed() {
+		final int n = parent.children.size();
+		final boolean[] absorbed = new boolean[n];
+		if (literals.isEmpty()) return absorbed;
+		for (int i = 0; i < n; i++) {
+			final Expr child = parent.children.get(i);
+			if (!(child instanceof NaryExpr)) {
+				final Integer id = literals.get(child);
+				if (id == null) continue;
+				for (final int k : occurrences.get(id)) {
+					absorbed[k] = true;
+				}
+				continue;
+			}
+			final NaryExpr absorber = (NaryExpr) child;
+			final long[] cube = new long[(literals.size() + 63) / 64];
+			List<Integer> rarest = null;
+			for (final Expr l : absorber.children) {
+				final Integer id = literals.get(l);
+				if (id == null) {
+					// no cube contains this literal
+					rarest = null;
+					break;
+				}
+				cube[id >>> 6] |= 1L << id;
+				final List<Integer> occ = occurrences.get(id);
+				if (rarest == null || occ.size() < rarest.size()) rarest = occ;
+			}
+			if (rarest == null) continue;
+			final int size = absorber.children.size();
+			for (final int k : rarest) {
+				if (!absorbed[k] && size < ((NaryExpr) parent.children.get(k)).children.size() && subset(cube, cubes[k])) {
+					absorbed[k] = true;
+				}
+			}
+		}
+		return absorbed;
+	}
+
+	private static boolean subset(final long[] a, final long[] b) {
+		for (int w = 0; w < a.length; w++) {
+			if ((a[w] & ~b[w]) != 0) return false;
+		}
+		return true;
+	}
+}
@@ -34,6 +34,14 @@ public final class EqualExpr extends CommutativeBinaryExpr{
 	public EqualExpr(Expr leftExpr, Expr rightExpr) {
 		super(leftExpr, rightExpr);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static EqualExpr make(final Expr left, final Expr right) {
+		return intern(new EqualExpr(left, right));
+	}
     
     public Expr accept(final ExprVisitor v){
     	return v.visitEqual(this);
@@ -46,7 +54,7 @@ public final class EqualExpr extends CommutativeBinaryExpr{
 
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new EqualExpr(left, right);
+		return make(left, right);
 	}
 
 }
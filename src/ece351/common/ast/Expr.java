@@ -26,64 +26,135 @@
 
 package ece351.common.ast;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import ece351.common.visitor.ExprVisitor;
+import ece351.f.equivalence.SimulationSignature;
 import ece351.util.Examinable;
+import ece351.util.EquivalentHashable;
+import ece351.util.IsomorphicHashable;
 
-public abstract class Expr implements Comparable<Expr>, Examinable {
+public abstract class Expr implements Comparable<Expr>, Examinable, IsomorphicHashable, EquivalentHashable {
 	
 	private static final AtomicInteger counter = new AtomicInteger();
 	private final int serialNumber;
 	
+	/**
+	 * Hash-consing table. Holds the canonical instance of each structurally
+	 * distinct Expr that has been made through a factory method. Both keys
+	 * and values are weak, so canonical instances are reclaimed once the
+	 * rest of the program stops referring to them.
+	 */
+	private static final Map<Expr,WeakReference<Expr>> internTable = new WeakHashMap<Expr,WeakReference<Expr>>();
+
+	/**
+	 * Set once this object is the canonical instance in the intern table.
+	 * Two distinct interned objects are never structurally equal.
+	 */
+	private volatile boolean interned = false;
+	
 	public Expr() {
 		serialNumber = counter.getAndIncrement();
 	}
-	
+
 	/**
-	 * Default implementation is to do nothing.
-	 * @return this
+	 * Return the canonical instance that is structurally equal to e,
+	 * registering e as canonical if there is none yet. Analogous to
+	 * String.intern(). The factory methods (make, newNaryExpr,
+	 * newBinaryExpr, newUnaryExpr) all go through here, so that equal
+	 * subtrees built by the parsers, visitors and the simplifier are
+	 * shared rather than duplicated.
 	 */
-	protected Expr simplifyOnce() {
-		return this;
+	public static <T extends Expr> T intern(final T e) {
+		final Expr candidate = e;
+		if (candidate.interned) return e;
+		synchronized (internTable) {
+			final WeakReference<Expr> ref = internTable.get(e);
+			if (ref != null) {
+				final Expr canonical = ref.get();
+				if (canonical != null && canonical.getClass().equals(e.getClass())) {
+					@SuppressWarnings("unchecked")
+					final T result = (T) canonical;
+					return result;
+				}
+			}
+			candidate.interned = true;
+			internTable.put(candidate, new WeakReference<Expr>(candidate));
+			return e;
+		}
+	}
+
+	/**
+	 * Is this object the canonical instance for its structure?
+	 */
+	public final boolean isInterned() {
+		return interned;
 	}
 
+	/**
+	 * Pointer-based shortcut for equals(): two different interned objects
+	 * cannot be structurally equal, so there is no need to walk them.
+	 */
+	protected static boolean distinctInterned(final Expr e, final Object obj) {
+		return e.interned && obj != e && obj instanceof Expr && ((Expr)obj).interned;
+	}
 	
 	/**
-	 * Keep applying the simplify method until no more changes occur.
+	 * Apply the simplifier rules until no more changes occur.
 	 * In other words, iterate to a fixed point.
-	 * @param e
 	 * @return
 	 */
 	final public Expr simplify() {
-		Expr e = this;
-		while (true) { // loop forever?
-			final Expr simplified = e.simplifyOnce();
-			if (simplified.equals(e)) {
-				// we're done: nothing changed
-				return simplified;
-			} else {
-				// something changed: keep working
-				e = simplified;
-			}
-		}
+		return simplify(new SimplifierCache());
+	}
+
+	/**
+	 * Apply the rules of the given cache until no more changes occur,
+	 * remembering the results in the cache so that repeated subtrees
+	 * (e.g., in other formulas of the same FProgram) are only
+	 * simplified once.
+	 * @param cache
+	 * @return
+	 */
+	final public Expr simplify(final SimplifierCache cache) {
+		return new RewriteEngine(cache).rewrite(this);
 	}
 	
 	public final String serialNumber(){ return operator() + serialNumber; };
 	public abstract Expr accept(final ExprVisitor exprVisitor);
 
 	
+	/**
+	 * Structural total order, consistent with equals(). Different types
+	 * are ranked by class name; objects of the same type are ordered by
+	 * compareToSameClass(). Does not render either side to a string, so
+	 * sorting the children of an NaryExpr no longer walks whole subtrees.
+	 */
 	@Override
 	public final int compareTo(final Expr e) {
-		if (getClass().equals(e.getClass())) {
+		if (this == e) return 0;
+		final Class<?> thisClass = getClass();
+		final Class<?> thatClass = e.getClass();
+		if (thisClass == thatClass) {
 			// same type
-			return toString().compareTo(e.toString());
+			return compareToSameClass(e);
 		} else {
 			// different types
-			return getClass().getName().compareTo(e.getClass().getName());
+			return thisClass.getName().compareTo(thatClass.getName());
 		}
 	}
 
+	/**
+	 * Compare to another Expr of exactly the same class. Leaves compare
+	 * their values. Interior nodes compare their cached hash codes first,
+	 * which serve as each node's canonical key, and only fall back to
+	 * comparing children (lexicographically) when the hashes collide.
+	 */
+	protected abstract int compareToSameClass(final Expr e);
+
 	public abstract String operator();
 	
 	/**
@@ -98,9 +169,19 @@ public abstract class Expr implements Comparable<Expr>, Examinable {
 	@Override
 	public final boolean equivalent(final Examinable obj) {
 		if (!(obj instanceof Expr)) return false;
-		final VarExpr v = new VarExpr("_astmt");
+		final VarExpr v = VarExpr.make("_astmt");
 		final AssignmentStatement a1 = new AssignmentStatement(v, this);
 		final AssignmentStatement a2 = new AssignmentStatement(v, (Expr)obj);
 		return a1.equivalent(a2);
 	}
+
+	/**
+	 * The values of this expression on a fixed set of input vectors
+	 * (see SimulationSignature), so equivalent expressions agree.
+	 */
+	@Override
+	public final int equivalentHashCode() {
+		final long s = SimulationSignature.of(this);
+		return (int) (s ^ (s >>> 32));
+	}
 }
@@ -0,0 +1,210 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import ece351.common.visitor.ExprVisitor;
+import ece351.util.Examinable;
+import ece351.util.Examiner;
+
+/**
+ * A 2:1 multiplexer: ifTrue when select is true, else ifFalse. Written
+ * in F as (ifTrue when select else ifFalse). Equivalent to
+ * (select and ifTrue) or (not select and ifFalse), but mentions the
+ * select only once.
+ */
+public final class MuxExpr extends Expr {
+
+	public final Expr select, ifTrue, ifFalse;
+
+	/** Cached hash code; zero until first computed. */
+	private int hash;
+	/** Cached isomorphic hash code; zero until first computed. */
+	private int isomorphicHash;
+
+	public MuxExpr(final Expr select, final Expr ifTrue, final Expr ifFalse) {
+		this.select = select;
+		this.ifTrue = ifTrue;
+		this.ifFalse = ifFalse;
+	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static MuxExpr make(final Expr select, final Expr ifTrue, final Expr ifFalse) {
+		return intern(new MuxExpr(select, ifTrue, ifFalse));
+	}
+
+	public MuxExpr newMuxExpr(final Expr select, final Expr ifTrue, final Expr ifFalse) {
+		return make(select, ifTrue, ifFalse);
+	}
+
+	/** (select and ifTrue) or (not select and ifFalse) */
+	public Expr lower() {
+		return OrExpr.make(AndExpr.make(select, ifTrue), AndExpr.make(NotExpr.make(select), ifFalse));
+	}
+
+	@Override
+	public Expr accept(final ExprVisitor v) {
+		return v.visitMux(this);
+	}
+
+	@Override
+	public String operator() {
+		return Constants.MUX;
+	}
+
+	@Override
+	public boolean repOk() {
+		assert select != null : "select should not be null";
+		assert ifTrue != null : "ifTrue should not be null";
+		assert ifFalse != null : "ifFalse should not be null";
+		assert select.repOk();
+		assert ifTrue.repOk();
+		assert ifFalse.repOk();
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + ifTrue.toString() + " " + Constants.WHEN + " " + select.toString() + " " + Constants.ELSE + " " + ifFalse.toString() + ")";
+	}
+
+	@Override
+	public int hashCode() {
+		int h = this.hash;
+		if (h == 0) {
+			h = 17;
+			h = h * 13 + operator().hashCode();
+			h = h * 13 + select.hashCode();
+			h = h * 13 + ifTrue.hashCode();
+			h = h * 13 + ifFalse.hashCode();
+			this.hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	protected int compareToSameClass(final Expr e) {
+		final MuxExpr that = (MuxExpr) e;
+		final int h = Integer.compare(this.hashCode(), that.hashCode());
+		if (h != 0) return h;
+		final int s = this.select.compareTo(that.select);
+		if (s != 0) return s;
+		final int t = this.ifTrue.compareTo(that.ifTrue);
+		if (t != 0) return t;
+		return this.ifFalse.compareTo(that.ifFalse);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (distinctInterned(this, obj)) return false;
+		return examine(Examiner.Equals, obj);
+	}
+
+	@Override
+	public boolean isomorphic(final Examinable obj) {
+		return examine(Examiner.Isomorphic, obj);
+	}
+
+	@Override
+	public int isomorphicHashCode() {
+		int h = this.isomorphicHash;
+		if (h == 0) {
+			h = 17;
+			h = h * 13 + operator().hashCode();
+			h = h * 13 + select.isomorphicHashCode();
+			h = h * 13 + ifTrue.isomorphicHashCode();
+			h = h * 13 + ifFalse.isomorphicHashCode();
+			this.isomorphicHash = h;
+		}
+		return h;
+	}
+
+	private boolean examine(final Examiner e, final Object obj) {
+		// basics
+		if (obj == null) return false;
+		if (!this.getClass().equals(obj.getClass())) return false;
+		final MuxExpr that = (MuxExpr) obj;
+		// compare field values
+		return e.examine(select, that.select) 
+				&& e.examine(ifTrue, that.ifTrue) 
+				&& e.examine(ifFalse, that.ifFalse);
+	}
+
+	final Expr foldConstants() {
+		// constant select picks a branch
+		if (select instanceof ConstantExpr) {
+			return ((ConstantExpr) select).b ? ifTrue : ifFalse;
+		}
+		// constant branches turn the mux into and/or
+		if (ifTrue instanceof ConstantExpr && ifFalse instanceof ConstantExpr) {
+			// (1 when s else 0) = s and (0 when s else 1) = not s;
+			// equal constants are left to removeDuplicates()
+			final boolean t = ((ConstantExpr) ifTrue).b;
+			if (t != ((ConstantExpr) ifFalse).b) {
+				return t ? select : NotExpr.make(select);
+			}
+			return this;
+		}
+		if (ifTrue instanceof ConstantExpr) {
+			return ((ConstantExpr) ifTrue).b 
+					? NaryOrExpr.make(select, ifFalse) 
+					: NaryAndExpr.make(NotExpr.make(select), ifFalse);
+		}
+		if (ifFalse instanceof ConstantExpr) {
+			return ((ConstantExpr) ifFalse).b 
+					? NaryOrExpr.make(NotExpr.make(select), ifTrue) 
+					: NaryAndExpr.make(select, ifTrue);
+		}
+		return this;
+	}
+
+	final Expr foldComplements() {
+		// (a when not s else b) = (b when s else a)
+		if (select instanceof NotExpr) {
+			return make(((NotExpr) select).expr, ifFalse, ifTrue);
+		}
+		return this;
+	}
+
+	final Expr removeDuplicates() {
+		// (a when s else a) = a
+		if (ifTrue.equals(ifFalse)) {
+			return ifTrue;
+		}
+		// (s when s else b) = s or b; (a when s else s) = s and a
+		if (ifTrue.equals(select)) {
+			return NaryOrExpr.make(select, ifFalse);
+		}
+		if (ifFalse.equals(select)) {
+			return NaryAndExpr.make(select, ifTrue);
+		}
+		return this;
+	}
+}
@@ -33,6 +33,14 @@ public final class NAndExpr extends CommutativeBinaryExpr {
 	public NAndExpr(Expr left, Expr right) {
 		super(left,right);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static NAndExpr make(final Expr left, final Expr right) {
+		return intern(new NAndExpr(left, right));
+	}
     
     public Expr accept(final ExprVisitor v){
     	return v.visitNAnd(this);
@@ -43,6 +51,6 @@ public final class NAndExpr extends CommutativeBinaryExpr {
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new NAndExpr(left, right);
+		return make(left, right);
 	}
 }
@@ -33,6 +33,14 @@ public final class NOrExpr extends CommutativeBinaryExpr {
 	public NOrExpr(Expr left, Expr right) {
 		super(left,right);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static NOrExpr make(final Expr left, final Expr right) {
+		return intern(new NOrExpr(left, right));
+	}
     
     public Expr accept(final ExprVisitor v){
     	return v.visitNOr(this);
@@ -44,6 +52,6 @@ public final class NOrExpr extends CommutativeBinaryExpr {
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new NOrExpr(left, right);
+		return make(left, right);
 	}
 }
@@ -40,10 +40,22 @@ public final class NaryAndExpr extends NaryExpr {
 	public NaryAndExpr(final List<Expr> children) {
 		super(children);
 	}
+
+	/**
+	 * To be used by clients instead of the constructors.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static NaryAndExpr make(final Expr... exprs) {
+		return intern(new NaryAndExpr(exprs));
+	}
+
+	public static NaryAndExpr make(final List<Expr> children) {
+		return intern(new NaryAndExpr(children));
+	}
 	
 	@Override
 	public NaryExpr newNaryExpr(final List<Expr> children) {
-		return new NaryAndExpr(children);
+		return make(children);
 	}
 
 	@Override
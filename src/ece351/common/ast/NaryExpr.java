@@ -28,35 +28,33 @@ package ece351.common.ast;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-
-import org.parboiled.common.ImmutableList;
+import java.util.Set;
 
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.PersistentVector;
 
 /**
  * An expression with multiple children. Must be commutative.
  */
 public abstract class NaryExpr extends Expr {
 
-	public final ImmutableList<Expr> children;
+	public final PersistentVector<Expr> children;
+
+	/** Cached hash code; zero until first computed. */
+	private int hash;
+	/** Cached isomorphic hash code; zero until first computed. */
+	private int isomorphicHash;
 
 	public NaryExpr(final Expr... exprs) {
-		Arrays.sort(exprs);
-		ImmutableList<Expr> c = ImmutableList.of();
-		for (final Expr e : exprs) {
-			c = c.append(e);
-		}
-    	this.children = c;
+		this.children = PersistentVector.sortedCopyOf(Arrays.asList(exprs));
 	}
 	
 	public NaryExpr(final List<Expr> children) {
-		final ArrayList<Expr> a = new ArrayList<Expr>(children);
-		Collections.sort(a);
-		this.children = ImmutableList.copyOf(a);
+		this.children = PersistentVector.sortedCopyOf(children);
 	}
 
 	/**
@@ -82,10 +80,7 @@ public abstract class NaryExpr extends Expr {
 	 * @return a new NaryExpr
 	 */
 	public NaryExpr appendAll(final List<Expr> list) {
-		final List<Expr> a = new ArrayList<Expr>(children.size() + list.size());
-		a.addAll(children);
-		a.addAll(list);
-		return newNaryExpr(a);
+		return newNaryExpr(children.appendAll(list));
 	}
 
 	/**
@@ -157,11 +152,31 @@ public abstract class NaryExpr extends Expr {
 
 	@Override
 	public final int hashCode() {
-		return 17 + children.hashCode();
+		int h = this.hash;
+		if (h == 0) {
+			h = 17 + 13 * operator().hashCode() + children.hashCode();
+			this.hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	protected final int compareToSameClass(final Expr e) {
+		final NaryExpr that = (NaryExpr) e;
+		final int h = Integer.compare(this.hashCode(), that.hashCode());
+		if (h != 0) return h;
+		final int size = Math.min(this.children.size(), that.children.size());
+		for (int i = 0; i < size; i++) {
+			final int c = this.children.get(i).compareTo(that.children.get(i));
+			if (c != 0) return c;
+		}
+		return Integer.compare(this.children.size(), that.children.size());
 	}
 
 	@Override
 	public final boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (distinctInterned(this, obj)) return false;
 		if (!(obj instanceof Examinable)) return false;
 		return examine(Examiner.Equals, (Examinable)obj);
 	}
@@ -170,6 +185,23 @@ public abstract class NaryExpr extends Expr {
 	public final boolean isomorphic(final Examinable obj) {
 		return examine(Examiner.Isomorphic, obj);
 	}
+
+	/**
+	 * A sum over the children, so it does not depend on their order
+	 * (which is supposed to be sorted, but might not be).
+	 */
+	@Override
+	public final int isomorphicHashCode() {
+		int h = this.isomorphicHash;
+		if (h == 0) {
+			h = 17 + 13 * operator().hashCode();
+			for (final Expr c : children) {
+				h += c.isomorphicHashCode();
+			}
+			this.isomorphicHash = h;
+		}
+		return h;
+	}
 	
 	private boolean examine(final Examiner e, final Examinable obj) {
 		// basics
@@ -194,50 +226,13 @@ public abstract class NaryExpr extends Expr {
 	}
 
 	
-	@Override
-	protected final Expr simplifyOnce() {
-		assert repOk();
-		final Expr result = 
-				simplifyChildren().
-				mergeGrandchildren().
-				foldIdentityElements().
-				foldAbsorbingElements().
-				foldComplements().
-				removeDuplicates().
-				simpleAbsorption().
-				subsetAbsorption().
-				singletonify();
-		assert result.repOk();
-		return result;
-	}
-	
-	/**
-	 * Call simplify() on each of the children.
-	 */
-	private NaryExpr simplifyChildren() {
-		// note: we do not assert repOk() here because the rep might not be ok
-		// the result might contain duplicate children, and the children
-		// might be out of order
-		if (this.children.size() == 0) {
-			return this;
-		}
-		List<Expr> children = new LinkedList<Expr>();
-		for (int i = 0; i < this.children.size(); i++) {
-			Expr child = this.children.get(i);
-			child = child.simplifyOnce();
-			children.add(i, child);
-		}
-		return newNaryExpr(children);
-	}
-
-	
-	private NaryExpr mergeGrandchildren() {
+	final NaryExpr mergeGrandchildren() {
 		// extract children to merge using filter (because they are the same type as us)
 			// if no children to merge, then return this (i.e., no change)
 			// use filter to get the other children, which will be kept in the result unchanged
 			// merge in the grandchildren
 			// assert result.repOk():  this operation should always leave the AST in a legal state
-		List<Expr> children = new LinkedList<Expr>();
+		final PersistentVector.Builder<Expr> children = PersistentVector.builder(this.children.size());
 		NaryExpr a = this.filter(this.getClass(), true);
 		for (int i = 0; i < a.children.size(); i++) {
 			NaryExpr child = (NaryExpr) a.children.get(i);
@@ -251,37 +246,38 @@ public abstract class NaryExpr extends Expr {
 			Expr child = b.children.get(i);
 			children.add(child);
 		}
-		assert newNaryExpr(children).repOk();
-		return newNaryExpr(children);
+		final NaryExpr result = newNaryExpr(children.build());
+		assert result.repOk();
+		return result;
 	}
 
 
-    private NaryExpr foldIdentityElements() {
+    final NaryExpr foldIdentityElements() {
     	// if we have only one child stop now and return self
 		if (this.children.size() == 1) {
 			return this;
 		}
     	// we have multiple children, remove the identity elements
-		NaryExpr a = this.filter(this.getIdentityElement(), Examiner.Equals, false);
-		if (this.children.contains(this.getIdentityElement())) {
-			return a;
+		if (!this.children.contains(this.getIdentityElement())) {
+			// normal return
+			return this;
 		}
+		NaryExpr a = this.filter(this.getIdentityElement(), Examiner.Equals, false);
 		// all children were identity elements, so now our working list is empty
 		if (a.children.size() == 0) {
 			// return a new list with a single identity element
-			ImmutableList<Expr> l = ImmutableList.of(this.getIdentityElement());
+			PersistentVector<Expr> l = PersistentVector.of(this.getIdentityElement());
 			return newNaryExpr(l);
 		}
-		// normal return
-		return this;
+		return a;
     	// do not assert repOk(): this fold might leave the AST in an illegal state (with only one child)
     }
 
-    private NaryExpr foldAbsorbingElements() {
+    final NaryExpr foldAbsorbingElements() {
 		// absorbing element: 0.x=0 and 1+x=1
 		if (this.children.contains(this.getAbsorbingElement())) {
 			// absorbing element is present: return it
-			return newNaryExpr(ImmutableList.of(this.getAbsorbingElement()));
+			return newNaryExpr(PersistentVector.of(this.getAbsorbingElement()));
 		}
 		// absorbing element is present: return it
 		// not so fast! what is the return type of this method? why does it have to be that way?
@@ -290,7 +286,7 @@ public abstract class NaryExpr extends Expr {
     	// do not assert repOk(): this fold might leave the AST in an illegal state (with only one child)
 	}
 
-	private NaryExpr foldComplements() {
+	final NaryExpr foldComplements() {
 		// collapse complements
 		// !x . x . ... = 0 and !x + x + ... = 1
 		NaryExpr a = this.filter(NotExpr.class, true);
@@ -298,7 +294,7 @@ public abstract class NaryExpr extends Expr {
 			// x op !x = absorbing element
 			NotExpr element = (NotExpr)a.children.get(0);
 			if (this.children.contains(element.expr)) {
-				return newNaryExpr(ImmutableList.of(this.getAbsorbingElement()));
+				return newNaryExpr(PersistentVector.of(this.getAbsorbingElement()));
 			}
 		}
 		// find all negations
@@ -310,19 +306,12 @@ public abstract class NaryExpr extends Expr {
     	// do not assert repOk(): this fold might leave the AST in an illegal state (with only one child)
 	}
 
-	private NaryExpr removeDuplicates() {
+	final NaryExpr removeDuplicates() {
 		// remove duplicate children: x.x=x and x+x=x
-		ImmutableList<Expr> l = ImmutableList.of();
-		for (int i = 0; i < this.children.size(); i++) {
-			Expr child = this.children.get(i);
-			if (this.children.contains(child) && !l.contains(child)) {
-				l = l.append(child);
-			}
-		}
-		// since children are sorted this is fairly easy
-		if (l.size() > 0) {
+		final Set<Expr> l = new LinkedHashSet<Expr>(children);
+		if (l.size() != children.size()) {
 			// removed some duplicates
-			return newNaryExpr(l);
+			return newNaryExpr(new ArrayList<Expr>(l));
 		} else {
 			// no changes
 			return this;
@@ -330,90 +319,55 @@ public abstract class NaryExpr extends Expr {
     	// do not assert repOk(): this fold might leave the AST in an illegal state (with only one child)
 	}
 
-	private NaryExpr simpleAbsorption() {
+	final NaryExpr simpleAbsorption() {
 		// (x.y) + x ... = x ...
 		// check if there are any conjunctions that can be removed
-		List<Expr> l = new LinkedList<Expr>(children);
-		NaryExpr a;
-		if (this instanceof NaryAndExpr) {
-			a = this.filter(NaryOrExpr.class, true);
-		} else if (this instanceof NaryOrExpr) {
-			a = this.filter(NaryAndExpr.class, true);
-		} else {
-			return this;
-		}
-		for (int i = 0; i < this.children.size(); i++) {
-			Expr child = this.children.get(i);
-			// Check if the child is a subset of any other child
-			for (int j = 0; j < a.children.size(); j++) {
-				NaryExpr child2 = (NaryExpr)a.children.get(j);
-				if (child instanceof NaryExpr) {
-					NaryExpr child3 = (NaryExpr)child;
-					int count = child3.children.size();
-					for (Expr child_min : child3.children) {
-						if (child2.children.contains(child_min)) {
-							count -= 1;
-						}
-					}
-					if (count == 0 && child3.children.size() < child2.children.size()) {
-						l.remove(child2);
-					}
-				} else {
-					for (int n = 0; n < a.children.size(); n++) {
-						NaryExpr child5 = (NaryExpr)a.children.get(j);
-						if (child5.children.contains(child)) {
-							l.remove(child5);
-						} 
-					}
-				}
-			}			
-		}
-		if (l.size() != children.size()) {
-			return newNaryExpr(l);
-		} else {
+		if (!(this instanceof NaryAndExpr) && !(this instanceof NaryOrExpr)) {
 			return this;
 		}
+		final boolean[] absorbed = new CubeIndex(this).absorbed();
+		return without(absorbed);
     	// do not assert repOk(): this operation might leave the AST in an illegal state (with only one child)
 	}
 
-	private NaryExpr subsetAbsorption() {
+	final NaryExpr subsetAbsorption() {
 		// check if there are any conjunctions that are supersets of others
 		// e.g., ( a . b . c ) + ( a . b ) = a . b
-		List<Expr> l = new LinkedList<Expr>(children);
-		if (this instanceof NaryOrExpr) {
-			for (int i = 0; i < this.children.size(); i++) {
-				Expr child = this.children.get(i);
-				// Check if the child is a subset of any other child
-				if (child instanceof NaryAndExpr) {
-					NaryAndExpr child3 = (NaryAndExpr)child;
-					NaryExpr a = child3.filter(NaryOrExpr.class, true);
-					if (a.children.size() > 0) {
-						for (int j = 0; j < a.children.size(); j++) {
-							NaryExpr child2 = (NaryExpr)a.children.get(j);
-							int count = child2.children.size();
-							for (int n = 0; n < child2.children.size(); n++) {
-								Expr child4 = child2.children.get(n);
-								if (this.children.contains(child4)) {
-									count -= 1;
-								}
-							}
-							if (count == 0) {
-								l.remove(child);
-							}
-						}
-					}
-				}			
+		// and x + y + (z . (x + y)) = x + y
+		if (!(this instanceof NaryOrExpr)) {
+			return this;
+		}
+		final Set<Expr> siblings = new HashSet<Expr>(children);
+		final boolean[] absorbed = new boolean[children.size()];
+		for (int i = 0; i < children.size(); i++) {
+			final Expr child = children.get(i);
+			if (!(child instanceof NaryAndExpr)) continue;
+			for (final Expr grandchild : ((NaryAndExpr) child).children) {
+				if (grandchild.getClass() == NaryOrExpr.class 
+						&& siblings.containsAll(((NaryOrExpr) grandchild).children)) {
+					absorbed[i] = true;
+					break;
+				}
 			}
-			return newNaryExpr(l);
 		}
-		return this;
+		return without(absorbed);
     	// do not assert repOk(): this operation might leave the AST in an illegal state (with only one child)
 	}
 
+	/** This NaryExpr without the marked children, or this if none are marked. */
+	private NaryExpr without(final boolean[] removed) {
+		final PersistentVector.Builder<Expr> l = PersistentVector.builder(children.size());
+		for (int i = 0; i < children.size(); i++) {
+			if (!removed[i]) l.add(children.get(i));
+		}
+		final PersistentVector<Expr> kept = l.build();
+		return kept.size() == children.size() ? this : newNaryExpr(kept);
+	}
+
 	/**
 	 * If there is only one child, return it (the containing NaryExpr is unnecessary).
 	 */
-	private Expr singletonify() {
+	final Expr singletonify() {
 		// if we have only one child, return it
 		// having only one child is an illegal state for an NaryExpr
 			// multiple children; nothing to do; return self
@@ -432,7 +386,7 @@ public abstract class NaryExpr extends Expr {
 	 * @return
 	 */
 	public final NaryExpr filter(final Class<? extends Expr> filter, final boolean shouldMatchFilter) {
-		ImmutableList<Expr> l = ImmutableList.of();
+		PersistentVector<Expr> l = PersistentVector.of();
 		for (final Expr child : children) {
 			if (child.getClass().equals(filter)) {
 				if (shouldMatchFilter) {
@@ -448,7 +402,7 @@ public abstract class NaryExpr extends Expr {
 	}
 
 	public final NaryExpr filter(final Expr filter, final Examiner examiner, final boolean shouldMatchFilter) {
-		ImmutableList<Expr> l = ImmutableList.of();
+		PersistentVector<Expr> l = PersistentVector.of();
 		for (final Expr child : children) {
 			if (examiner.examine(child, filter)) {
 				if (shouldMatchFilter) {
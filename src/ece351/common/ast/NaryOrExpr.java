@@ -39,10 +39,22 @@ public final class NaryOrExpr extends NaryExpr {
 	public NaryOrExpr(final List<Expr> children) {
 		super(children);
 	}
+
+	/**
+	 * To be used by clients instead of the constructors.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static NaryOrExpr make(final Expr... exprs) {
+		return intern(new NaryOrExpr(exprs));
+	}
+
+	public static NaryOrExpr make(final List<Expr> children) {
+		return intern(new NaryOrExpr(children));
+	}
 	
 	@Override
 	public NaryExpr newNaryExpr(final List<Expr> children) {
-		return new NaryOrExpr(children);
+		return make(children);
 	}
 
 	@Override
@@ -38,31 +38,18 @@ public final class NotExpr extends UnaryExpr{
 	}
 
 	public NotExpr() { this(null); }
-	
-	@Override
-    protected final Expr simplifyOnce() {		
-    	// simplify our child first
-		if (this.expr.equals(ConstantExpr.TrueExpr)) {
-			// !true = false
-			return ConstantExpr.FalseExpr;
-		} else if (this.expr.equals(ConstantExpr.FalseExpr)) {
-			// !false = true
-			return ConstantExpr.TrueExpr;
-		} else if (this.expr instanceof NotExpr) {
-			// !!x = x
-			NotExpr child = (NotExpr)this.expr;
-			return child.expr;
-		}
-		// nothing changed
-		Expr child = this.expr.simplifyOnce();
-		if (child.equals(this.expr)) {
-			// nothing changed
-			return this;
-		} else {
-			// something changed
-			return new NotExpr(child);
-		}
-    }
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with this child.
+	 */
+	public static NotExpr make(final Expr argument) {
+		return intern(new NotExpr(argument));
+	}
+
+	public static NotExpr make(final Object pop) {
+		return make((Expr)pop);
+	}
 	
     public Expr accept(final ExprVisitor v){
     	return v.visitNot(this);
@@ -74,7 +61,7 @@ public final class NotExpr extends UnaryExpr{
 	}
 	@Override
 	public UnaryExpr newUnaryExpr(final Expr expr) {
-		return new NotExpr(expr);
+		return make(expr);
 	}
 
 }
@@ -26,9 +26,6 @@
 
 package ece351.common.ast;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import ece351.common.visitor.ExprVisitor;
 
 
@@ -37,6 +34,14 @@ public final class OrExpr extends CommutativeBinaryExpr{
 	public OrExpr(Expr left, Expr right) {
 		super(left,right);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static OrExpr make(final Expr left, final Expr right) {
+		return intern(new OrExpr(left, right));
+	}
 	public OrExpr() {this(null, null);}
     
     public OrExpr(Object pop1, Object pop2) {
@@ -46,20 +51,12 @@ public final class OrExpr extends CommutativeBinaryExpr{
     	return v.visitOr(this);
     }
 
-	@Override
-	public Expr simplifyOnce() {
-		// return a new NaryOrExpr with the same children as this OrExpr
-		List<Expr> children = new LinkedList<Expr>();
-		children.add(this.left);
-		children.add(this.right);
-		return new NaryOrExpr(children);
-	}
 	@Override
 	public String operator() {
 		return Constants.OR;
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new OrExpr(left, right);
+		return make(left, right);
 	}
 }
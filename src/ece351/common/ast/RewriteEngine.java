@@ -0,0 +1,218 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Worklist-driven simplifier. Nodes are simplified bottom-up with an
+ * explicit stack (so deep formulas cannot overflow the call stack).
+ * A node is only examined once all of its children are simplified; 
+ * then the rules for its kind are applied in priority order. If any of
+ * them fires, only the rewritten node is dirty: its children are already
+ * simplified and are found in the cache rather than traversed again.
+ * 
+ * Results are recorded in a SimplifierCache, so subtrees that are shared
+ * within or across formulas are only simplified once. The rules come 
+ * from the cache, because its contents are only valid for those rules.
+ */
+public final class RewriteEngine {
+
+	private final SimplifierCache cache;
+	private final RuleSet rules;
+	private long rewrites = 0;
+	private long visits = 0;
+
+	public RewriteEngine(final SimplifierCache cache) {
+		this.cache = cache;
+		this.rules = cache.rules;
+	}
+
+	/**
+	 * A node whose children are being simplified.
+	 */
+	private static final class Frame {
+		Expr node;
+		List<Expr> children;
+		Expr[] results;
+		int next;
+		boolean changed;
+		/** Everything this frame has been rewritten from. */
+		final List<Expr> trail = new ArrayList<Expr>(2);
+
+		Frame(final Expr node) {
+			reset(node);
+		}
+
+		void reset(final Expr node) {
+			this.node = node;
+			this.children = children(node);
+			this.results = new Expr[children.size()];
+			this.next = 0;
+			this.changed = false;
+		}
+
+		void deliver(final Expr result) {
+			if (result != children.get(next)) {
+				changed = true;
+			}
+			results[next++] = result;
+		}
+	}
+
+	/**
+	 * Simplify e to a fixed point of the enabled rules.
+	 */
+	public Expr rewrite(final Expr root) {
+		final Expr known = cache.get(root);
+		if (known != null) {
+			return known;
+		}
+		final Deque<Frame> stack = new ArrayDeque<Frame>();
+		stack.push(new Frame(root));
+		Expr result = null;
+		while (!stack.isEmpty()) {
+			final Frame f = stack.peek();
+			if (f.next < f.children.size()) {
+				// simplify the next child, unless we already know its answer
+				final Expr child = f.children.get(f.next);
+				final Expr k = cache.get(child);
+				if (k == null) {
+					stack.push(new Frame(child));
+				} else {
+					f.deliver(k);
+				}
+				continue;
+			}
+			// all children are simplified: now look at the node itself
+			visits++;
+			final Expr n = f.changed ? withChildren(f.node, f.results) : f.node;
+			Expr done = (n != f.node) ? cache.get(n) : null;
+			if (done == null) {
+				final Expr r = applyRules(n);
+				if (r == n) {
+					// no rule applies: n is a fixed point
+					done = n;
+				} else {
+					done = cache.get(r);
+					if (done == null) {
+						// r is dirty; its children are not
+						f.trail.add(f.node);
+						f.trail.add(n);
+						f.reset(r);
+						continue;
+					}
+				}
+			}
+			// record the answer, and hand it to our parent
+			f.trail.add(f.node);
+			f.trail.add(n);
+			cache.putAll(f.trail, done);
+			stack.pop();
+			if (stack.isEmpty()) {
+				result = done;
+			} else {
+				stack.peek().deliver(done);
+			}
+		}
+		assert result.repOk();
+		return result;
+	}
+
+	/**
+	 * One pass over the enabled rules for n's kind, in priority order, 
+	 * each rule applied to the result of the previous one. The pass 
+	 * stops early if a rule turns n into a different kind of node.
+	 * Return n if no rule applies.
+	 */
+	private Expr applyRules(final Expr n) {
+		Expr e = n;
+		for (final RewriteRule rule : rules.rulesFor(n.getClass())) {
+			final Expr r = rule.apply(e);
+			if (r != e && !r.equals(e)) {
+				rewrites++;
+				e = r;
+				if (e.getClass() != n.getClass()) {
+					// the other rules are not for this kind of node
+					break;
+				}
+			}
+		}
+		return e;
+	}
+
+	private static List<Expr> children(final Expr e) {
+		if (e instanceof NaryExpr) {
+			return ((NaryExpr) e).children;
+		} else if (e instanceof BinaryExpr) {
+			final BinaryExpr b = (BinaryExpr) e;
+			return Arrays.asList(b.left, b.right);
+		} else if (e instanceof UnaryExpr) {
+			return Collections.singletonList(((UnaryExpr) e).expr);
+		} else if (e instanceof MuxExpr) {
+			final MuxExpr m = (MuxExpr) e;
+			return Arrays.asList(m.select, m.ifTrue, m.ifFalse);
+		} else {
+			// leaves: VarExpr and ConstantExpr
+			return Collections.emptyList();
+		}
+	}
+
+	private static Expr withChildren(final Expr e, final Expr[] cs) {
+		if (e instanceof NaryExpr) {
+			return ((NaryExpr) e).newNaryExpr(Arrays.asList(cs));
+		} else if (e instanceof BinaryExpr) {
+			return ((BinaryExpr) e).newBinaryExpr(cs[0], cs[1]);
+		} else if (e instanceof UnaryExpr) {
+			return ((UnaryExpr) e).newUnaryExpr(cs[0]);
+		} else if (e instanceof MuxExpr) {
+			return ((MuxExpr) e).newMuxExpr(cs[0], cs[1], cs[2]);
+		} else {
+			throw new IllegalArgumentException("not an interior node: " + e);
+		}
+	}
+
+	/** Number of rule applications that changed something. */
+	public long rewrites() {
+		return rewrites;
+	}
+
+	/** Number of times a node was examined by the rules. */
+	public long visits() {
+		return visits;
+	}
+
+	@Override
+	public String toString() {
+		return "RewriteEngine(" + rules + ", rewrites=" + rewrites + ", visits=" + visits + ", " + cache + ")";
+	}
+}
@@ -0,0 +1,261 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ece351.f.espresso.SumOfProducts;
+import ece351.util.CommandLine.FSimplifierOptions;
+
+/**
+ * The local rewrites performed by the simplifier. Each rule declares the
+ * simplifier option that enables it and the node kinds that trigger it.
+ * A rule only looks at the node it is applied to: the RewriteEngine 
+ * guarantees that the children of that node are already simplified.
+ * 
+ * Declaration order is priority order: the engine applies the rules for
+ * a node in this order, and makes another pass if any of them fired.
+ */
+public enum RewriteRule {
+
+	/** x xnor y => not (x xor y): the simplifier only reasons about xor */
+	XNOR_TO_XOR(FSimplifierOptions.STANDARDIZE, XNOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			final XNOrExpr b = (XNOrExpr) e;
+			return NotExpr.make(XOrExpr.make(b.left, b.right));
+		}
+	},
+
+	/** y xor x => x xor y: operands in the order NaryExprs keep their children */
+	SORT_XOR_OPERANDS(FSimplifierOptions.STANDARDIZE, XOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((XOrExpr) e).sortOperands();
+		}
+	},
+
+	/** x and y => and(x, y); x or y => or(x, y) */
+	BINARY_TO_NARY(FSimplifierOptions.STANDARDIZE, AndExpr.class, OrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			final BinaryExpr b = (BinaryExpr) e;
+			if (b instanceof AndExpr) {
+				return NaryAndExpr.make(b.left, b.right);
+			} else {
+				return NaryOrExpr.make(b.left, b.right);
+			}
+		}
+	},
+
+	/** and(and(x, y), z) => and(x, y, z) */
+	MERGE_GRANDCHILDREN(FSimplifierOptions.STANDARDIZE, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).mergeGrandchildren();
+		}
+	},
+
+	/** and(x, 1) => x; or(x, 0) => x */
+	FOLD_IDENTITY_ELEMENTS(FSimplifierOptions.CONSTANT, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).foldIdentityElements();
+		}
+	},
+
+	/** and(x, 0) => 0; or(x, 1) => 1 */
+	FOLD_ABSORBING_ELEMENTS(FSimplifierOptions.CONSTANT, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).foldAbsorbingElements();
+		}
+	},
+
+	/** not 1 => 0; not 0 => 1 */
+	FOLD_NOT_CONSTANT(FSimplifierOptions.CONSTANT, NotExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			final Expr child = ((NotExpr) e).expr;
+			if (child.equals(ConstantExpr.TrueExpr)) {
+				return ConstantExpr.FalseExpr;
+			} else if (child.equals(ConstantExpr.FalseExpr)) {
+				return ConstantExpr.TrueExpr;
+			}
+			return e;
+		}
+	},
+
+	/** x xor 0 => x; x xor 1 => not x */
+	FOLD_XOR_CONSTANTS(FSimplifierOptions.CONSTANT, XOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((XOrExpr) e).foldConstants();
+		}
+	},
+
+	/** (x when 1 else y) => x; (1 when s else y) => or(s, y) */
+	FOLD_MUX_CONSTANTS(FSimplifierOptions.CONSTANT, MuxExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((MuxExpr) e).foldConstants();
+		}
+	},
+
+	/** and(x, not x) => 0; or(x, not x) => 1 */
+	FOLD_COMPLEMENTS(FSimplifierOptions.COMPLEMENT, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).foldComplements();
+		}
+	},
+
+	/** not not x => x */
+	DOUBLE_NEGATION(FSimplifierOptions.COMPLEMENT, NotExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			final Expr child = ((NotExpr) e).expr;
+			if (child instanceof NotExpr) {
+				return ((NotExpr) child).expr;
+			}
+			return e;
+		}
+	},
+
+	/** x xor not x => 1; (not x) xor y => not (x xor y) */
+	FOLD_XOR_COMPLEMENTS(FSimplifierOptions.COMPLEMENT, XOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((XOrExpr) e).foldComplements();
+		}
+	},
+
+	/** (x when not s else y) => (y when s else x) */
+	FOLD_MUX_COMPLEMENTS(FSimplifierOptions.COMPLEMENT, MuxExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((MuxExpr) e).foldComplements();
+		}
+	},
+
+	/** and(x, x, y) => and(x, y) */
+	REMOVE_DUPLICATES(FSimplifierOptions.DEDUPLICATION, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).removeDuplicates();
+		}
+	},
+
+	/** x xor x => 0 */
+	XOR_DUPLICATES(FSimplifierOptions.DEDUPLICATION, XOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((XOrExpr) e).removeDuplicates();
+		}
+	},
+
+	/** (x when s else x) => x; (s when s else y) => or(s, y) */
+	MUX_DUPLICATES(FSimplifierOptions.DEDUPLICATION, MuxExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((MuxExpr) e).removeDuplicates();
+		}
+	},
+
+	/** or(x, and(x, y)) => x */
+	SIMPLE_ABSORPTION(FSimplifierOptions.ABSORPTION, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).simpleAbsorption();
+		}
+	},
+
+	/** or(and(x, y), and(x, y, z)) => and(x, y) */
+	SUBSET_ABSORPTION(FSimplifierOptions.ABSORPTION, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).subsetAbsorption();
+		}
+	},
+
+	/** or(and(a, b), and(a, not b)) => a: two-level minimization of a sum of products */
+	MINIMIZE_SOP(FSimplifierOptions.MINIMIZE, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return SumOfProducts.minimize((NaryOrExpr) e);
+		}
+	},
+
+	/** and(x) => x: an NaryExpr with a single child is not legal */
+	SINGLETONIFY(FSimplifierOptions.STANDARDIZE, NaryAndExpr.class, NaryOrExpr.class) {
+		@Override
+		public Expr apply(final Expr e) {
+			return ((NaryExpr) e).singletonify();
+		}
+	};
+
+	/** The simplifier option that enables this rule. */
+	public final FSimplifierOptions option;
+
+	/** The node kinds that this rule applies to. */
+	public final List<Class<? extends Expr>> triggers;
+
+	/*
+	 * One constructor per number of triggers, rather than varargs: a
+	 * varargs Class<? extends Expr> parameter makes every enum constant
+	 * create a generic array, which -Xlint:unchecked warns about.
+	 */
+
+	private RewriteRule(final FSimplifierOptions option, final Class<? extends Expr> trigger) {
+		this(option, Collections.<Class<? extends Expr>>singletonList(trigger));
+	}
+
+	private RewriteRule(final FSimplifierOptions option, final Class<? extends Expr> first, final Class<? extends Expr> second) {
+		this(option, pair(first, second));
+	}
+
+	private RewriteRule(final FSimplifierOptions option, final List<Class<? extends Expr>> triggers) {
+		this.option = option;
+		this.triggers = Collections.unmodifiableList(triggers);
+	}
+
+	private static List<Class<? extends Expr>> pair(final Class<? extends Expr> first, final Class<? extends Expr> second) {
+		final List<Class<? extends Expr>> l = new ArrayList<Class<? extends Expr>>(2);
+		l.add(first);
+		l.add(second);
+		return l;
+	}
+
+	/**
+	 * Rewrite e, which is one of the trigger kinds and whose children are
+	 * already simplified. Return e itself if the rule does not apply.
+	 */
+	public abstract Expr apply(final Expr e);
+
+}
@@ -0,0 +1,113 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ece351.util.CommandLine.FSimplifierOptions;
+
+/**
+ * The rewrite rules enabled by a set of FSimplifierOptions, indexed by 
+ * the node kinds that trigger them. STANDARDIZE is always enabled: 
+ * without it the simplifier could leave NaryExprs with a single child.
+ */
+public final class RuleSet {
+
+	private static final RewriteRule[] NO_RULES = new RewriteRule[0];
+
+	/** 
+	 * Every local rule: what simplify() does by default. Two-level 
+	 * minimization (MINIMIZE) is not local and must be asked for.
+	 */
+	public static final RuleSet ALL = of(EnumSet.range(FSimplifierOptions.STANDARDIZE, FSimplifierOptions.ABSORPTION));
+
+	public final Set<FSimplifierOptions> options;
+	private final Map<Class<? extends Expr>, RewriteRule[]> index;
+
+	private RuleSet(final EnumSet<FSimplifierOptions> options) {
+		this.options = Collections.unmodifiableSet(options);
+		final Map<Class<? extends Expr>, List<RewriteRule>> m = new HashMap<Class<? extends Expr>, List<RewriteRule>>();
+		// values() is in priority order
+		for (final RewriteRule r : RewriteRule.values()) {
+			if (!options.contains(r.option)) continue;
+			for (final Class<? extends Expr> c : r.triggers) {
+				List<RewriteRule> l = m.get(c);
+				if (l == null) {
+					l = new ArrayList<RewriteRule>();
+					m.put(c, l);
+				}
+				l.add(r);
+			}
+		}
+		this.index = new HashMap<Class<? extends Expr>, RewriteRule[]>();
+		for (final Map.Entry<Class<? extends Expr>, List<RewriteRule>> me : m.entrySet()) {
+			index.put(me.getKey(), me.getValue().toArray(NO_RULES));
+		}
+	}
+
+	public static RuleSet of(final Set<FSimplifierOptions> options) {
+		final EnumSet<FSimplifierOptions> s = EnumSet.of(FSimplifierOptions.STANDARDIZE);
+		s.addAll(options);
+		return new RuleSet(s);
+	}
+
+	/**
+	 * The enabled rules triggered by the given node kind, in priority order.
+	 * The caller must not modify the array.
+	 */
+	RewriteRule[] rulesFor(final Class<? extends Expr> kind) {
+		final RewriteRule[] rules = index.get(kind);
+		return rules == null ? NO_RULES : rules;
+	}
+
+	public boolean contains(final RewriteRule rule) {
+		return options.contains(rule.option);
+	}
+
+	@Override
+	public int hashCode() {
+		return options.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof RuleSet)) return false;
+		return options.equals(((RuleSet) obj).options);
+	}
+
+	@Override
+	public String toString() {
+		return "RuleSet" + options;
+	}
+}
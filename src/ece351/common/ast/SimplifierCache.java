@@ -0,0 +1,168 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.ast;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memo table for Expr.simplify(). Maps an Expr to the fixed point that
+ * simplification reaches from it. A fixed point maps to itself, which
+ * is how the simplifier remembers that a subtree is already simplified
+ * and does not need to be visited again on later iterations.
+ * 
+ * Keys are compared with equals(), which is a pointer comparison for
+ * interned (hash-consed) Exprs. The table is bounded: once it is full
+ * the least recently used entry is evicted.
+ * 
+ * One cache is shared by all of the formulas of a single
+ * FProgram.simplify() call. Pass shared() to share results across calls.
+ * A cache belongs to the RuleSet that produced its contents: results
+ * computed with some rules disabled are not fixed points of the others.
+ */
+public final class SimplifierCache {
+
+	/** Default bound on the number of entries. */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final SimplifierCache SHARED = new SimplifierCache();
+
+	public final RuleSet rules;
+	private final int capacity;
+	private final LinkedHashMap<Expr,Expr> table;
+	private long hits = 0;
+	private long misses = 0;
+
+	public SimplifierCache() {
+		this(RuleSet.ALL, DEFAULT_CAPACITY);
+	}
+
+	public SimplifierCache(final int capacity) {
+		this(RuleSet.ALL, capacity);
+	}
+
+	public SimplifierCache(final RuleSet rules) {
+		this(rules, DEFAULT_CAPACITY);
+	}
+
+	public SimplifierCache(final RuleSet rules, final int capacity) {
+		assert capacity > 0 : "capacity must be positive";
+		this.rules = rules;
+		this.capacity = capacity;
+		// access order, so that iteration order is least recently used first
+		this.table = new LinkedHashMap<Expr,Expr>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Expr,Expr> eldest) {
+				return size() > SimplifierCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * A process-wide cache for the full RuleSet, for sharing results 
+	 * across simplify() calls.
+	 */
+	public static SimplifierCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * The simplified form of e, or null if it is not known.
+	 */
+	public synchronized Expr get(final Expr e) {
+		final Expr result = table.get(e);
+		if (result == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return result;
+	}
+
+	/**
+	 * Is e known to be a fixed point of simplification?
+	 */
+	public synchronized boolean isSimplified(final Expr e) {
+		return table.get(e) == e;
+	}
+
+	/**
+	 * Record that e simplifies to result, and that result is a fixed point.
+	 */
+	public synchronized void put(final Expr e, final Expr result) {
+		table.put(e, result);
+		if (e != result) {
+			table.put(result, result);
+		}
+	}
+
+	/**
+	 * Record that every Expr in the list simplifies to result.
+	 */
+	public synchronized void putAll(final List<Expr> es, final Expr result) {
+		for (final Expr e : es) {
+			table.put(e, result);
+		}
+		table.put(result, result);
+	}
+
+	/**
+	 * Record that e is a fixed point of simplification.
+	 */
+	public synchronized void putSimplified(final Expr e) {
+		table.put(e, e);
+	}
+
+	public synchronized int size() {
+		return table.size();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	public synchronized void clear() {
+		table.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SimplifierCache(" + rules + ", size=" + table.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + ")";
+	}
+}
@@ -32,6 +32,11 @@ import ece351.util.Examiner;
 public abstract class UnaryExpr extends Expr {
 	public final Expr expr;
 
+	/** Cached hash code; zero until first computed. */
+	private int hash;
+	/** Cached isomorphic hash code; zero until first computed. */
+	private int isomorphicHash;
+
     public UnaryExpr(final Expr e) { 
     	this.expr = e; 
     }
@@ -60,11 +65,26 @@ public abstract class UnaryExpr extends Expr {
     
     @Override
     public final int hashCode() {
-    	return 17 + expr.hashCode();
+    	int h = this.hash;
+    	if (h == 0) {
+    		h = 17 + 13 * operator().hashCode() + expr.hashCode();
+    		this.hash = h;
+    	}
+    	return h;
     }
 
+	@Override
+	protected final int compareToSameClass(final Expr e) {
+		final UnaryExpr that = (UnaryExpr) e;
+		final int h = Integer.compare(this.hashCode(), that.hashCode());
+		if (h != 0) return h;
+		return this.expr.compareTo(that.expr);
+	}
+
 	@Override
 	public final boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (distinctInterned(this, obj)) return false;
 		if (!(obj instanceof Examinable)) return false;
 		return examine(Examiner.Equals, (Examinable)obj);
 	}
@@ -74,6 +94,16 @@ public abstract class UnaryExpr extends Expr {
 		return examine(Examiner.Isomorphic, obj);
 	}
 
+	@Override
+	public final int isomorphicHashCode() {
+		int h = this.isomorphicHash;
+		if (h == 0) {
+			h = 17 + 13 * operator().hashCode() + expr.isomorphicHashCode();
+			this.isomorphicHash = h;
+		}
+		return h;
+	}
+
 	@Override
 	public final String toString() {
 		return "(" + this.operator() + " " + expr.toString() + ")";
@@ -31,7 +31,7 @@ import ece351.util.Examinable;
 
 public final class VarExpr extends Expr {
 	
-	public String identifier;
+	public final String identifier;
 	
 	public VarExpr(final String name){
 		this.identifier = name;
@@ -41,6 +41,18 @@ public final class VarExpr extends Expr {
 		this((String)name);
 	}
 
+	/** 
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) VarExpr for this name.
+	 */
+	public static VarExpr make(final String name) {
+		return intern(new VarExpr(name));
+	}
+
+	public static VarExpr make(final Object name) {
+		return make((String)name);
+	}
+
 	@Override
 	public final boolean repOk() {
 		assert identifier != null : "identifier should not be null";
@@ -57,6 +69,11 @@ public final class VarExpr extends Expr {
     	return v.visitVar(this);
     }
 
+    @Override
+    protected int compareToSameClass(final Expr e) {
+    	return this.identifier.compareTo(((VarExpr)e).identifier);
+    }
+
     @Override
     public int hashCode() {
     	return identifier.hashCode();
@@ -65,6 +82,8 @@ public final class VarExpr extends Expr {
 	@Override
 	public boolean equals(final Object obj) {
 		// basics
+		if (obj == this) return true;
+		if (distinctInterned(this, obj)) return false;
 		if (obj == null) return false;
 		if (!getClass().equals(obj.getClass())) return false;
 		final VarExpr that = (VarExpr) obj;
@@ -77,6 +96,11 @@ public final class VarExpr extends Expr {
 		return equals(obj);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return hashCode();
+	}
+
 	public String operator() {
 		return "var";
 	}
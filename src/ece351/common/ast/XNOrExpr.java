@@ -34,6 +34,14 @@ public final class XNOrExpr extends CommutativeBinaryExpr {
 	public XNOrExpr(Expr left, Expr right) {
 		super(left,right);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static XNOrExpr make(final Expr left, final Expr right) {
+		return intern(new XNOrExpr(left, right));
+	}
 	
     public Expr accept(final ExprVisitor v){
     	return v.visitXNOr(this);
@@ -45,6 +53,6 @@ public final class XNOrExpr extends CommutativeBinaryExpr {
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new XNOrExpr(left, right);
+		return make(left, right);
 	}
 }
@@ -33,6 +33,14 @@ public final class XOrExpr extends CommutativeBinaryExpr {
 	public XOrExpr(Expr left, Expr right) {
 		super(left,right);
 	}
+
+	/**
+	 * To be used by clients instead of the constructor.
+	 * Returns the shared (interned) instance with these children.
+	 */
+	public static XOrExpr make(final Expr left, final Expr right) {
+		return intern(new XOrExpr(left, right));
+	}
     
     public Expr accept(final ExprVisitor v){
     	return v.visitXOr(this);
@@ -44,6 +52,44 @@ public final class XOrExpr extends CommutativeBinaryExpr {
 	}
 	@Override
 	public BinaryExpr newBinaryExpr(final Expr left, final Expr right) {
-		return new XOrExpr(left, right);
+		return make(left, right);
+	}
+
+	final XOrExpr sortOperands() {
+		return left.compareTo(right) <= 0 ? this : make(right, left);
+	}
+
+	final Expr foldConstants() {
+		// x xor 0 = x and x xor 1 = not x
+		if (left instanceof ConstantExpr) {
+			return ((ConstantExpr) left).b ? NotExpr.make(right) : right;
+		}
+		if (right instanceof ConstantExpr) {
+			return ((ConstantExpr) right).b ? NotExpr.make(left) : left;
+		}
+		return this;
+	}
+
+	final Expr foldComplements() {
+		// x xor not x = 1
+		final boolean l = left instanceof NotExpr;
+		final boolean r = right instanceof NotExpr;
+		if ((l && ((NotExpr) left).expr.equals(right)) || (r && ((NotExpr) right).expr.equals(left))) {
+			return ConstantExpr.TrueExpr;
+		}
+		// pull negations out: (not x) xor y = not (x xor y)
+		if (!l && !r) {
+			return this;
+		}
+		final Expr x = XOrExpr.make(l ? ((NotExpr) left).expr : left, r ? ((NotExpr) right).expr : right);
+		return l && r ? x : NotExpr.make(x);
+	}
+
+	final Expr removeDuplicates() {
+		// x xor x = 0
+		if (left.equals(right)) {
+			return ConstantExpr.FalseExpr;
+		}
+		return this;
 	}
 }
@@ -32,6 +32,7 @@ import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -44,6 +45,7 @@ import ece351.common.ast.VarExpr;
 import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
 import ece351.f.ast.FProgram;
+import ece351.util.PersistentVector;
 
 public abstract class ExprVisitor {
 	public abstract Expr visitConstant(ConstantExpr e);
@@ -58,6 +60,7 @@ public abstract class ExprVisitor {
 	public abstract Expr visitNOr(NOrExpr e);
 	public abstract Expr visitXNOr(XNOrExpr e);
 	public abstract Expr visitEqual(EqualExpr e);
+	public abstract Expr visitMux(MuxExpr e);
 
 	/** 
 	 * Dispatch to appropriate traverse method. 
@@ -69,6 +72,8 @@ public abstract class ExprVisitor {
 			return traverseBinaryExpr( (BinaryExpr) e );
 		} else if (e instanceof UnaryExpr) {
 			return traverseUnaryExpr( (UnaryExpr) e );
+		} else if (e instanceof MuxExpr) {
+			return traverseMuxExpr( (MuxExpr) e );
 		} else {
 			return e.accept(this);
 		}
@@ -77,6 +82,7 @@ public abstract class ExprVisitor {
 	public abstract Expr traverseNaryExpr(final NaryExpr e);
 	public abstract Expr traverseBinaryExpr(final BinaryExpr e);
 	public abstract Expr traverseUnaryExpr(final UnaryExpr e);
+	public abstract Expr traverseMuxExpr(final MuxExpr e);
 
 	/**
 	 * Visit/rewrite all of the exprs in this FProgram.
@@ -84,7 +90,7 @@ public abstract class ExprVisitor {
 	 * @return a new FProgram with changes applied
 	 */
 	public FProgram traverseFProgram(final FProgram p) {
-		FProgram result = new FProgram();
+		FProgram result = new FProgram(PersistentVector.<AssignmentStatement>of(), p.internalVars);
 		for (final AssignmentStatement astmt : p.formulas) {
 			result = result.append(traverseAssignmentStatement(astmt));
 		}
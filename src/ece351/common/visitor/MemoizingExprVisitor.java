@@ -0,0 +1,80 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.common.visitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ece351.common.ast.BinaryExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NaryExpr;
+import ece351.common.ast.UnaryExpr;
+
+/**
+ * This visitor computes one value per node, bottom up.
+ * Exprs are hash-consed, so a shared subtree is visited once: the traverse
+ * methods skip any node already in the memo table, and the visit methods
+ * store each node's value there.
+ */
+public abstract class MemoizingExprVisitor<V> extends ExprVisitor {
+
+	protected final Map<Expr,V> memo = new HashMap<Expr,V>();
+
+	@Override
+	public final Expr traverseNaryExpr(final NaryExpr e) {
+		if (memo.containsKey(e)) return e;
+		for (final Expr c : e.children) {
+			traverseExpr(c);
+		}
+		return e.accept(this);
+	}
+
+	@Override
+	public final Expr traverseBinaryExpr(final BinaryExpr e) {
+		if (memo.containsKey(e)) return e;
+		traverseExpr(e.left);
+		traverseExpr(e.right);
+		return e.accept(this);
+	}
+
+	@Override
+	public final Expr traverseUnaryExpr(final UnaryExpr e) {
+		if (memo.containsKey(e)) return e;
+		traverseExpr(e.expr);
+		return e.accept(this);
+	}
+
+	@Override
+	public final Expr traverseMuxExpr(final MuxExpr e) {
+		if (memo.containsKey(e)) return e;
+		traverseExpr(e.select);
+		traverseExpr(e.ifTrue);
+		traverseExpr(e.ifFalse);
+		return e.accept(this);
+	}
+}
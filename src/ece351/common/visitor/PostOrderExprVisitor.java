@@ -26,12 +26,12 @@
 
 package ece351.common.visitor;
 
-import org.parboiled.common.ImmutableList;
-
 import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NaryExpr;
 import ece351.common.ast.UnaryExpr;
+import ece351.util.PersistentVector;
 
 /**
  * This visitor rewrites the AST from the bottom up.
@@ -67,18 +67,32 @@ public abstract class PostOrderExprVisitor extends ExprVisitor {
 	@Override
 	public final Expr traverseNaryExpr(NaryExpr e) {
 		// children first
-		ImmutableList<Expr> children = ImmutableList.of();
+		final PersistentVector.Builder<Expr> children = PersistentVector.builder(e.children.size());
 		boolean change = false;
 		for (final Expr c1 : e.children) {
 			final Expr c2 = traverseExpr(c1);
-			children = children.append(c2);
+			children.add(c2);
 			if (c2 != c1) { change = true; }
 		}
 		// only rewrite if something changed
 		if (change) {
-			e = e.newNaryExpr(children);
+			e = e.newNaryExpr(children.build());
 		}
 		// now parent
 		return e.accept(this);
 	}
+
+	@Override
+	public final Expr traverseMuxExpr(MuxExpr m) {
+		// children first
+		final Expr select = traverseExpr(m.select);
+		final Expr ifTrue = traverseExpr(m.ifTrue);
+		final Expr ifFalse = traverseExpr(m.ifFalse);
+		// only rewrite if something has changed
+		if (select != m.select || ifTrue != m.ifTrue || ifFalse != m.ifFalse) {
+			m = m.newMuxExpr(select, ifTrue, ifFalse);
+		}
+		// now parent
+		return m.accept(this);
+	}
 }
@@ -0,0 +1,198 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.aig;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An and-inverter graph: every gate is a two-input and, and inverters
+ * are complement bits on the edges. A literal is 2n for node n and 2n+1 
+ * for its complement. Node 0 is the constant false, so FALSE is 0 and 
+ * TRUE is 1. Nodes are numbered in creation order, which is a topological
+ * order: the fanins of a gate are always smaller than the gate.
+ * 
+ * Gates are structurally hashed: asking for the same and of the same
+ * literals twice gives the same node.
+ */
+public final class AIG {
+
+	public static final int FALSE = 0;
+	public static final int TRUE = 1;
+
+	/** Fanin literals of each node; -1 for inputs and the constant. */
+	private int[] fanin0 = new int[16];
+	private int[] fanin1 = new int[16];
+	/** Input number of each input node, or -1. */
+	private int[] inputIndex = new int[16];
+	private int[] inputs = new int[16];
+	private int numNodes = 1;
+	private int numInputs = 0;
+	private final Map<Long,Integer> strash = new HashMap<Long,Integer>();
+
+	public AIG() {
+		fanin0[0] = -1;
+		fanin1[0] = -1;
+		inputIndex[0] = -1;
+	}
+
+	public static int not(final int lit) {
+		return lit ^ 1;
+	}
+
+	public static int node(final int lit) {
+		return lit >> 1;
+	}
+
+	public static boolean isComplemented(final int lit) {
+		return (lit & 1) != 0;
+	}
+
+	/** A new primary input, as a positive literal. */
+	public int newInput() {
+		final int n = allocate(-1, -1);
+		if (numInputs == inputs.length) inputs = Arrays.copyOf(inputs, 2 * numInputs);
+		inputIndex[n] = numInputs;
+		inputs[numInputs++] = n;
+		return 2 * n;
+	}
+
+	public int and(int a, int b) {
+		if (a > b) {
+			final int t = a;
+			a = b;
+			b = t;
+		}
+		if (a == FALSE) return FALSE;
+		if (a == TRUE) return b;
+		if (a == b) return a;
+		if (a == not(b)) return FALSE;
+		final Long key = ((long) a << 32) | b;
+		final Integer n = strash.get(key);
+		if (n != null) return 2 * n;
+		final int m = allocate(a, b);
+		strash.put(key, m);
+		return 2 * m;
+	}
+
+	public int or(final int a, final int b) {
+		return not(and(not(a), not(b)));
+	}
+
+	public int xor(final int a, final int b) {
+		return or(and(a, not(b)), and(not(a), b));
+	}
+
+	/** a when s, else b */
+	public int mux(final int s, final int a, final int b) {
+		return or(and(s, a), and(not(s), b));
+	}
+
+	private int allocate(final int a, final int b) {
+		if (numNodes == fanin0.length) {
+			fanin0 = Arrays.copyOf(fanin0, 2 * numNodes);
+			fanin1 = Arrays.copyOf(fanin1, 2 * numNodes);
+			inputIndex = Arrays.copyOf(inputIndex, 2 * numNodes);
+		}
+		final int n = numNodes++;
+		fanin0[n] = a;
+		fanin1[n] = b;
+		inputIndex[n] = -1;
+		return n;
+	}
+
+	public int numNodes() {
+		return numNodes;
+	}
+
+	public int numInputs() {
+		return numInputs;
+	}
+
+	/** Number of and gates. */
+	public int numAnds() {
+		return numNodes - 1 - numInputs;
+	}
+
+	public boolean isAnd(final int node) {
+		return fanin0[node] >= 0;
+	}
+
+	public boolean isInput(final int node) {
+		return inputIndex[node] >= 0;
+	}
+
+	/** The input number of an input node. */
+	public int inputIndex(final int node) {
+		return inputIndex[node];
+	}
+
+	/** The node of input i. */
+	public int input(final int i) {
+		return inputs[i];
+	}
+
+	public int fanin0(final int node) {
+		return fanin0[node];
+	}
+
+	public int fanin1(final int node) {
+		return fanin1[node];
+	}
+
+	/**
+	 * Simulate every node on 64 input vectors per word. inputColumns[i]
+	 * holds the values of input i. Returns the values of each node.
+	 */
+	public long[][] simulate(final long[][] inputColumns) {
+		final int words = inputColumns.length == 0 ? 1 : inputColumns[0].length;
+		final long[][] sig = new long[numNodes][];
+		sig[0] = new long[words];
+		for (int n = 1; n < numNodes; n++) {
+			if (isInput(n)) {
+				sig[n] = inputColumns[inputIndex[n]];
+			} else {
+				final long[] x = sig[node(fanin0[n])];
+				final long[] y = sig[node(fanin1[n])];
+				final long cx = isComplemented(fanin0[n]) ? -1L : 0L;
+				final long cy = isComplemented(fanin1[n]) ? -1L : 0L;
+				final long[] r = new long[words];
+				for (int w = 0; w < words; w++) {
+					r[w] = (x[w] ^ cx) & (y[w] ^ cy);
+				}
+				sig[n] = r;
+			}
+		}
+		return sig;
+	}
+
+	@Override
+	public String toString() {
+		return "AIG[inputs=" + numInputs + " ands=" + numAnds() + "]";
+	}
+}
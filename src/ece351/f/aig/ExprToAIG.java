@@ -0,0 +1,162 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.aig;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+
+/**
+ * Builds AIG literals from Exprs. Every VarExpr is a free input, with one 
+ * AIG input per identifier. Subtrees are memoized, and the AIG hashes its
+ * gates structurally, so identical structure in different Exprs (e.g. the 
+ * two sides of a miter) ends up as the same nodes.
+ */
+public final class ExprToAIG extends MemoizingExprVisitor<Integer> {
+
+	public final AIG aig;
+	private final Map<String,Integer> inputs = new LinkedHashMap<String,Integer>();
+
+	public ExprToAIG(final AIG aig) {
+		this.aig = aig;
+	}
+
+	/** The AIG literal for e. */
+	public int build(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	/** The input literal for each identifier seen so far. */
+	public Map<String,Integer> inputs() {
+		return Collections.unmodifiableMap(inputs);
+	}
+
+	private int lit(final Expr e) {
+		return memo.get(e);
+	}
+
+	private Expr put(final Expr e, final int lit) {
+		memo.put(e, lit);
+		return e;
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, e.b ? AIG.TRUE : AIG.FALSE);
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		if (memo.containsKey(e)) return e;
+		Integer l = inputs.get(e.identifier);
+		if (l == null) {
+			l = aig.newInput();
+			inputs.put(e.identifier, l);
+		}
+		return put(e, l);
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		return put(e, AIG.not(lit(e.expr)));
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return put(e, aig.and(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return put(e, aig.or(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		int f = AIG.TRUE;
+		for (final Expr c : e.children) {
+			f = aig.and(f, lit(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		int f = AIG.FALSE;
+		for (final Expr c : e.children) {
+			f = aig.or(f, lit(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return put(e, aig.xor(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return put(e, AIG.not(aig.and(lit(e.left), lit(e.right))));
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return put(e, AIG.not(aig.or(lit(e.left), lit(e.right))));
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return put(e, AIG.not(aig.xor(lit(e.left), lit(e.right))));
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		return put(e, AIG.not(aig.xor(lit(e.left), lit(e.right))));
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		return put(e, aig.mux(lit(e.select), lit(e.ifTrue), lit(e.ifFalse)));
+	}
+}
@@ -0,0 +1,326 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.aig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import ece351.f.sat.Solver;
+
+/**
+ * SAT sweeping: rebuilds an AIG so that nodes that compute the same 
+ * function (up to complement) become the same node, i.e. a functionally
+ * reduced AIG (FRAIG).
+ * 
+ * Random simulation partitions the nodes into candidate classes: nodes
+ * with equal (or complementary) simulation signatures. The graph is then
+ * copied in topological order; each new node is compared with the earlier
+ * representatives of its class by small SAT calls on one incremental
+ * solver, and merged into the first one it is proven equal to. Proven 
+ * equalities are added to the solver as clauses, which makes the later
+ * calls easier. Counterexamples from failed proofs are simulated to
+ * rule out further candidates without calling the solver.
+ * 
+ * When two designs are structurally close, almost every internal node of
+ * one is merged with a node of the other, so the outputs end up as the 
+ * same literal and no large SAT problem is ever posed.
+ * 
+ * Sweeping stops with a CancellationException if the thread is interrupted.
+ */
+public final class Fraig {
+
+	public static final int DEFAULT_WORDS = 16;
+	public static final long DEFAULT_SEED = 351;
+	/** Conflict budget of each sweeping SAT call. */
+	public static final long DEFAULT_CONFLICTS = 1000;
+	/** SAT calls per node before it is left unmerged. */
+	private static final int MAX_TRIES = 4;
+
+	private final AIG src;
+	/** The swept graph. */
+	public final AIG dst = new AIG();
+	private final Solver solver = new Solver();
+	private final long conflictLimit;
+
+	/** Literal in dst of each node of src. */
+	private final int[] map;
+	/** Solver variable of each node of dst, or 0 if not encoded yet. */
+	private int[] satVar = new int[16];
+
+	private final long[][] sig;
+	/** Values of each node of src under the counterexamples found so far. */
+	private final long[] cexSig;
+	private int cexCount = 0;
+
+	private int proved = 0;
+	private int refuted = 0;
+	private int undecided = 0;
+
+	public Fraig(final AIG src) {
+		this(src, DEFAULT_WORDS, DEFAULT_SEED, DEFAULT_CONFLICTS);
+	}
+
+	public Fraig(final AIG src, final int words, final long seed, final long conflictLimit) {
+		this.src = src;
+		this.conflictLimit = conflictLimit;
+		this.map = new int[src.numNodes()];
+		this.cexSig = new long[src.numNodes()];
+		final Random random = new Random(seed);
+		final long[][] columns = new long[src.numInputs()][words];
+		for (final long[] column : columns) {
+			for (int w = 0; w < words; w++) {
+				column[w] = random.nextLong();
+			}
+		}
+		this.sig = src.simulate(columns);
+		sweep();
+	}
+
+	/** The dst literal for a src literal. */
+	public int map(final int srcLit) {
+		return map[AIG.node(srcLit)] ^ (srcLit & 1);
+	}
+
+	/** Candidate pairs proven equal by SAT. */
+	public int proved() {
+		return proved;
+	}
+
+	/** Candidate pairs shown different by SAT. */
+	public int refuted() {
+		return refuted;
+	}
+
+	/** Candidate pairs abandoned when the conflict budget ran out. */
+	public int undecided() {
+		return undecided;
+	}
+
+	/**
+	 * An assignment to the inputs of src, indexed by input number, under 
+	 * which src literals a and b differ, or null if they are equal. No 
+	 * conflict budget: this is the exact final check.
+	 */
+	public boolean[] counterexample(final int a, final int b) {
+		return counterexample(a, b, -1);
+	}
+
+	/**
+	 * As counterexample(a, b), but gives up after maxConflicts conflicts 
+	 * (negative for no limit) or when the thread is interrupted, by 
+	 * throwing a CancellationException.
+	 */
+	public boolean[] counterexample(final int a, final int b, final long maxConflicts) {
+		final int x = map(a);
+		final int y = map(b);
+		if (x == y) return null;
+		if (x == AIG.not(y)) return new boolean[src.numInputs()];
+		final Solver.Result r = prove(x, y, maxConflicts);
+		if (r == Solver.Result.UNKNOWN) throw new CancellationException("final check undecided");
+		return r == Solver.Result.UNSAT ? null : model();
+	}
+
+	private void sweep() {
+		final Map<Signature,List<Integer>> classes = new HashMap<Signature,List<Integer>>();
+		map[0] = AIG.FALSE;
+		final List<Integer> constant = new ArrayList<Integer>();
+		constant.add(0);
+		classes.put(new Signature(sig[0]), constant);
+		for (int i = 0; i < src.numInputs(); i++) {
+			map[src.input(i)] = dst.newInput();
+		}
+		for (int n = 1; n < src.numNodes(); n++) {
+			if ((n & 0x3FF) == 0 && Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("sweep interrupted");
+			}
+			if (src.isAnd(n)) {
+				map[n] = dst.and(map(src.fanin0(n)), map(src.fanin1(n)));
+			}
+			final Signature key = new Signature(sig[n]);
+			List<Integer> reps = classes.get(key);
+			if (reps == null) {
+				reps = new ArrayList<Integer>();
+				classes.put(key, reps);
+			}
+			if (!src.isAnd(n) || !merge(n, reps)) {
+				reps.add(n);
+			}
+		}
+	}
+
+	/** Try to merge n with one of the representatives of its class. */
+	private boolean merge(final int n, final List<Integer> reps) {
+		final long valid = cexCount == 64 ? -1L : (1L << cexCount) - 1;
+		int tries = 0;
+		for (final int r : reps) {
+			final boolean phase = (sig[n][0] & 1) != (sig[r][0] & 1);
+			final int target = map[r] ^ (phase ? 1 : 0);
+			if (map[n] == target) return true;
+			if (map[n] == AIG.not(target)) continue;
+			// already told apart by a counterexample?
+			if (((cexSig[n] ^ cexSig[r] ^ (phase ? -1L : 0L)) & valid) != 0) continue;
+			if (tries++ == MAX_TRIES) return false;
+			final Solver.Result result = prove(map[n], target, conflictLimit);
+			if (result == Solver.Result.UNSAT) {
+				proved++;
+				map[n] = target;
+				return true;
+			} else if (result == Solver.Result.SAT) {
+				refuted++;
+				addCounterexample(model());
+			} else {
+				undecided++;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Solve x != y in dst: UNSAT means x and y are equal, in which case 
+	 * the equality is kept as clauses for later calls.
+	 */
+	private Solver.Result prove(final int x, final int y, final long limit) {
+		final int vx = encode(x);
+		final int vy = encode(y);
+		Solver.Result r = solver.solve(limit, vx, -vy);
+		if (r != Solver.Result.UNSAT) return r;
+		r = solver.solve(limit, -vx, vy);
+		if (r != Solver.Result.UNSAT) return r;
+		solver.addClause(-vx, vy);
+		solver.addClause(vx, -vy);
+		return Solver.Result.UNSAT;
+	}
+
+	/** The input values of the solver's model, indexed by input number. */
+	private boolean[] model() {
+		final boolean[] inputs = new boolean[src.numInputs()];
+		for (int i = 0; i < inputs.length; i++) {
+			final int v = satVar[dst.input(i)];
+			inputs[i] = v != 0 && solver.value(v);
+		}
+		return inputs;
+	}
+
+	private void addCounterexample(final boolean[] inputs) {
+		if (cexCount == 64) return;
+		final long bit = 1L << cexCount++;
+		final boolean[] values = new boolean[src.numNodes()];
+		for (int n = 1; n < src.numNodes(); n++) {
+			if (src.isInput(n)) {
+				values[n] = inputs[src.inputIndex(n)];
+			} else {
+				final int a = src.fanin0(n);
+				final int b = src.fanin1(n);
+				values[n] = (values[AIG.node(a)] ^ AIG.isComplemented(a)) && (values[AIG.node(b)] ^ AIG.isComplemented(b));
+			}
+			if (values[n]) cexSig[n] |= bit;
+		}
+	}
+
+	/** The DIMACS literal for dst literal lit, encoding its cone as needed. */
+	private int encode(final int lit) {
+		final int root = AIG.node(lit);
+		if (satVar.length < dst.numNodes()) {
+			satVar = Arrays.copyOf(satVar, Math.max(2 * satVar.length, dst.numNodes()));
+		}
+		if (satVar[root] == 0) {
+			// post-order over the unencoded cone, without recursion
+			final List<Integer> stack = new ArrayList<Integer>();
+			stack.add(root);
+			while (!stack.isEmpty()) {
+				final int n = stack.get(stack.size() - 1);
+				if (satVar[n] != 0) {
+					stack.remove(stack.size() - 1);
+					continue;
+				}
+				if (!dst.isAnd(n)) {
+					satVar[n] = solver.newVar();
+					if (n == 0) solver.addClause(-satVar[n]);
+					stack.remove(stack.size() - 1);
+					continue;
+				}
+				final int a = AIG.node(dst.fanin0(n));
+				final int b = AIG.node(dst.fanin1(n));
+				if (satVar[a] == 0 || satVar[b] == 0) {
+					if (satVar[a] == 0) stack.add(a);
+					if (satVar[b] == 0) stack.add(b);
+					continue;
+				}
+				final int g = solver.newVar();
+				final int la = dimacs(dst.fanin0(n));
+				final int lb = dimacs(dst.fanin1(n));
+				solver.addClause(-g, la);
+				solver.addClause(-g, lb);
+				solver.addClause(g, -la, -lb);
+				satVar[n] = g;
+				stack.remove(stack.size() - 1);
+			}
+		}
+		return dimacs(lit);
+	}
+
+	private int dimacs(final int lit) {
+		final int v = satVar[AIG.node(lit)];
+		return AIG.isComplemented(lit) ? -v : v;
+	}
+
+	@Override
+	public String toString() {
+		return "Fraig[" + src + " -> " + dst + ", proved=" + proved + " refuted=" + refuted + " undecided=" + undecided + "]";
+	}
+
+	/** A simulation signature, normalized so that complements are equal. */
+	private static final class Signature {
+		private final long[] words;
+
+		Signature(final long[] sig) {
+			if ((sig[0] & 1) != 0) {
+				words = new long[sig.length];
+				for (int w = 0; w < sig.length; w++) {
+					words[w] = ~sig[w];
+				}
+			} else {
+				words = sig;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(words);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof Signature && Arrays.equals(words, ((Signature) obj).words);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.aig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.f.equivalence.FraigEngine;
+import ece351.f.equivalence.TruthTableEngine;
+import ece351.util.BaseTest351;
+
+public class TestFraig extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void structuralHashing() {
+		final AIG aig = new AIG();
+		final int a = aig.newInput();
+		final int b = aig.newInput();
+		assertEquals(aig.and(a, b), aig.and(b, a));
+		assertEquals(AIG.FALSE, aig.and(a, AIG.not(a)));
+		assertEquals(a, aig.and(a, AIG.TRUE));
+		assertEquals(a, aig.or(a, a));
+		assertEquals(1, aig.numAnds());
+	}
+
+	/** (x0 and y0) or (x0 and z0) ... in one program, factored in the other. */
+	private static String distributed(final int n, final boolean factored) {
+		final StringBuilder b = new StringBuilder("out <= '0'");
+		for (int i = 0; i < n; i++) {
+			final String x = "x" + i;
+			final String y = "y" + i;
+			final String z = "z" + i;
+			if (factored) {
+				b.append(" or (").append(x).append(" and (").append(y).append(" or ").append(z).append("))");
+			} else {
+				b.append(" or (").append(x).append(" and ").append(y).append(") or (").append(x).append(" and ").append(z).append(")");
+			}
+		}
+		return b.append(";").toString();
+	}
+
+	@Test
+	public void sweepingMergesSimilarDesigns() {
+		final ExprToAIG builder = new ExprToAIG(new AIG());
+		// 90 inputs: far beyond exhaustive evaluation
+		final int x = builder.build(parse(distributed(30, false)).formulas.get(0).expr);
+		final int y = builder.build(parse(distributed(30, true)).formulas.get(0).expr);
+		final Fraig fraig = new Fraig(builder.aig);
+		assertEquals(fraig.map(x), fraig.map(y));
+		assertTrue(fraig.proved() > 0);
+		assertNull(fraig.counterexample(x, y));
+	}
+
+	@Test
+	public void counterexample() {
+		final FProgram p = parse(distributed(30, false));
+		final FProgram q = parse(distributed(30, true).replace("(x29 and (y29 or z29))", "(x29 and y29 and z29)"));
+		final Map<String,Boolean> cex = new FraigEngine().check(p, q).counterexample;
+		assertNotNull(cex);
+		// the programs only differ when x29 is true and exactly one of y29, z29 is
+		assertTrue(cex.get("x29"));
+		assertTrue(cex.get("y29") != cex.get("z29"));
+	}
+
+	@Test
+	public void agreesWithTruthTables() {
+		final TruthTableEngine tt = new TruthTableEngine();
+		final FraigEngine fraig = new FraigEngine();
+		final File[] files = new File("tests/f").listFiles();
+		for (final File f : files) {
+			if (!f.getName().endsWith(".f")) continue;
+			final FProgram original = parse(f.getPath());
+			assertEquals(f.getName(), Verdict.EQUIVALENT, fraig.check(original, original.simplify()).verdict);
+			for (final File g : files) {
+				if (!g.getName().endsWith(".f") || g.equals(f)) continue;
+				final FProgram other = parse(g.getPath());
+				if (!other.outputVars().equals(original.outputVars())) continue;
+				assertEquals(f.getName() + " " + g.getName(), tt.check(original, other).verdict, fraig.check(original, other).verdict);
+			}
+		}
+	}
+}
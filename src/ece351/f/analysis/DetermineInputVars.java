@@ -37,6 +37,7 @@ import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -78,4 +79,5 @@ public final class DetermineInputVars extends PostOrderExprVisitor {
 	@Override public Expr visitNOr(final NOrExpr e) { return e; }
 	@Override public Expr visitXNOr(final XNOrExpr e) { return e; }
 	@Override public Expr visitEqual(final EqualExpr e) { return e; }
+	@Override public Expr visitMux(final MuxExpr e) { return e; }
 }
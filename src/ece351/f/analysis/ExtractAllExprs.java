@@ -32,6 +32,7 @@ import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -83,6 +84,7 @@ public final class ExtractAllExprs extends PostOrderExprVisitor {
 	@Override public Expr visitNOr(NOrExpr e) { exprs.add(e); return e; }
 	@Override public Expr visitXNOr(XNOrExpr e) { exprs.add(e); return e; }
 	@Override public Expr visitEqual(EqualExpr e) { exprs.add(e); return e; }
+	@Override public Expr visitMux(MuxExpr e) { exprs.add(e); return e; }
 	@Override public Expr visitNaryAnd(NaryAndExpr e) { exprs.add(e); return e; }
 	@Override public Expr visitNaryOr(NaryOrExpr e) { exprs.add(e); return e; }
 }
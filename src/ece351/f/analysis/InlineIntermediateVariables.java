@@ -26,20 +26,25 @@
 
 package ece351.f.analysis;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
-import org.parboiled.common.ImmutableList;
-
 import ece351.common.ast.AndExpr;
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -51,85 +56,177 @@ import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
 import ece351.common.visitor.PostOrderExprVisitor;
 import ece351.f.ast.FProgram;
+import ece351.util.PersistentVector;
 
+/**
+ * Replaces every use of an intermediate variable (one that is defined by 
+ * a formula and also used by one) with its definition, and drops the
+ * intermediate formulas.
+ * 
+ * The definitions are inlined once each, in topological order of the
+ * def-use graph, so a definition is always fully inlined before it is 
+ * substituted anywhere. Every use then shares that one Expr rather than
+ * a copy of it. Cycles are found up front with Tarjan's strongly 
+ * connected components algorithm, which also yields the order.
+ */
 public final class InlineIntermediateVariables extends PostOrderExprVisitor {
 
 	private final Set<String> intermediateVars = new TreeSet<String>();
 	private final Map<String,AssignmentStatement> defns = new TreeMap<String,AssignmentStatement>();
-	private int count = 0;
+	/** For each defined variable, the defined variables its formula uses. */
+	private final Map<String,Set<String>> uses = new HashMap<String,Set<String>>();
+	/** The fully inlined definition of each variable done so far. */
+	private final Map<String,Expr> inlined = new HashMap<String,Expr>();
 
-	/**
-	 * Maximum depth that nesting is allowed before inlining stops working.
-	 * This approach is less expensive than explicit cycle detection.
-	 */
-	private final int MAX = 5;
-	
-	private InlineIntermediateVariables(final FProgram p1) {
+	/** @param only the variables to inline, or null for every intermediate one */
+	private InlineIntermediateVariables(final FProgram p1, final Set<VarExpr> only) {
 		// defns
 		for (final AssignmentStatement a : p1.formulas) {
 			defns.put(a.outputVar.identifier, a);
-		}		
+		}
+		// def-use edges
+		for (final AssignmentStatement a : defns.values()) {
+			final Set<String> s = new LinkedHashSet<String>();
+			for (final String v : DetermineInputVars.inputVars(a)) {
+				if (defns.containsKey(v) && (only == null || only.contains(VarExpr.make(v)))) {
+					s.add(v);
+					intermediateVars.add(v);
+				}
+			}
+			uses.put(a.outputVar.identifier, s);
+		}
+		// the chosen variables go even if nothing uses them
+		if (only != null) {
+			for (final VarExpr v : only) {
+				if (defns.containsKey(v.identifier)) {
+					intermediateVars.add(v.identifier);
+				}
+			}
+		}
 	}
 	
 	/**
-	 * Assume that there are no cycles.
-	 * @param p1
-	 * @return
+	 * @throws IllegalArgumentException if some variables are defined in
+	 * terms of each other
 	 */
 	public static FProgram inline(final FProgram p1) {
-		final InlineIntermediateVariables fiv = new InlineIntermediateVariables(p1);
-		return fiv.doit(0);
+		final InlineIntermediateVariables fiv = new InlineIntermediateVariables(p1, null);
+		return fiv.doit(p1);
 	}
 
-	private final FProgram doit(final int iteration) {
-		final int oldestCount = count;
+	/**
+	 * Inline and drop only the given variables, e.g. the internal
+	 * variables of p1. Every other formula is kept as it is.
+	 * @throws IllegalArgumentException if some of the given variables are
+	 * defined in terms of each other
+	 */
+	public static FProgram inline(final FProgram p1, final Set<VarExpr> vars) {
+		final InlineIntermediateVariables fiv = new InlineIntermediateVariables(p1, vars);
+		return fiv.doit(p1);
+	}
 
-		// replace uses of intermediate vars with their defns
-		final List<AssignmentStatement> as = new ArrayList<AssignmentStatement>(defns.values());
-		for (final AssignmentStatement a : as) {
-			final int oldCount = count;
-			final Expr e = traverseExpr(a.expr);
-			if (oldCount != count) {
-				// something changed: save it
-				final String n = a.outputVar.identifier;
-				defns.put(n, new AssignmentStatement(a.outputVar, e));
+	private FProgram doit(final FProgram p1) {
+		// replace uses of intermediate vars with their (already inlined) defns
+		for (final String n : topologicalOrder()) {
+			inlined.put(n, traverseExpr(defns.get(n).expr));
+		}
+		// construct a new FProgram to return
+		PersistentVector<AssignmentStatement> result = PersistentVector.of();
+		for (final Map.Entry<String, AssignmentStatement> me : defns.entrySet()) {
+			final String n = me.getKey();
+			if (!intermediateVars.contains(n)) {
+				// not an intermediate var, so must be an output
+				final AssignmentStatement a = me.getValue();
+				final Expr e = inlined.get(n);
+				result = result.append(e == a.expr ? a : new AssignmentStatement(a.outputVar, e));
 			}
 		}
-		
-		if (oldestCount == count || iteration >= MAX) {
-			// nothing changed, or we have run out of budget: we are done
-			// construct a new FProgram to return
-			ImmutableList<AssignmentStatement> result = ImmutableList.of();
-			for (final Map.Entry<String, AssignmentStatement> me : defns.entrySet()) {
-				final String n = me.getKey();
-				if (!intermediateVars.contains(n)) {
-					// not an intermediate var, so must be an output
-					result = result.append(me.getValue());
+		// internal vars that were not inlined stay internal
+		final Set<VarExpr> internal = new TreeSet<VarExpr>(p1.internalVars);
+		for (final String n : intermediateVars) {
+			internal.remove(VarExpr.make(n));
+		}
+		return new FProgram(result, internal);
+	}
+
+	/**
+	 * The defined variables, each after all the ones its formula uses.
+	 * Tarjan's algorithm emits each strongly connected component after
+	 * every component reachable from it, so when all of them are single
+	 * variables without self-loops that is a topological order. Iterative,
+	 * so that long chains of definitions do not overflow the stack.
+	 */
+	private List<String> topologicalOrder() {
+		final List<String> order = new ArrayList<String>(defns.size());
+		final Map<String,Integer> index = new HashMap<String,Integer>();
+		final Map<String,Integer> low = new HashMap<String,Integer>();
+		final Deque<String> stack = new ArrayDeque<String>();
+		final Set<String> onStack = new HashSet<String>();
+		// the simulated call stack: a variable and its unexplored successors
+		final Deque<String> calls = new ArrayDeque<String>();
+		final Deque<Iterator<String>> successors = new ArrayDeque<Iterator<String>>();
+		for (final String root : defns.keySet()) {
+			if (index.containsKey(root)) continue;
+			String next = root;
+			while (next != null || !calls.isEmpty()) {
+				if (next != null) {
+					// first visit
+					index.put(next, index.size());
+					low.put(next, index.get(next));
+					stack.push(next);
+					onStack.add(next);
+					calls.push(next);
+					successors.push(uses.get(next).iterator());
+					next = null;
+					continue;
+				}
+				final String v = calls.peek();
+				final Iterator<String> it = successors.peek();
+				if (it.hasNext()) {
+					final String w = it.next();
+					if (!index.containsKey(w)) {
+						next = w;
+					} else if (onStack.contains(w)) {
+						low.put(v, Math.min(low.get(v), index.get(w)));
+					}
+					continue;
+				}
+				// all successors of v are done
+				calls.pop();
+				successors.pop();
+				if (!calls.isEmpty()) {
+					final String u = calls.peek();
+					low.put(u, Math.min(low.get(u), low.get(v)));
+				}
+				if (low.get(v).equals(index.get(v))) {
+					// v is the root of a component: pop it off
+					final Set<String> component = new TreeSet<String>();
+					String w;
+					do {
+						w = stack.pop();
+						onStack.remove(w);
+						component.add(w);
+					} while (!w.equals(v));
+					if (component.size() > 1 || uses.get(v).contains(v)) {
+						throw new IllegalArgumentException("cyclic definitions: " + component);
+					}
+					order.add(v);
 				}
 			}
-			return new FProgram(result);
-		} else {
-			// something changed, and we have budget: keep working
-			return doit(iteration+1);
 		}
+		return order;
 	}
 	
 	/** 
-	 * Rewrite VarExprs with their definitions, if available.
+	 * Rewrite intermediate VarExprs with their definitions.
 	 */
 	@Override
 	public Expr visitVar(final VarExpr e) {
-		final String n = e.identifier;
-		final AssignmentStatement a = defns.get(n);
-		if (a == null) {
-			// a true input variable
-			return e;
-		} else {
-			// an intermediate variable: replace with defn
-			intermediateVars.add(n);
-			count++;
-			return a.expr;
-		}
+		if (!intermediateVars.contains(e.identifier)) return e;
+		final Expr d = inlined.get(e.identifier);
+		// in topological order, an intermediate var is already inlined
+		assert d != null : e;
+		return d;
 	}
 
 	// no-ops
@@ -144,5 +241,6 @@ public final class InlineIntermediateVariables extends PostOrderExprVisitor {
 	@Override public Expr visitNOr(final NOrExpr e) { return e; }
 	@Override public Expr visitXNOr(final XNOrExpr e) { return e; }
 	@Override public Expr visitEqual(final EqualExpr e) { return e; }
+	@Override public Expr visitMux(final MuxExpr e) { return e; }
 
 }
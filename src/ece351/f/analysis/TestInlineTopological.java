@@ -0,0 +1,89 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+
+public class TestInlineTopological extends BaseTest351 {
+
+	/** Helper. */
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/**
+	 * A chain far deeper than any fixed number of passes, with its 
+	 * formulas in the worst order for a front-to-back sweep.
+	 */
+	@Test
+	public void deepChain() {
+		final StringBuilder b = new StringBuilder("x <= v0;");
+		for (int i = 0; i < 2000; i++) {
+			b.append(" v" + i + " <= v" + (i + 1) + ";");
+		}
+		b.append(" v2000 <= a and b;");
+		final FProgram actual = InlineIntermediateVariables.inline(parse(b.toString()));
+		assertEquals(parse("x <= a and b;"), actual);
+	}
+
+	@Test
+	public void usesShareOneDefinition() {
+		final FProgram p = parse("x <= t or u; y <= not t; t <= u and c; u <= a or b;");
+		final FProgram actual = InlineIntermediateVariables.inline(p);
+		assertEquals(parse("x <= ((a or b) and c) or (a or b); y <= not ((a or b) and c);"), actual);
+		// both uses of t are the very same Expr, not copies
+		assertSame(((OrExpr) actual.formulas.get(0).expr).left, 
+				((NotExpr) actual.formulas.get(1).expr).expr);
+	}
+
+	@Test
+	public void cycleIsRejected() {
+		try {
+			InlineIntermediateVariables.inline(parse("x <= t and a; t <= u or b; u <= not t;"));
+			fail("cycle not detected");
+		} catch (final IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("[t, u]"));
+		}
+		try {
+			InlineIntermediateVariables.inline(parse("x <= y; y <= y and a;"));
+			fail("self-loop not detected");
+		} catch (final IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("[y]"));
+		}
+	}
+}
@@ -35,6 +35,7 @@ import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -97,6 +98,8 @@ public final class AlloyConverter extends ExprVisitor {
 		m.append(linesep);
 		m.append("fun _not[a:Var]:Var{{v':Var|v'.v!=a.v}}");
 		m.append(linesep);
+		m.append("fun _mux[s,a,b:Var]:Var{ _or[_and[s, a], _and[_not[s], b]] }");
+		m.append(linesep);
 		m.append("one sig ");
 		final Set<String> inputVars = new TreeSet<String>();
 		inputVars.addAll(DetermineInputVars.inputVars(fp1));
@@ -242,6 +245,18 @@ public final class AlloyConverter extends ExprVisitor {
 	}
 
 
+	@Override
+	public Expr visitMux(MuxExpr e) {
+		b.append("_mux[ ");
+		e.select.accept(this);
+		b.append(", ");
+		e.ifTrue.accept(this);
+		b.append(", ");
+		e.ifFalse.accept(this);
+		b.append("] ");
+		return e;
+	}
+
 	@Override
 	public Expr visitNaryAnd(final NaryAndExpr e) {
 		helperNE(e);
@@ -285,5 +300,11 @@ public final class AlloyConverter extends ExprVisitor {
 		e.accept(this);
 		return e;
 	}
+
+	@Override
+	public Expr traverseMuxExpr(final MuxExpr e) {
+		e.accept(this);
+		return e;
+	}
 	
 }
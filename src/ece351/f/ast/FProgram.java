@@ -27,47 +27,62 @@
 package ece351.f.ast;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.parboiled.common.ImmutableList;
 
 import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.RuleSet;
+import ece351.common.ast.SimplifierCache;
 import ece351.common.ast.VarExpr;
+import ece351.f.analysis.InlineIntermediateVariables;
+import ece351.f.equivalence.Equivalence;
+import ece351.util.CommandLine.FSimplifierOptions;
 import ece351.util.Examinable;
+import ece351.util.EquivalentHashable;
 import ece351.util.Examiner;
-import ece351.util.RunAlloy351;
+import ece351.util.PersistentVector;
 
 
-public final class FProgram implements Examinable {
+public final class FProgram implements Examinable, EquivalentHashable {
 	
-    public final ImmutableList<AssignmentStatement> formulas;
+    public final PersistentVector<AssignmentStatement> formulas;
+
+    /**
+     * Variables that are defined by formulas but are not outputs, such as
+     * the temporaries of DeSugarer. outputVars() leaves them out, and
+     * equivalent() inlines them first.
+     */
+    public final Set<VarExpr> internalVars;
 
     public FProgram() {
-    	this.formulas = ImmutableList.of();
+    	this.formulas = PersistentVector.of();
+    	this.internalVars = Collections.emptySet();
 	}
 
-    /**
-     * Construct a new FProgram from a given immutable list of formulas.
-     * We can just alias the argument because it is immutable.
-     */
-    public FProgram(final ImmutableList<AssignmentStatement> formulas) {
-    	this.formulas = formulas;
-    }
-    
     /**
      * Construct a new FProgram from a given list of formulas.
-     * We might need to make a defensive copy if the list is mutable.
+     * A PersistentVector is immutable, so it is aliased;
+     * any other list gets a defensive copy.
      */
     public FProgram(final List<AssignmentStatement> formulas) {
-    	if (formulas instanceof ImmutableList<?>) {
-    		// argument is immutable, alias it
-    		this.formulas = (ImmutableList<AssignmentStatement>)formulas;
-    	} else {
-    		// argument is mutable, make a defensive copy
-    		this.formulas = ImmutableList.copyOf(formulas);
-    	}
+    	this(formulas, Collections.<VarExpr>emptySet());
+    }
+
+    /** As above, with some of the defined variables internal. */
+    public FProgram(final List<AssignmentStatement> formulas, final Set<VarExpr> internalVars) {
+    	this.formulas = PersistentVector.copyOf(formulas);
+    	this.internalVars = internalVars.isEmpty() 
+    			? Collections.<VarExpr>emptySet() 
+    			: Collections.unmodifiableSet(new TreeSet<VarExpr>(internalVars));
+    }
+
+    public FProgram(final ImmutableList<AssignmentStatement> formulas) {
+    	this((List<AssignmentStatement>) formulas);
     }
     
 	public boolean repOk() {
@@ -75,7 +90,14 @@ public final class FProgram implements Examinable {
     	assert formulas != null;
     	assert !formulas.isEmpty();
     	// no duplicate output vars
-    	assert formulas.size() == outputVars().size();
+    	final Set<VarExpr> defined = new TreeSet<VarExpr>();
+    	for (final AssignmentStatement f : formulas) {
+    		defined.add(f.outputVar);
+    	}
+    	assert formulas.size() == defined.size();
+    	// internal vars are defined, and are not all of them
+    	assert defined.containsAll(internalVars);
+    	assert defined.size() > internalVars.size();
     	// check each formula
     	for (final AssignmentStatement astmt : formulas) {
     		assert astmt.repOk();
@@ -85,44 +107,77 @@ public final class FProgram implements Examinable {
     }
     
 	public FProgram append(final Object formula) {
-		return new FProgram(formulas.append((AssignmentStatement)formula));
+		return new FProgram(formulas.append((AssignmentStatement)formula), internalVars);
 	}
 
 	public FProgram appendAll(final FProgram p) {
-		ImmutableList<AssignmentStatement> result;
-		ImmutableList<AssignmentStatement> rest;
-		// determine which is longer and which is shorter
+		// add the shorter one to the longer one
+		final PersistentVector<AssignmentStatement> result;
 		if (formulas.size() > p.formulas.size()) {
-			result = this.formulas;
-			rest = p.formulas;
+			result = this.formulas.appendAll(p.formulas);
 		} else {
-			result = p.formulas;
-			rest = this.formulas;
-		}
-		// add the shorter one to the longer one
-		for (final AssignmentStatement a : rest) {
-			result = result.append(a);
+			result = p.formulas.appendAll(this.formulas);
 		}
 		assert result.size() == (formulas.size() + p.formulas.size());
-		return new FProgram(result);
+		final Set<VarExpr> internal = new TreeSet<VarExpr>(internalVars);
+		internal.addAll(p.internalVars);
+		return new FProgram(result, internal);
 	}
 
+    /**
+     * Simplify every formula. One SimplifierCache is shared by all of the
+     * formulas, so cones that are repeated across formulas are only
+     * simplified once.
+     */
     public FProgram simplify() {
+    	return simplify(new SimplifierCache());
+    }
+
+    /**
+     * Simplify every formula with only the rules enabled by the 
+     * given options (e.g., CommandLine.simplifierOpts).
+     */
+    public FProgram simplify(final Set<FSimplifierOptions> options) {
+    	return simplify(new SimplifierCache(RuleSet.of(options)));
+    }
+
+    /**
+     * Simplify every formula using the given cache (and its rules).
+     * Pass SimplifierCache.shared() to reuse results across calls.
+     */
+    public FProgram simplify(final SimplifierCache cache) {
     	final List<AssignmentStatement> newformulas = new ArrayList<AssignmentStatement>(formulas.size());
     	for (final AssignmentStatement f : formulas) {
-    		newformulas.add(f.simplify());
+    		newformulas.add(f.simplify(cache));
     	}
-    	return new FProgram(newformulas);
+    	return new FProgram(newformulas, internalVars);
     }
     
+    /** The variables defined by formulas, except the internal ones. */
     public Set<VarExpr> outputVars() {
     	final Set<VarExpr> vars = new TreeSet<VarExpr>();
     	for (final AssignmentStatement f : formulas) {
-    		vars.add(f.outputVar);
+    		if (!internalVars.contains(f.outputVar)) {
+    			vars.add(f.outputVar);
+    		}
     	}
     	return Collections.unmodifiableSet(vars);
     }
 
+    /** The formula that defines each variable, for lookups that would otherwise scan formulas. */
+    public Map<VarExpr,AssignmentStatement> formulasByOutput() {
+    	final Map<VarExpr,AssignmentStatement> m = new HashMap<VarExpr,AssignmentStatement>(formulas.size() * 2);
+    	for (final AssignmentStatement f : formulas) {
+    		m.put(f.outputVar, f);
+    	}
+    	return Collections.unmodifiableMap(m);
+    }
+
+    /** This program with its internal vars inlined, so every formula is an output. */
+    public FProgram inlineInternalVars() {
+    	return internalVars.isEmpty() ? this : InlineIntermediateVariables.inline(this, internalVars);
+    }
+
     @Override
     public String toString() {
 		if (formulas == null || formulas.isEmpty()) return "";
@@ -135,6 +190,11 @@ public final class FProgram implements Examinable {
 		return fprogram;
     }
     
+	@Override
+	public int hashCode() {
+		return formulas.hashCode();
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		// basics
@@ -160,8 +220,8 @@ public final class FProgram implements Examinable {
 	}
 
 	/**
-	 * Check that two FPrograms are equivalent by translating them to SAT
-	 * and asking a SAT solver to compute the answer.
+	 * Check that two FPrograms are equivalent. See Equivalence for the
+	 * decision procedures that are used.
 	 */
 	@Override
 	public boolean equivalent(final Examinable obj) {
@@ -174,24 +234,28 @@ public final class FProgram implements Examinable {
 		assert repOk();
 		assert that.repOk();
 		
-		// check that we have the same output variables
-		final int size = this.formulas.size();
-		if (size != that.formulas.size()) return false;
-		final Set<VarExpr> thisOutputVars = this.outputVars();
-		final Set<VarExpr> thatOutputVars = that.outputVars();
-		if (!thisOutputVars.equals(thatOutputVars)) return false;
+		// Equivalence checks that we have the same output variables
 		// input variables could be different, because some
 		// of them might be effectively do not care
 		// so do not need to check input vars
 		
-		// generate the Alloy specification
-		// (will be translated to SAT in the next step)
-		final String alloy = AlloyConverter.convert(this, that);
-
 		// now the hard part ...
-		// ask a SAT solver if these two FPrograms are equivalent
-		final boolean result = !RunAlloy351.check(alloy);
+		// the engines of Equivalence.DEFAULT_ENGINES, or those of -engines
+		final boolean result = Equivalence.check(this, that);
 		return result;
 	}
 
+	/** 
+	 * A sum over the output formulas, since equivalent() matches outputs 
+	 * by name. Internal vars are inlined, as they are for equivalent().
+	 */
+	@Override
+	public int equivalentHashCode() {
+		int h = 0;
+		for (final AssignmentStatement f : inlineInternalVars().formulas) {
+			h += f.equivalentHashCode();
+		}
+		return h;
+	}
+
 }
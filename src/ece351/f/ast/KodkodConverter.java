@@ -0,0 +1,205 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.ast;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+import ece351.f.analysis.DetermineInputVars;
+import kodkod.ast.Formula;
+import kodkod.ast.Relation;
+import kodkod.engine.Solution;
+import kodkod.engine.Solver;
+import kodkod.engine.satlab.SATFactory;
+import kodkod.instance.Bounds;
+import kodkod.instance.Instance;
+import kodkod.instance.TupleFactory;
+import kodkod.instance.Universe;
+
+/**
+ * Builds Kodkod formulas directly from Exprs, instead of writing an Alloy
+ * module for Alloy to parse, type check and lower to Kodkod (AlloyConverter).
+ * 
+ * The universe has a single atom. Each input variable is a unary relation
+ * bounded above by that atom, so it is true when the relation is non-empty.
+ * The miter formula says that some output of the first program differs from
+ * the same output of the second: it is satisfiable exactly when the programs
+ * are not equivalent, and its instance is a counterexample.
+ */
+public final class KodkodConverter extends MemoizingExprVisitor<Formula> {
+
+	private static final String ATOM = "true";
+
+	private final Map<String,Relation> vars = new TreeMap<String,Relation>();
+	private final Formula miter;
+
+	private KodkodConverter(final FProgram fp1, final FProgram fp2) {
+		for (final String v : DetermineInputVars.inputVars(fp1)) {
+			vars.put(v, Relation.unary(v));
+		}
+		for (final String v : DetermineInputVars.inputVars(fp2)) {
+			if (!vars.containsKey(v)) vars.put(v, Relation.unary(v));
+		}
+		Formula differ = Formula.FALSE;
+		final Map<VarExpr,AssignmentStatement> formulas2 = fp2.formulasByOutput();
+		for (final AssignmentStatement a1 : fp1.formulas) {
+			final AssignmentStatement a2 = formulas2.get(a1.outputVar);
+			final Formula diff = (a2 == null) ? Formula.TRUE : convert(a1.expr).iff(convert(a2.expr)).not();
+			differ = differ.or(diff);
+		}
+		miter = differ;
+	}
+
+	/**
+	 * An assignment to the inputs under which some output of fp1 differs
+	 * from the same output of fp2, or null if there is none.
+	 */
+	public static Map<String,Boolean> counterexample(final FProgram fp1, final FProgram fp2) {
+		final KodkodConverter k = new KodkodConverter(fp1, fp2);
+		final Universe universe = new Universe(ATOM);
+		final TupleFactory factory = universe.factory();
+		final Bounds bounds = new Bounds(universe);
+		for (final Relation r : k.vars.values()) {
+			bounds.bound(r, factory.setOf(ATOM));
+		}
+		final Solver solver = new Solver();
+		solver.options().setSolver(SATFactory.DefaultSAT4J);
+		final Solution solution = solver.solve(k.miter, bounds);
+		final Instance instance = solution.instance();
+		if (instance == null) return null;
+		final Map<String,Boolean> m = new TreeMap<String,Boolean>();
+		for (final Map.Entry<String,Relation> e : k.vars.entrySet()) {
+			m.put(e.getKey(), !instance.tuples(e.getValue()).isEmpty());
+		}
+		return Collections.unmodifiableMap(m);
+	}
+
+	private Formula convert(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	private Formula formula(final Expr e) {
+		return memo.get(e);
+	}
+
+	private Expr put(final Expr e, final Formula f) {
+		memo.put(e, f);
+		return e;
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, e.b ? Formula.TRUE : Formula.FALSE);
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		return put(e, vars.get(e.identifier).some());
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		return put(e, formula(e.expr).not());
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return put(e, formula(e.left).and(formula(e.right)));
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return put(e, formula(e.left).or(formula(e.right)));
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		Formula f = Formula.TRUE;
+		for (final Expr c : e.children) {
+			f = f.and(formula(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		Formula f = Formula.FALSE;
+		for (final Expr c : e.children) {
+			f = f.or(formula(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return put(e, formula(e.left).iff(formula(e.right)).not());
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return put(e, formula(e.left).and(formula(e.right)).not());
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return put(e, formula(e.left).or(formula(e.right)).not());
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return put(e, formula(e.left).iff(formula(e.right)));
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		return put(e, formula(e.left).iff(formula(e.right)));
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		final Formula s = formula(e.select);
+		return put(e, s.and(formula(e.ifTrue)).or(s.not().and(formula(e.ifFalse))));
+	}
+}
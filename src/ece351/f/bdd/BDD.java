@@ -0,0 +1,605 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.bdd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A reduced ordered binary decision diagram (ROBDD) manager.
+ * 
+ * Nodes are int handles into parallel arrays. FALSE and TRUE are the 
+ * two terminals. Every internal node is kept in a per-variable unique
+ * table, so two handles are equal if and only if they denote the same
+ * boolean function: checking equivalence is an int comparison.
+ * Operations go through ite() and its computed table.
+ * 
+ * Nodes are reference counted. Callers must ref() the handles they want
+ * to keep across a gc() or a sift(); every other node with no parent is
+ * reclaimed by those calls. Between them nothing is ever freed, so
+ * handles returned by the operations are safe to combine.
+ * 
+ * sift() reorders the variables (Rudell's sifting): each variable in 
+ * turn is moved through every level by swapping adjacent levels in place,
+ * and left at the level where the diagram was smallest. Handles stay 
+ * valid across a reordering.
+ * 
+ * Building a large diagram can take a while, so operations that create
+ * nodes throw a CancellationException once the thread is interrupted.
+ */
+public final class BDD {
+
+	public static final int FALSE = 0;
+	public static final int TRUE = 1;
+
+	/** Default bound on the number of live nodes. */
+	public static final int DEFAULT_MAX_NODES = 1 << 21;
+
+	/** Sifting stops moving a variable once the diagram grows by this factor. */
+	private static final double MAX_GROWTH = 1.2;
+
+	/** Thrown when an operation would exceed the node limit. */
+	public static final class NodeLimitException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		NodeLimitException(final int limit) {
+			super("BDD node limit exceeded: " + limit);
+		}
+	}
+
+	private final int maxNodes;
+
+	// node store: var == FREE marks a free slot
+	private static final int FREE = -1;
+	private int[] var;
+	private int[] low;
+	private int[] high;
+	private int[] refs;
+	/** Chains for the unique tables and for the free list. 0 terminates. */
+	private int[] next;
+	private int allocated = 2;
+	private int freeList = 0;
+	private int freeCount = 0;
+	/** Swaps may briefly need more nodes than the limit. */
+	private boolean reordering = false;
+
+	// variables and their order
+	private int numVars = 0;
+	private int[] levelOf = new int[8];
+	private int[] varAt = new int[8];
+
+	// unique tables, one per variable
+	private int[][] buckets = new int[8][];
+	private int[] subCount = new int[8];
+
+	// computed table for ite()
+	private final int[] cacheF;
+	private final int[] cacheG;
+	private final int[] cacheH;
+	private final int[] cacheR;
+	private final int cacheMask;
+
+	public BDD() {
+		this(DEFAULT_MAX_NODES);
+	}
+
+	public BDD(final int maxNodes) {
+		this.maxNodes = maxNodes;
+		final int capacity = 1 << 10;
+		var = new int[capacity];
+		low = new int[capacity];
+		high = new int[capacity];
+		refs = new int[capacity];
+		next = new int[capacity];
+		// terminals are their own children, and below every variable
+		var[FALSE] = var[TRUE] = Integer.MAX_VALUE;
+		low[TRUE] = high[TRUE] = TRUE;
+		final int cacheSize = 1 << 16;
+		cacheF = new int[cacheSize];
+		cacheG = new int[cacheSize];
+		cacheH = new int[cacheSize];
+		cacheR = new int[cacheSize];
+		cacheMask = cacheSize - 1;
+		clearCache();
+	}
+
+	/*
+	 * Variables.
+	 */
+
+	/**
+	 * Create a new variable, ordered below all existing ones.
+	 * @return its index
+	 */
+	public int newVar() {
+		final int v = numVars++;
+		if (v == levelOf.length) {
+			final int n = 2 * v;
+			levelOf = Arrays.copyOf(levelOf, n);
+			varAt = Arrays.copyOf(varAt, n);
+			buckets = Arrays.copyOf(buckets, n);
+			subCount = Arrays.copyOf(subCount, n);
+		}
+		levelOf[v] = v;
+		varAt[v] = v;
+		buckets[v] = new int[16];
+		subCount[v] = 0;
+		return v;
+	}
+
+	public int numVars() {
+		return numVars;
+	}
+
+	/** The function that is true exactly when variable v is. */
+	public int var(final int v) {
+		return mk(v, FALSE, TRUE);
+	}
+
+	/** The position of variable v in the current order; 0 is the top. */
+	public int level(final int v) {
+		return levelOf[v];
+	}
+
+	/** The variable at the given position in the current order. */
+	public int varAtLevel(final int l) {
+		return varAt[l];
+	}
+
+	/*
+	 * Operations.
+	 */
+
+	public int not(final int f) {
+		return ite(f, FALSE, TRUE);
+	}
+
+	public int and(final int f, final int g) {
+		return ite(f, g, FALSE);
+	}
+
+	public int or(final int f, final int g) {
+		return ite(f, TRUE, g);
+	}
+
+	public int xor(final int f, final int g) {
+		return ite(f, not(g), g);
+	}
+
+	public int xnor(final int f, final int g) {
+		return ite(f, g, not(g));
+	}
+
+	public int nand(final int f, final int g) {
+		return not(and(f, g));
+	}
+
+	public int nor(final int f, final int g) {
+		return not(or(f, g));
+	}
+
+	/**
+	 * If-then-else: (f and g) or (not f and h).
+	 */
+	public int ite(final int f, int g, int h) {
+		// terminal cases
+		if (f == TRUE) return g;
+		if (f == FALSE) return h;
+		if (g == f) g = TRUE;
+		if (h == f) h = FALSE;
+		if (g == h) return g;
+		if (g == TRUE && h == FALSE) return f;
+		// computed table
+		final int slot = hash(f, g, h) & cacheMask;
+		if (cacheF[slot] == f && cacheG[slot] == g && cacheH[slot] == h) {
+			return cacheR[slot];
+		}
+		// Shannon expansion on the top variable
+		final int top = Math.min(levelOfNode(f), Math.min(levelOfNode(g), levelOfNode(h)));
+		final int v = varAt[top];
+		final int t = ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+		final int e = ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+		final int r = mk(v, e, t);
+		cacheF[slot] = f;
+		cacheG[slot] = g;
+		cacheH[slot] = h;
+		cacheR[slot] = r;
+		return r;
+	}
+
+	private int levelOfNode(final int f) {
+		return f <= TRUE ? Integer.MAX_VALUE : levelOf[var[f]];
+	}
+
+	private int cofactor(final int f, final int level, final boolean positive) {
+		if (levelOfNode(f) != level) return f;
+		return positive ? high[f] : low[f];
+	}
+
+	/*
+	 * Queries.
+	 */
+
+	/** The variable tested at the root of f; f must not be a terminal. */
+	public int topVar(final int f) {
+		assert f > TRUE;
+		return var[f];
+	}
+
+	public int low(final int f) {
+		return low[f];
+	}
+
+	public int high(final int f) {
+		return high[f];
+	}
+
+	/**
+	 * Evaluate f under an assignment indexed by variable.
+	 */
+	public boolean evaluate(int f, final boolean[] assignment) {
+		while (f > TRUE) {
+			f = assignment[var[f]] ? high[f] : low[f];
+		}
+		return f == TRUE;
+	}
+
+	/**
+	 * One satisfying assignment of f, indexed by variable: 1, 0, or -1 
+	 * for variables that do not matter. Null if f is unsatisfiable.
+	 */
+	public int[] satOne(int f) {
+		if (f == FALSE) return null;
+		final int[] a = new int[numVars];
+		Arrays.fill(a, -1);
+		while (f > TRUE) {
+			if (low[f] != FALSE) {
+				a[var[f]] = 0;
+				f = low[f];
+			} else {
+				a[var[f]] = 1;
+				f = high[f];
+			}
+		}
+		return a;
+	}
+
+	/** Number of internal nodes reachable from f. */
+	public int nodeCount(final int f) {
+		final BitSet seen = new BitSet();
+		final List<Integer> stack = new ArrayList<Integer>();
+		stack.add(f);
+		int count = 0;
+		while (!stack.isEmpty()) {
+			final int n = stack.remove(stack.size() - 1);
+			if (n <= TRUE || seen.get(n)) continue;
+			seen.set(n);
+			count++;
+			stack.add(low[n]);
+			stack.add(high[n]);
+		}
+		return count;
+	}
+
+	/** Number of internal nodes in the store, including garbage not yet collected. */
+	public int liveNodes() {
+		return allocated - 2 - freeCount;
+	}
+
+	/*
+	 * Memory management.
+	 */
+
+	/** Protect f from gc() and sift(). Returns f. */
+	public int ref(final int f) {
+		refs[f]++;
+		return f;
+	}
+
+	/** Undo one ref(f). Returns f. */
+	public int deref(final int f) {
+		assert f <= TRUE || refs[f] > 0 : "deref of unreferenced node";
+		refs[f]--;
+		return f;
+	}
+
+	/** Reclaim every internal node that is neither ref()ed nor reachable from one that is. */
+	public void gc() {
+		for (int n = 2; n < allocated; n++) {
+			if (var[n] != FREE && refs[n] == 0) {
+				free(n);
+			}
+		}
+		clearCache();
+	}
+
+	private void free(final int n) {
+		// n has no parents: unlink it, then release its children
+		unlink(n);
+		final int lo = low[n];
+		final int hi = high[n];
+		var[n] = FREE;
+		next[n] = freeList;
+		freeList = n;
+		freeCount++;
+		release(lo);
+		release(hi);
+	}
+
+	private void release(final int n) {
+		if (n <= TRUE) return;
+		if (--refs[n] == 0) {
+			free(n);
+		}
+	}
+
+	private int allocate() {
+		if (freeList != 0) {
+			final int n = freeList;
+			freeList = next[n];
+			freeCount--;
+			return n;
+		}
+		if (liveNodes() >= maxNodes && !reordering) {
+			throw new NodeLimitException(maxNodes);
+		}
+		if ((allocated & 0x3FF) == 0 && !reordering && Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("BDD construction interrupted");
+		}
+		if (allocated == var.length) {
+			final int n = 2 * allocated;
+			var = Arrays.copyOf(var, n);
+			low = Arrays.copyOf(low, n);
+			high = Arrays.copyOf(high, n);
+			refs = Arrays.copyOf(refs, n);
+			next = Arrays.copyOf(next, n);
+		}
+		return allocated++;
+	}
+
+	/*
+	 * Unique tables.
+	 */
+
+	/** The unique node (v, lo, hi), created if need be. */
+	private int mk(final int v, final int lo, final int hi) {
+		if (lo == hi) return lo;
+		final int[] b = buckets[v];
+		final int slot = hash(lo, hi) & (b.length - 1);
+		for (int n = b[slot]; n != 0; n = next[n]) {
+			if (low[n] == lo && high[n] == hi) return n;
+		}
+		final int n = allocate();
+		var[n] = v;
+		low[n] = lo;
+		high[n] = hi;
+		refs[n] = 0;
+		refs[lo]++;
+		refs[hi]++;
+		insert(n);
+		return n;
+	}
+
+	private void insert(final int n) {
+		final int v = var[n];
+		int[] b = buckets[v];
+		if (subCount[v] >= 2 * b.length) {
+			b = resize(v);
+		}
+		final int slot = hash(low[n], high[n]) & (b.length - 1);
+		next[n] = b[slot];
+		b[slot] = n;
+		subCount[v]++;
+	}
+
+	private void unlink(final int n) {
+		final int v = var[n];
+		final int[] b = buckets[v];
+		final int slot = hash(low[n], high[n]) & (b.length - 1);
+		if (b[slot] == n) {
+			b[slot] = next[n];
+		} else {
+			int p = b[slot];
+			while (next[p] != n) {
+				p = next[p];
+			}
+			next[p] = next[n];
+		}
+		subCount[v]--;
+	}
+
+	private int[] resize(final int v) {
+		final int[] old = buckets[v];
+		final int[] b = new int[old.length * 2];
+		for (int i = 0; i < old.length; i++) {
+			int n = old[i];
+			while (n != 0) {
+				final int following = next[n];
+				final int slot = hash(low[n], high[n]) & (b.length - 1);
+				next[n] = b[slot];
+				b[slot] = n;
+				n = following;
+			}
+		}
+		buckets[v] = b;
+		return b;
+	}
+
+	/** All of the nodes labelled with variable v, removed from its unique table. */
+	private int[] drain(final int v) {
+		final int[] b = buckets[v];
+		final int[] nodes = new int[subCount[v]];
+		int k = 0;
+		for (int i = 0; i < b.length; i++) {
+			for (int n = b[i]; n != 0; n = next[n]) {
+				nodes[k++] = n;
+			}
+			b[i] = 0;
+		}
+		subCount[v] = 0;
+		return nodes;
+	}
+
+	private static int hash(final int a, final int b) {
+		return (a * 0x9E3779B1) ^ (b * 0x85EBCA77) ^ ((a ^ b) >>> 15);
+	}
+
+	private static int hash(final int a, final int b, final int c) {
+		return hash(hash(a, b), c);
+	}
+
+	private void clearCache() {
+		Arrays.fill(cacheF, -1);
+	}
+
+	/*
+	 * Variable reordering.
+	 */
+
+	/**
+	 * Swap the variables at levels l and l+1 in place. Nodes labelled
+	 * with the upper variable that depend on the lower one are relabelled
+	 * and keep their handles; nodes that die are reclaimed.
+	 */
+	private void swap(final int l) {
+		final int x = varAt[l];
+		final int y = varAt[l + 1];
+		final int[] xs = drain(x);
+		// first put back the x nodes that do not depend on y,
+		// so that the new x nodes below can share them
+		final List<Integer> dependent = new ArrayList<Integer>();
+		for (final int f : xs) {
+			if (var[low[f]] == y || var[high[f]] == y) {
+				dependent.add(f);
+			} else {
+				insert(f);
+			}
+		}
+		for (final int f : dependent) {
+			final int f1 = high[f];
+			final int f0 = low[f];
+			final boolean d1 = var[f1] == y;
+			final boolean d0 = var[f0] == y;
+			final int f11 = d1 ? high[f1] : f1;
+			final int f10 = d1 ? low[f1] : f1;
+			final int f01 = d0 ? high[f0] : f0;
+			final int f00 = d0 ? low[f0] : f0;
+			// f = y ? (x ? f11 : f01) : (x ? f10 : f00)
+			final int g1 = mk(x, f01, f11);
+			final int g0 = mk(x, f00, f10);
+			refs[g1]++;
+			refs[g0]++;
+			var[f] = y;
+			low[f] = g0;
+			high[f] = g1;
+			insert(f);
+			release(f1);
+			release(f0);
+		}
+		levelOf[x] = l + 1;
+		levelOf[y] = l;
+		varAt[l] = y;
+		varAt[l + 1] = x;
+	}
+
+	/**
+	 * Reorder the variables by sifting, to reduce the number of nodes.
+	 * Garbage is collected first.
+	 */
+	public void sift() {
+		gc();
+		if (numVars < 2) return;
+		// sift the variables with the most nodes first
+		final List<Integer> order = new ArrayList<Integer>();
+		for (int v = 0; v < numVars; v++) {
+			order.add(v);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				return Integer.compare(subCount[b], subCount[a]);
+			}
+		});
+		reordering = true;
+		try {
+			for (final int v : order) {
+				siftVar(v);
+			}
+		} finally {
+			reordering = false;
+			clearCache();
+		}
+	}
+
+	private void siftVar(final int v) {
+		int best = liveNodes();
+		int bestLevel = levelOf[v];
+		// go towards the nearer end first
+		final boolean downFirst = levelOf[v] >= numVars / 2;
+		for (int pass = 0; pass < 2; pass++) {
+			if (downFirst == (pass == 0)) {
+				while (levelOf[v] < numVars - 1) {
+					swap(levelOf[v]);
+					final int size = liveNodes();
+					if (size < best) {
+						best = size;
+						bestLevel = levelOf[v];
+					} else if (size > MAX_GROWTH * best) {
+						break;
+					}
+				}
+			} else {
+				while (levelOf[v] > 0) {
+					swap(levelOf[v] - 1);
+					final int size = liveNodes();
+					if (size < best) {
+						best = size;
+						bestLevel = levelOf[v];
+					} else if (size > MAX_GROWTH * best) {
+						break;
+					}
+				}
+			}
+		}
+		// go back to the best level seen
+		while (levelOf[v] < bestLevel) {
+			swap(levelOf[v]);
+		}
+		while (levelOf[v] > bestLevel) {
+			swap(levelOf[v] - 1);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BDD(vars=" + numVars + ", nodes=" + liveNodes() + ")";
+	}
+}
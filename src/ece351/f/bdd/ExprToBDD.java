@@ -0,0 +1,173 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.bdd;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+
+/**
+ * Builds BDDs directly from Expr trees. Every VarExpr is a free input:
+ * a BDD variable is created for each identifier the first time it is
+ * seen, so the initial variable order is depth-first order of first
+ * occurrence, which keeps related inputs close together.
+ * 
+ * Subtrees are memoized (Exprs are hash-consed, so lookups are cheap),
+ * and every memoized node is ref()ed, so it survives BDD.sift().
+ */
+public final class ExprToBDD extends MemoizingExprVisitor<Integer> {
+
+	public final BDD bdd;
+	private final Map<String,Integer> vars = new LinkedHashMap<String,Integer>();
+
+	public ExprToBDD(final BDD bdd) {
+		this.bdd = bdd;
+	}
+
+	/** The BDD for e. */
+	public int build(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	/** The BDD variable for each identifier seen so far. */
+	public Map<String,Integer> vars() {
+		return Collections.unmodifiableMap(vars);
+	}
+
+	/** Drop the memo table, releasing its nodes for gc. */
+	public void clear() {
+		for (final int f : memo.values()) {
+			bdd.deref(f);
+		}
+		memo.clear();
+	}
+
+	private int node(final Expr e) {
+		return memo.get(e);
+	}
+
+	private Expr put(final Expr e, final int f) {
+		memo.put(e, bdd.ref(f));
+		return e;
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, e.b ? BDD.TRUE : BDD.FALSE);
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		if (memo.containsKey(e)) return e;
+		Integer v = vars.get(e.identifier);
+		if (v == null) {
+			v = bdd.newVar();
+			vars.put(e.identifier, v);
+		}
+		return put(e, bdd.var(v));
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		return put(e, bdd.not(node(e.expr)));
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return put(e, bdd.and(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return put(e, bdd.or(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		int f = BDD.TRUE;
+		for (final Expr c : e.children) {
+			f = bdd.and(f, node(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		int f = BDD.FALSE;
+		for (final Expr c : e.children) {
+			f = bdd.or(f, node(c));
+		}
+		return put(e, f);
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return put(e, bdd.xor(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return put(e, bdd.nand(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return put(e, bdd.nor(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return put(e, bdd.xnor(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		return put(e, bdd.xnor(node(e.left), node(e.right)));
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		return put(e, bdd.ite(node(e.select), node(e.ifTrue), node(e.ifFalse)));
+	}
+}
@@ -0,0 +1,188 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.bdd;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.BDDEngine;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+
+public class TestBDD extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void canonical() {
+		final BDD bdd = new BDD();
+		final int a = bdd.var(bdd.newVar());
+		final int b = bdd.var(bdd.newVar());
+		final int c = bdd.var(bdd.newVar());
+		// distributivity
+		assertEquals(bdd.and(a, bdd.or(b, c)), bdd.or(bdd.and(a, b), bdd.and(a, c)));
+		// de morgan
+		assertEquals(bdd.not(bdd.and(a, b)), bdd.or(bdd.not(a), bdd.not(b)));
+		assertEquals(bdd.nand(a, b), bdd.not(bdd.and(a, b)));
+		// complements and tautologies
+		assertEquals(BDD.FALSE, bdd.and(a, bdd.not(a)));
+		assertEquals(BDD.TRUE, bdd.or(a, bdd.not(a)));
+		assertEquals(BDD.FALSE, bdd.xor(bdd.xnor(a, b), bdd.xor(bdd.not(a), b)));
+	}
+
+	@Test
+	public void evaluateAndSatOne() {
+		final BDD bdd = new BDD();
+		final int a = bdd.var(bdd.newVar());
+		final int b = bdd.var(bdd.newVar());
+		final int f = bdd.and(a, bdd.not(b));
+		assertTrue(bdd.evaluate(f, new boolean[]{true, false}));
+		assertFalse(bdd.evaluate(f, new boolean[]{true, true}));
+		assertArrayEquals(new int[]{1, 0}, bdd.satOne(f));
+		assertNull(bdd.satOne(BDD.FALSE));
+		assertArrayEquals(new int[]{-1, -1}, bdd.satOne(BDD.TRUE));
+	}
+
+	@Test
+	public void siftPreservesFunctions() {
+		final Random random = new Random(351);
+		for (int trial = 0; trial < 20; trial++) {
+			final BDD bdd = new BDD();
+			final int n = 6;
+			final List<Integer> pool = new ArrayList<Integer>();
+			for (int i = 0; i < n; i++) {
+				pool.add(bdd.var(bdd.newVar()));
+			}
+			for (int i = 0; i < 40; i++) {
+				final int f = pool.get(random.nextInt(pool.size()));
+				final int g = pool.get(random.nextInt(pool.size()));
+				switch (random.nextInt(3)) {
+				case 0: pool.add(bdd.and(f, g)); break;
+				case 1: pool.add(bdd.or(f, g)); break;
+				default: pool.add(bdd.xor(f, bdd.not(g))); break;
+				}
+			}
+			final int[] handles = new int[pool.size()];
+			final boolean[][] before = new boolean[pool.size()][];
+			for (int i = 0; i < pool.size(); i++) {
+				handles[i] = bdd.ref(pool.get(i));
+				before[i] = truthTable(bdd, handles[i], n);
+			}
+			bdd.sift();
+			for (int i = 0; i < pool.size(); i++) {
+				assertArrayEquals(before[i], truthTable(bdd, handles[i], n));
+			}
+			// the unique table is still canonical after reordering
+			assertEquals(bdd.and(handles[0], handles[1]), bdd.and(handles[1], handles[0]));
+		}
+	}
+
+	@Test
+	public void siftShrinksBadOrder() {
+		// (x0 and y0) or (x1 and y1) or ... is exponential when all x come first
+		final BDD bdd = new BDD();
+		final int n = 8;
+		final int[] x = new int[n];
+		for (int i = 0; i < n; i++) x[i] = bdd.var(bdd.newVar());
+		int f = BDD.FALSE;
+		for (int i = 0; i < n; i++) {
+			f = bdd.or(f, bdd.and(x[i], bdd.var(bdd.newVar())));
+		}
+		bdd.ref(f);
+		final int bad = bdd.nodeCount(f);
+		bdd.sift();
+		assertTrue(bdd.nodeCount(f) < bad);
+		assertEquals(2 * n, bdd.nodeCount(f));
+	}
+
+	private static boolean[] truthTable(final BDD bdd, final int f, final int n) {
+		final boolean[] table = new boolean[1 << n];
+		final boolean[] assignment = new boolean[n];
+		for (int row = 0; row < table.length; row++) {
+			for (int v = 0; v < n; v++) {
+				assignment[v] = ((row >> v) & 1) != 0;
+			}
+			table[row] = bdd.evaluate(f, assignment);
+		}
+		return table;
+	}
+
+	@Test
+	public void nodeLimit() {
+		final BDD bdd = new BDD(64);
+		try {
+			int f = BDD.FALSE;
+			for (int i = 0; i < 16; i++) {
+				f = bdd.xor(f, bdd.and(bdd.var(bdd.newVar()), bdd.var(bdd.newVar())));
+				f = bdd.or(f, bdd.var(bdd.newVar()));
+				f = bdd.xor(f, bdd.var(bdd.newVar()));
+			}
+			fail("should have exceeded the node limit");
+		} catch (final BDD.NodeLimitException e) {
+			// expected
+		}
+		final FProgram p = parse("x <= (a and b) or (c and d) or (e and f);");
+		assertEquals(Verdict.UNKNOWN, new BDDEngine(4).check(p, p).verdict);
+	}
+
+	@Test
+	public void simplifiedFilesAreEquivalent() {
+		final BDDEngine engine = new BDDEngine();
+		for (final File f : new File("tests/f").listFiles()) {
+			if (!f.getName().endsWith(".f")) continue;
+			final FProgram original = parse(f.getPath());
+			final FProgram simplified = original.simplify();
+			assertEquals(f.getName(), Verdict.EQUIVALENT, engine.check(original, simplified).verdict);
+			assertTrue(f.getName(), original.equivalent(simplified));
+		}
+	}
+
+	@Test
+	public void differentPrograms() {
+		final BDDEngine engine = new BDDEngine();
+		final FProgram p = parse("x <= a and b; y <= a or c;");
+		assertEquals(Verdict.NOT_EQUIVALENT, engine.check(p, parse("x <= a and b; y <= a or b;")).verdict);
+		assertEquals(Verdict.NOT_EQUIVALENT, engine.check(p, parse("x <= a or b; y <= a or c;")).verdict);
+		assertEquals(Verdict.EQUIVALENT, engine.check(p, parse("y <= c or a; x <= not (not a or not b);")).verdict);
+		assertFalse(p.equivalent(parse("x <= a and b; y <= a and c;")));
+	}
+}
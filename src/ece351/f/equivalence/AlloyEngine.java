@@ -0,0 +1,75 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import ece351.f.ast.AlloyConverter;
+import ece351.f.ast.FProgram;
+import ece351.util.RunAlloy351;
+
+/**
+ * The original decision procedure: generate an Alloy specification
+ * and have Alloy translate it to SAT. Slow, but never gives up unless
+ * the checking thread is interrupted or RunAlloy351 is too busy to
+ * take the check.
+ */
+public final class AlloyEngine implements EquivalenceEngine {
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		// generate the Alloy specification
+		// (will be translated to SAT in the next step)
+		final String alloy = AlloyConverter.convert(a, b);
+		// ask a SAT solver for a counterexample (which RunAlloy351 does not return),
+		// on another thread, since Alloy cannot be interrupted but this thread can
+		final Future<Boolean> found;
+		try {
+			found = RunAlloy351.checkAsync(alloy);
+		} catch (final RejectedExecutionException e) {
+			return EquivalenceResult.unknown(toString(), null);
+		}
+		try {
+			return found.get()
+					? EquivalenceResult.refuted(toString(), a, b, null, null)
+					: EquivalenceResult.equivalent(toString(), null);
+		} catch (final InterruptedException e) {
+			found.cancel(true);
+			Thread.currentThread().interrupt();
+			return EquivalenceResult.unknown(toString(), null);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Alloy";
+	}
+}
@@ -0,0 +1,104 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.VarExpr;
+import ece351.f.ast.FProgram;
+import ece351.f.bdd.BDD;
+import ece351.f.bdd.ExprToBDD;
+
+/**
+ * Decide equivalence by building a BDD for every output of both programs
+ * in one manager. BDDs are canonical, so each pair of outputs is
+ * equivalent exactly when their handles are equal. Gives up if the
+ * diagrams exceed the node limit or the thread is interrupted.
+ */
+public final class BDDEngine implements EquivalenceEngine {
+
+	private final int maxNodes;
+
+	public BDDEngine() {
+		this(BDD.DEFAULT_MAX_NODES);
+	}
+
+	public BDDEngine(final int maxNodes) {
+		this.maxNodes = maxNodes;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		final ExprToBDD builder = new ExprToBDD(new BDD(maxNodes));
+		final Map<String,Long> stats = new LinkedHashMap<String,Long>();
+		try {
+			// both programs share one manager, variable order and memo table
+			int reorderAt = 4096;
+			final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+			for (final AssignmentStatement fa : a.formulas) {
+				final AssignmentStatement fb = formulasB.get(fa.outputVar);
+				if (fb == null) return EquivalenceResult.refuted(toString(), a, b, new HashMap<String,Boolean>(), stats);
+				final int x = builder.build(fa.expr);
+				final int y = builder.build(fb.expr);
+				if (x != y) {
+					stats.put("nodes", (long) builder.bdd.liveNodes());
+					return EquivalenceResult.refuted(toString(), a, b, counterexample(builder, x, y), stats);
+				}
+				if (builder.bdd.liveNodes() > reorderAt) {
+					// let the remaining outputs benefit from a better order
+					builder.bdd.sift();
+					reorderAt = 2 * builder.bdd.liveNodes();
+				}
+			}
+			stats.put("nodes", (long) builder.bdd.liveNodes());
+			return EquivalenceResult.equivalent(toString(), stats);
+		} catch (final BDD.NodeLimitException e) {
+			return EquivalenceResult.unknown(toString(), stats);
+		} catch (final CancellationException e) {
+			return EquivalenceResult.unknown(toString(), stats);
+		}
+	}
+
+	/** An assignment under which x and y differ. Variables that do not matter are false. */
+	private static Map<String,Boolean> counterexample(final ExprToBDD builder, final int x, final int y) {
+		final int[] sat = builder.bdd.satOne(builder.bdd.xor(x, y));
+		final Map<String,Boolean> m = new HashMap<String,Boolean>();
+		for (final Map.Entry<String,Integer> e : builder.vars().entrySet()) {
+			m.put(e.getKey(), sat[e.getValue()] == 1);
+		}
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return "BDD";
+	}
+}
@@ -0,0 +1,219 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+import ece351.f.ast.FProgram;
+
+/**
+ * Evaluates Exprs on 64 input vectors per long, over a block of words
+ * at a time: bit j of word w of an input's column is the input's value
+ * in vector 64w+j. The gates are evaluated with word-wide and/or/not.
+ * Subtrees are memoized per block.
+ */
+final class BitParallelEvaluator extends MemoizingExprVisitor<long[]> {
+
+	private final Map<String,Integer> index = new HashMap<String,Integer>();
+	private final int words;
+	private long[][] columns;
+
+	BitParallelEvaluator(final List<String> inputs, final int words) {
+		for (int i = 0; i < inputs.size(); i++) {
+			index.put(inputs.get(i), i);
+		}
+		this.words = words;
+	}
+
+	/** Start a new block: columns[i] holds the values of input i. */
+	void setInputs(final long[][] columns) {
+		this.columns = columns;
+		memo.clear();
+	}
+
+	/**
+	 * The first bit position in the block at which some output of a 
+	 * differs from the same output of b, or -1. Only the bits in valid
+	 * are considered in each word.
+	 */
+	long firstDifference(final FProgram a, final FProgram b, final long valid) {
+		final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+		for (final AssignmentStatement fa : a.formulas) {
+			final AssignmentStatement fb = formulasB.get(fa.outputVar);
+			if (fb == null) return 0;
+			final long[] x = evaluate(fa.expr);
+			final long[] y = evaluate(fb.expr);
+			for (int w = 0; w < words; w++) {
+				final long diff = (x[w] ^ y[w]) & valid;
+				if (diff != 0) {
+					return w * 64L + Long.numberOfTrailingZeros(diff);
+				}
+			}
+		}
+		return -1;
+	}
+
+	long[] evaluate(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	private long[] column(final Expr e) {
+		return memo.get(e);
+	}
+
+	private Expr put(final Expr e, final long[] column) {
+		memo.put(e, column);
+		return e;
+	}
+
+	private long[] fill(final long value) {
+		final long[] r = new long[words];
+		Arrays.fill(r, value);
+		return r;
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, fill(e.b ? -1L : 0L));
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		return put(e, columns[index.get(e.identifier)]);
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		final long[] x = column(e.expr);
+		final long[] r = new long[words];
+		for (int w = 0; w < words; w++) r[w] = ~x[w];
+		return put(e, r);
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return put(e, and(column(e.left), column(e.right), false));
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return put(e, or(column(e.left), column(e.right), false));
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		final long[] r = fill(-1L);
+		for (final Expr c : e.children) {
+			final long[] x = column(c);
+			for (int w = 0; w < words; w++) r[w] &= x[w];
+		}
+		return put(e, r);
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		final long[] r = new long[words];
+		for (final Expr c : e.children) {
+			final long[] x = column(c);
+			for (int w = 0; w < words; w++) r[w] |= x[w];
+		}
+		return put(e, r);
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return put(e, xor(column(e.left), column(e.right), false));
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return put(e, and(column(e.left), column(e.right), true));
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return put(e, or(column(e.left), column(e.right), true));
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return put(e, xor(column(e.left), column(e.right), true));
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		return put(e, xor(column(e.left), column(e.right), true));
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		final long[] s = column(e.select);
+		final long[] a = column(e.ifTrue);
+		final long[] b = column(e.ifFalse);
+		final long[] r = new long[words];
+		for (int w = 0; w < words; w++) r[w] = (s[w] & a[w]) | (~s[w] & b[w]);
+		return put(e, r);
+	}
+
+	private long[] and(final long[] x, final long[] y, final boolean negate) {
+		final long[] r = new long[words];
+		for (int w = 0; w < words; w++) r[w] = negate ? ~(x[w] & y[w]) : x[w] & y[w];
+		return r;
+	}
+
+	private long[] or(final long[] x, final long[] y, final boolean negate) {
+		final long[] r = new long[words];
+		for (int w = 0; w < words; w++) r[w] = negate ? ~(x[w] | y[w]) : x[w] | y[w];
+		return r;
+	}
+
+	private long[] xor(final long[] x, final long[] y, final boolean negate) {
+		final long[] r = new long[words];
+		for (int w = 0; w < words; w++) r[w] = negate ? ~(x[w] ^ y[w]) : x[w] ^ y[w];
+		return r;
+	}
+}
@@ -0,0 +1,249 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.BinaryExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+import ece351.f.ast.FProgram;
+
+/**
+ * A SHA-256 digest of an FProgram that does not depend on the order of
+ * its formulas or on the order of the operands of commutative operators:
+ * the digests of the operands are sorted before they are combined. Binary
+ * and n-ary and/or hash alike. The digest depends only on the structure 
+ * of the program, so it is stable from one run to the next.
+ * 
+ * Each node is hashed once, so shared subtrees cost nothing extra.
+ */
+public final class CanonicalHash extends MemoizingExprVisitor<byte[]> {
+
+	private static final Comparator<byte[]> BYTES = new Comparator<byte[]>() {
+		@Override
+		public int compare(final byte[] x, final byte[] y) {
+			for (int i = 0; i < x.length && i < y.length; i++) {
+				final int c = (x[i] & 0xff) - (y[i] & 0xff);
+				if (c != 0) return c;
+			}
+			return x.length - y.length;
+		}
+	};
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest md;
+
+	private CanonicalHash() {
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** The canonical digest of p, in hex. */
+	public static String of(final FProgram p) {
+		return hex(new CanonicalHash().digest(p));
+	}
+
+	/**
+	 * The canonical digest of the pair {a, b}, in hex. 
+	 * Does not depend on the order of a and b.
+	 */
+	public static String of(final FProgram a, final FProgram b) {
+		final CanonicalHash h = new CanonicalHash();
+		final List<byte[]> both = new ArrayList<byte[]>(2);
+		both.add(h.digest(a));
+		both.add(h.digest(b));
+		Collections.sort(both, BYTES);
+		return hex(both.get(0)) + hex(both.get(1));
+	}
+
+	/**
+	 * The canonical digest of the formula of each output of p, in hex.
+	 * Every VarExpr is a free input, so the formula is the whole cone of
+	 * its output, and two outputs with the same digest compute the same
+	 * function.
+	 */
+	public static Map<String,String> ofFormulas(final FProgram p) {
+		final CanonicalHash h = new CanonicalHash();
+		final Map<String,String> m = new HashMap<String,String>();
+		for (final AssignmentStatement f : p.formulas) {
+			m.put(f.outputVar.identifier, hex(h.digest(f.expr)));
+		}
+		return m;
+	}
+
+	/** The canonical digest of e, in hex. */
+	public static String of(final Expr e) {
+		return hex(new CanonicalHash().digest(e));
+	}
+
+	private byte[] digest(final FProgram p) {
+		final List<byte[]> formulas = new ArrayList<byte[]>(p.formulas.size());
+		for (final AssignmentStatement f : p.formulas) {
+			formulas.add(combine("<=" + f.outputVar.identifier, false, digest(f.expr)));
+		}
+		return combine("program", true, formulas.toArray(new byte[formulas.size()][]));
+	}
+
+	private byte[] digest(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	private byte[] combine(final String tag, final boolean commutative, final byte[]... children) {
+		if (commutative) {
+			Arrays.sort(children, BYTES);
+		}
+		md.update(tag.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+		for (final byte[] c : children) {
+			md.update(c);
+		}
+		return md.digest();
+	}
+
+	private static String hex(final byte[] bytes) {
+		final char[] r = new char[2 * bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			r[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+			r[2 * i + 1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(r);
+	}
+
+	private Expr put(final Expr e, final byte[] digest) {
+		memo.put(e, digest);
+		return e;
+	}
+
+	private Expr binary(final String tag, final BinaryExpr e) {
+		return put(e, combine(tag, true, memo.get(e.left), memo.get(e.right)));
+	}
+
+	private Expr nary(final String tag, final NaryExpr e) {
+		final byte[][] children = new byte[e.children.size()][];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = memo.get(e.children.get(i));
+		}
+		return put(e, combine(tag, true, children));
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, combine(e.b ? "'1'" : "'0'", false));
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		return put(e, combine("var " + e.identifier, false));
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		return put(e, combine("not", false, memo.get(e.expr)));
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return binary("and", e);
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return binary("or", e);
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		return nary("and", e);
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		return nary("or", e);
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return binary("xor", e);
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return binary("nand", e);
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return binary("nor", e);
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return binary("xnor", e);
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		// a = b is a xnor b
+		return binary("xnor", e);
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		// the operands have fixed roles, so their order is kept
+		return put(e, combine("mux", false, memo.get(e.select), memo.get(e.ifTrue), memo.get(e.ifFalse)));
+	}
+}
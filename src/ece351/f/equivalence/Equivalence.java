@@ -0,0 +1,390 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ece351.f.ast.FProgram;
+import ece351.f.bdd.BDD;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.CommandLine;
+
+/**
+ * Entry point for FProgram.equivalent(): try each engine in turn
+ * until one of them reaches a verdict. The chain and the budget of each
+ * check come from the command line: -engines (see engines()), -timeout 
+ * in milliseconds, -conflicts for the SAT engines and -nodes for BDDs.
+ */
+public final class Equivalence {
+
+	private Equivalence() {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Programs with fewer inputs than this are checked by exhaustive evaluation. */
+	private static volatile int truthTableThreshold = TruthTableEngine.DEFAULT_THRESHOLD;
+
+	public static int getTruthTableThreshold() {
+		return truthTableThreshold;
+	}
+
+	public static void setTruthTableThreshold(final int threshold) {
+		if (threshold < 0 || threshold > 63) throw new IllegalArgumentException("threshold out of range: " + threshold);
+		truthTableThreshold = threshold;
+	}
+
+	/** Budgets and engines come from here, or from CommandLine.GLOBAL if null. */
+	private static volatile CommandLine options = null;
+
+	/**
+	 * Take the equivalence options (-timeout, -conflicts, -nodes, -engines) 
+	 * from c rather than from CommandLine.GLOBAL; null reverts to GLOBAL.
+	 */
+	public static void configure(final CommandLine c) {
+		options = c;
+	}
+
+	private static CommandLine options() {
+		final CommandLine c = options;
+		return c != null ? c : CommandLine.GLOBAL;
+	}
+
+	/**
+	 * Random simulation to refute quickly, then truth tables for small 
+	 * programs, then BDDs, then SAT sweeping if the BDDs get too big.
+	 */
+	public static final String DEFAULT_ENGINES = "sim,tt,bdd,fraig";
+
+	/** The engines named by the -engines option, or the default chain, with the budgets from the options. */
+	public static List<EquivalenceEngine> defaultEngines() {
+		final CommandLine c = options();
+		if (c == null) return engines(DEFAULT_ENGINES, 0, 0);
+		return engines(c.equivalenceEngines == null ? DEFAULT_ENGINES : c.equivalenceEngines,
+				c.equivalenceConflicts, c.equivalenceNodes);
+	}
+
+	/** The engine names that engines() accepts. */
+	public static final Set<String> ENGINE_NAMES = Collections.unmodifiableSet(new LinkedHashSet<String>(
+			Arrays.asList("sim", "tt", "bdd", "fraig", "sat", "kodkod", "alloy")));
+
+	/**
+	 * The engines in names, a comma-separated list of sim, tt, bdd, fraig, 
+	 * sat, kodkod and alloy. The SAT engines give up after conflicts 
+	 * conflicts and the BDD engine after nodes nodes; 0 means no limit for
+	 * the SAT engines and the default limit for the BDD engine.
+	 */
+	public static List<EquivalenceEngine> engines(final String names, final long conflicts, final int nodes) {
+		final List<EquivalenceEngine> engines = new ArrayList<EquivalenceEngine>();
+		for (final String name : names.split(",")) {
+			final String n = name.trim();
+			if (n.equals("sim")) {
+				engines.add(new SimulationEngine());
+			} else if (n.equals("tt")) {
+				engines.add(new TruthTableEngine(truthTableThreshold));
+			} else if (n.equals("bdd")) {
+				engines.add(new BDDEngine(nodes > 0 ? nodes : BDD.DEFAULT_MAX_NODES));
+			} else if (n.equals("fraig")) {
+				engines.add(new FraigEngine(conflicts > 0 ? conflicts : -1));
+			} else if (n.equals("sat")) {
+				engines.add(new SATEngine(conflicts > 0 ? conflicts : -1));
+			} else if (n.equals("kodkod")) {
+				engines.add(new KodkodEngine());
+			} else if (n.equals("alloy")) {
+				engines.add(new AlloyEngine());
+			} else {
+				throw new IllegalArgumentException("unknown equivalence engine: " + n);
+			}
+		}
+		return engines;
+	}
+
+	/**
+	 * Consults EquivalenceCache.shared() before running the default engines.
+	 * Programs with several outputs are checked one output at a time, in
+	 * parallel: every VarExpr is a free input (even one that names another
+	 * output), so the cone of influence of an output is just its own formula,
+	 * and the outputs can be checked independently. Internal vars (see
+	 * FProgram.internalVars) are not outputs, so they are inlined first.
+	 * Throws an IllegalStateException if no engine reaches a verdict, e.g. 
+	 * because the -timeout budget ran out.
+	 */
+	public static boolean check(final FProgram a, final FProgram b) {
+		return decide(examine(a, b));
+	}
+
+	/**
+	 * As check(a, b), but returns the whole result. The counterexample, if 
+	 * any, covers the inputs of both programs and differingOutputs lists 
+	 * every output that differs under it. Only equivalence is taken from
+	 * the cache, so every refutation has a counterexample unless the
+	 * programs have different outputs. The verdict is UNKNOWN if no engine
+	 * reached one within the budget.
+	 */
+	public static EquivalenceResult examine(final FProgram a, final FProgram b) {
+		return examine(a.inlineInternalVars(), b.inlineInternalVars(), deadline());
+	}
+
+	private static EquivalenceResult examine(final FProgram a, final FProgram b, final long deadline) {
+		// the engines only look at the outputs of a, and the cache key is
+		// symmetric, so an output that only b has must be caught here
+		if (!a.outputVars().equals(b.outputVars())) return differentOutputs(a, b);
+		final String key = EquivalenceCache.key(a, b);
+		// the cache keeps only the verdict, so a known difference is found
+		// again for its counterexample: random simulation usually does so
+		// at once
+		if (Boolean.TRUE.equals(EquivalenceCache.shared().get(key))) {
+			return EquivalenceResult.equivalent(CACHE, null);
+		}
+		return examine(a, b, key, deadline);
+	}
+
+	/** As examine(a, b, deadline) on a cache miss: run the engines, and remember the verdict under key. */
+	private static EquivalenceResult examine(final FProgram a, final FProgram b, final String key, final long deadline) {
+		final EquivalenceResult result = a.formulas.size() > 1
+				? examineOutputs(a, b, deadline)
+				: examine(defaultEngines(), a, b, deadline);
+		if (result.verdict != Verdict.UNKNOWN) {
+			EquivalenceCache.shared().put(key, result.isEquivalent());
+		}
+		return result;
+	}
+
+	private static final String CACHE = "cache";
+
+	/** Programs with different outputs are not equivalent; there is no counterexample to give. */
+	private static EquivalenceResult differentOutputs(final FProgram a, final FProgram b) {
+		return EquivalenceResult.refuted(Equivalence.class.getSimpleName(), a, b, null, null);
+	}
+
+	/**
+	 * Check each output of a against the same output of b on POOL, 
+	 * skipping those that IncrementalEquivalence.pending() finds need no
+	 * proof. Stops as soon as one output differs: the checks that have not 
+	 * started are cancelled, and those that have are interrupted, which
+	 * the engines take as running out of budget. Whatever the verdict,
+	 * the result counts the outputs that were reused and checked.
+	 */
+	private static EquivalenceResult examineOutputs(final FProgram a, final FProgram b, final long deadline) {
+		final List<IncrementalEquivalence.Output> pending = IncrementalEquivalence.pending(a, b, EquivalenceCache.shared());
+		if (pending == null) return differentOutputs(a, b);
+		final Map<String,Long> counts = new LinkedHashMap<String,Long>();
+		counts.put("reused", (long) (a.formulas.size() - pending.size()));
+		counts.put("checked", (long) pending.size());
+		final List<Callable<EquivalenceResult>> tasks = new ArrayList<Callable<EquivalenceResult>>(pending.size());
+		for (final IncrementalEquivalence.Output o : pending) {
+			tasks.add(new Callable<EquivalenceResult>() {
+				@Override
+				public EquivalenceResult call() {
+					return examine(o.a, o.b, o.key, deadline);
+				}
+			});
+		}
+		final CompletionService<EquivalenceResult> outputs = new ExecutorCompletionService<EquivalenceResult>(POOL);
+		final List<Future<EquivalenceResult>> futures = new ArrayList<Future<EquivalenceResult>>(tasks.size());
+		final long start = System.nanoTime();
+		try {
+			for (final Callable<EquivalenceResult> t : tasks) {
+				futures.add(outputs.submit(t));
+			}
+			EquivalenceResult undecided = null;
+			for (int i = 0; i < tasks.size(); i++) {
+				final EquivalenceResult r = outputs.take().get();
+				if (r.verdict == Verdict.NOT_EQUIVALENT) {
+					// evaluate the whole programs under the counterexample, which
+					// fills in the other inputs and finds every output that differs
+					final Map<String,Boolean> cex = r.counterexample;
+					return EquivalenceResult.refuted(r.engine, a, b, cex, r.stats).withStats(counts).withNanos(System.nanoTime() - start);
+				}
+				if (r.verdict == Verdict.UNKNOWN) {
+					// another output may still differ
+					undecided = r;
+				}
+			}
+			if (undecided != null) return undecided.withStats(counts).withNanos(System.nanoTime() - start);
+			return EquivalenceResult.equivalent(Equivalence.class.getSimpleName(), counts).withNanos(System.nanoTime() - start);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			for (final Future<EquivalenceResult> f : futures) {
+				f.cancel(true);
+			}
+		}
+	}
+
+	/** 
+	 * Runs the per-output checks. Not a ForkJoinPool, whose tasks ignore
+	 * cancel(true): a check abandoned there would run to the end. At least
+	 * two threads, so that one slow output cannot hold up all the others.
+	 */
+	private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(THREADS, THREADS,
+			60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "equivalence-output");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+	static {
+		POOL.allowCoreThreadTimeOut(true);
+	}
+
+	/** The per-output checks still running, abandoned or not. */
+	static int runningOutputs() {
+		return POOL.getActiveCount();
+	}
+
+	public static boolean check(final List<EquivalenceEngine> engines, final FProgram a, final FProgram b) {
+		return decide(examine(engines, a, b));
+	}
+
+	private static boolean decide(final EquivalenceResult r) {
+		if (r.verdict == Verdict.UNKNOWN) {
+			throw new IllegalStateException("no equivalence engine reached a verdict: " + r);
+		}
+		return r.isEquivalent();
+	}
+
+	/**
+	 * The result of the first engine that reaches a verdict, with the time
+	 * it took. UNKNOWN if every engine gives up or the -timeout budget runs
+	 * out first.
+	 */
+	public static EquivalenceResult examine(final List<EquivalenceEngine> engines, final FProgram a, final FProgram b) {
+		if (!a.outputVars().equals(b.outputVars())) return differentOutputs(a, b);
+		return examine(engines, a.inlineInternalVars(), b.inlineInternalVars(), deadline());
+	}
+
+	private static EquivalenceResult examine(final List<EquivalenceEngine> engines, final FProgram a, final FProgram b,
+			final long deadline) {
+		// an interrupt from the caller must outlive the alarm's
+		final boolean interrupted = Thread.currentThread().isInterrupted();
+		final ScheduledFuture<Boolean> alarm = deadline == NO_DEADLINE ? null : interruptAt(deadline);
+		final long start = System.nanoTime();
+		try {
+			EquivalenceResult r = EquivalenceResult.unknown(engines.toString(), null);
+			for (final EquivalenceEngine engine : engines) {
+				if (Thread.currentThread().isInterrupted()) break;
+				r = engine.check(a, b);
+				if (r.verdict != Verdict.UNKNOWN) break;
+			}
+			return r.withNanos(System.nanoTime() - start);
+		} finally {
+			if (alarm != null) disarm(alarm, interrupted);
+		}
+	}
+
+	/*
+	 * Budgets. The engines poll the interrupt flag of their thread, so a 
+	 * check is cut short by interrupting the thread that runs it when its 
+	 * -timeout budget runs out.
+	 */
+
+	private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+	/** Fires the alarms set by interruptAt(). */
+	private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread t = new Thread(r, "equivalence-timer");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	static {
+		TIMER.setRemoveOnCancelPolicy(true);
+	}
+
+	/** When a check that starts now must end, by System.nanoTime(). */
+	private static long deadline() {
+		final CommandLine c = options();
+		if (c == null || c.equivalenceTimeout == 0) return NO_DEADLINE;
+		return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(c.equivalenceTimeout);
+	}
+
+	/** 
+	 * Interrupt the current thread at deadline. The alarm's value is 
+	 * whether the thread had already been interrupted by then.
+	 */
+	private static ScheduledFuture<Boolean> interruptAt(final long deadline) {
+		final Thread thread = Thread.currentThread();
+		return TIMER.schedule(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				final boolean already = thread.isInterrupted();
+				thread.interrupt();
+				return already;
+			}
+		}, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/** 
+	 * Cancel the alarm, and if it has gone off, clear the interrupt it 
+	 * caused. An interrupt from elsewhere that came before the alarm was
+	 * set, or before it went off, is kept.
+	 */
+	private static void disarm(final ScheduledFuture<Boolean> alarm, final boolean interrupted) {
+		if (!alarm.cancel(false)) {
+			// not get(), which would throw at the interrupt
+			while (!alarm.isDone()) {
+				Thread.yield();
+			}
+			final boolean already;
+			try {
+				// done, so this neither blocks nor looks at the interrupt
+				already = alarm.get();
+			} catch (final InterruptedException e) {
+				throw new AssertionError(e);
+			} catch (final ExecutionException e) {
+				throw new AssertionError(e.getCause());
+			}
+			if (!interrupted && !already) Thread.interrupted();
+		}
+	}
+}
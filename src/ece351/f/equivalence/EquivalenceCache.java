@@ -0,0 +1,199 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ece351.f.ast.FProgram;
+
+/**
+ * Remembers the verdicts of equivalence checks, keyed by the CanonicalHash
+ * of the pair of programs, so repeated checks of the same pair (possibly
+ * with formulas or commutative operands in a different order) are free.
+ * 
+ * The table is bounded: once it is full the least recently used entry
+ * is evicted. A cache may be backed by a store file, which is read when
+ * the cache is created and written by save(). The shared() cache uses the
+ * file named by the system property ece351.equivalence.cache, if any, 
+ * and saves itself when the JVM exits.
+ */
+public final class EquivalenceCache {
+
+	/** Default bound on the number of entries. */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/** System property naming the store file of the shared cache. */
+	public static final String STORE_PROPERTY = "ece351.equivalence.cache";
+
+	private static final EquivalenceCache SHARED = makeShared();
+
+	private final int capacity;
+	private final File store;
+	private final LinkedHashMap<String,Boolean> table;
+	private long hits = 0;
+	private long misses = 0;
+
+	public EquivalenceCache() {
+		this(DEFAULT_CAPACITY, null);
+	}
+
+	public EquivalenceCache(final int capacity) {
+		this(capacity, null);
+	}
+
+	/** A cache backed by store, which need not exist yet. */
+	public EquivalenceCache(final int capacity, final File store) {
+		assert capacity > 0 : "capacity must be positive";
+		this.capacity = capacity;
+		this.store = store;
+		// access order, so that iteration order is least recently used first
+		this.table = new LinkedHashMap<String,Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String,Boolean> eldest) {
+				return size() > EquivalenceCache.this.capacity;
+			}
+		};
+		if (store != null && store.exists()) {
+			load();
+		}
+	}
+
+	private static EquivalenceCache makeShared() {
+		final String path = System.getProperty(STORE_PROPERTY);
+		if (path == null) return new EquivalenceCache();
+		final EquivalenceCache cache = new EquivalenceCache(DEFAULT_CAPACITY, new File(path));
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				cache.save();
+			}
+		}));
+		return cache;
+	}
+
+	/** The process-wide cache used by Equivalence.check(). */
+	public static EquivalenceCache shared() {
+		return SHARED;
+	}
+
+	/** The cache key for the pair {a, b}. */
+	public static String key(final FProgram a, final FProgram b) {
+		return CanonicalHash.of(a, b);
+	}
+
+	/** Whether the programs with this key are equivalent, or null if not known. */
+	public synchronized Boolean get(final String key) {
+		final Boolean result = table.get(key);
+		if (result == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return result;
+	}
+
+	public synchronized void put(final String key, final boolean equivalent) {
+		table.put(key, equivalent);
+	}
+
+	/** Write the entries to the store file, least recently used first. */
+	public synchronized void save() {
+		if (store == null) throw new IllegalStateException("cache has no store");
+		// write a temporary file and rename it, so readers never see half a store
+		final File tmp = new File(store.getPath() + ".tmp");
+		try {
+			final PrintWriter pw = new PrintWriter(new FileWriter(tmp));
+			for (final Map.Entry<String,Boolean> e : table.entrySet()) {
+				pw.println(e.getKey() + " " + e.getValue());
+			}
+			pw.close();
+			if (pw.checkError()) throw new IOException("could not write " + tmp);
+			if (!tmp.renameTo(store)) {
+				store.delete();
+				if (!tmp.renameTo(store)) throw new IOException("could not rename " + tmp);
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void load() {
+		try {
+			final BufferedReader br = new BufferedReader(new FileReader(store));
+			try {
+				String line;
+				while ((line = br.readLine()) != null) {
+					final String[] parts = line.trim().split(" ");
+					// skip anything that is not a well-formed entry
+					if (parts.length != 2) continue;
+					if (parts[1].equals("true") || parts[1].equals("false")) {
+						table.put(parts[0], Boolean.valueOf(parts[1]));
+					}
+				}
+			} finally {
+				br.close();
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public synchronized int size() {
+		return table.size();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	public synchronized void clear() {
+		table.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "EquivalenceCache(size=" + table.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + ")";
+	}
+}
@@ -0,0 +1,50 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import ece351.f.ast.FProgram;
+
+/**
+ * A decision procedure for the equivalence of two FPrograms.
+ * Both programs define the same output variables (the caller checks);
+ * every variable that appears on a right-hand side is a free input.
+ * An engine may give up, e.g. when it runs out of resources, in which
+ * case the next engine in the chain gets a turn.
+ */
+public interface EquivalenceEngine {
+
+	public enum Verdict {
+		EQUIVALENT,
+		NOT_EQUIVALENT,
+		/** The engine gave up. */
+		UNKNOWN
+	}
+
+	/** The verdict, with a counterexample if the engine can produce one. */
+	EquivalenceResult check(final FProgram a, final FProgram b);
+
+}
@@ -0,0 +1,183 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.VarExpr;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.w.ast.WProgram;
+import ece351.w.ast.Waveform;
+
+/**
+ * The outcome of an equivalence check: the verdict, which engine reached
+ * it, and for programs that are not equivalent, an input assignment under
+ * which they differ and the outputs that differ under it. Engines may also
+ * report statistics, e.g. SAT conflicts or BDD nodes.
+ */
+public final class EquivalenceResult {
+
+	public final Verdict verdict;
+	/** The engine that reached the verdict. */
+	public final String engine;
+	/** Inputs under which the programs differ, sorted by name; null if none is known. */
+	public final SortedMap<String,Boolean> counterexample;
+	/** Outputs that differ under the counterexample. */
+	public final SortedSet<String> differingOutputs;
+	/** Engine-specific counters. */
+	public final Map<String,Long> stats;
+	/** Wall-clock time of the check, if measured by the caller. */
+	public final long nanos;
+
+	private EquivalenceResult(final Verdict verdict, final String engine, final SortedMap<String,Boolean> counterexample,
+			final SortedSet<String> differingOutputs, final Map<String,Long> stats, final long nanos) {
+		this.verdict = verdict;
+		this.engine = engine;
+		this.counterexample = counterexample;
+		this.differingOutputs = differingOutputs;
+		this.stats = stats;
+		this.nanos = nanos;
+	}
+
+	public static EquivalenceResult equivalent(final String engine, final Map<String,Long> stats) {
+		return new EquivalenceResult(Verdict.EQUIVALENT, engine, null, emptyOutputs(), freeze(stats), 0);
+	}
+
+	public static EquivalenceResult unknown(final String engine, final Map<String,Long> stats) {
+		return new EquivalenceResult(Verdict.UNKNOWN, engine, null, emptyOutputs(), freeze(stats), 0);
+	}
+
+	/**
+	 * The programs differ under counterexample, which may be null if the
+	 * engine cannot produce one. Inputs missing from the counterexample
+	 * are taken to be false.
+	 */
+	public static EquivalenceResult refuted(final String engine, final FProgram a, final FProgram b,
+			final Map<String,Boolean> counterexample, final Map<String,Long> stats) {
+		if (counterexample == null) {
+			return new EquivalenceResult(Verdict.NOT_EQUIVALENT, engine, null, emptyOutputs(), freeze(stats), 0);
+		}
+		final SortedMap<String,Boolean> cex = new TreeMap<String,Boolean>();
+		for (final String input : TruthTableEngine.inputVars(a, b)) {
+			final Boolean v = counterexample.get(input);
+			cex.put(input, v != null && v);
+		}
+		return new EquivalenceResult(Verdict.NOT_EQUIVALENT, engine, Collections.unmodifiableSortedMap(cex),
+				Collections.unmodifiableSortedSet(differingOutputs(a, b, cex)), freeze(stats), 0);
+	}
+
+	/** The outputs of a that differ from those of b under the assignment. */
+	private static SortedSet<String> differingOutputs(final FProgram a, final FProgram b, final SortedMap<String,Boolean> assignment) {
+		final List<String> inputs = new ArrayList<String>(assignment.keySet());
+		final long[][] columns = new long[inputs.size()][1];
+		for (int i = 0; i < inputs.size(); i++) {
+			columns[i][0] = assignment.get(inputs.get(i)) ? -1L : 0L;
+		}
+		final BitParallelEvaluator evaluator = new BitParallelEvaluator(inputs, 1);
+		evaluator.setInputs(columns);
+		final SortedSet<String> differ = new TreeSet<String>();
+		final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+		for (final AssignmentStatement fa : a.formulas) {
+			final AssignmentStatement fb = formulasB.get(fa.outputVar);
+			if (fb == null || ((evaluator.evaluate(fa.expr)[0] ^ evaluator.evaluate(fb.expr)[0]) & 1) != 0) {
+				differ.add(fa.outputVar.identifier);
+			}
+		}
+		return differ;
+	}
+
+	private static SortedSet<String> emptyOutputs() {
+		return Collections.unmodifiableSortedSet(new TreeSet<String>());
+	}
+
+	private static Map<String,Long> freeze(final Map<String,Long> stats) {
+		if (stats == null) return Collections.emptyMap();
+		return Collections.unmodifiableMap(new LinkedHashMap<String,Long>(stats));
+	}
+
+	/** This result, with the time it took. */
+	public EquivalenceResult withNanos(final long nanos) {
+		return new EquivalenceResult(verdict, engine, counterexample, differingOutputs, stats, nanos);
+	}
+
+	/** This result, with more counters after those it has. */
+	public EquivalenceResult withStats(final Map<String,Long> more) {
+		final Map<String,Long> merged = new LinkedHashMap<String,Long>(stats);
+		merged.putAll(more);
+		return new EquivalenceResult(verdict, engine, counterexample, differingOutputs, freeze(merged), nanos);
+	}
+
+	/** This result, attributed to a different engine. */
+	public EquivalenceResult withEngine(final String engine) {
+		return new EquivalenceResult(verdict, engine, counterexample, differingOutputs, stats, nanos);
+	}
+
+	public boolean isEquivalent() {
+		return verdict == Verdict.EQUIVALENT;
+	}
+
+	/**
+	 * The counterexample as a W program with one single-step waveform per
+	 * input, ready to be fed to a simulator.
+	 */
+	public WProgram toWProgram() {
+		if (counterexample == null) throw new IllegalStateException("no counterexample");
+		final List<Waveform> waveforms = new ArrayList<Waveform>(counterexample.size());
+		for (final Map.Entry<String,Boolean> e : counterexample.entrySet()) {
+			waveforms.add(new Waveform(e.getKey()).append(e.getValue() ? "1" : "0"));
+		}
+		return new WProgram(waveforms);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder();
+		b.append(verdict).append(" (").append(engine);
+		if (nanos > 0) {
+			b.append(", ").append(nanos / 1000).append("us");
+		}
+		for (final Map.Entry<String,Long> e : stats.entrySet()) {
+			b.append(", ").append(e.getKey()).append('=').append(e.getValue());
+		}
+		b.append(')');
+		if (counterexample != null) {
+			b.append(" counterexample ").append(counterexample);
+			b.append(" differing outputs ").append(differingOutputs);
+		}
+		return b.toString();
+	}
+}
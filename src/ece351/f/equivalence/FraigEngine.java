@@ -0,0 +1,107 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.VarExpr;
+import ece351.f.aig.AIG;
+import ece351.f.aig.ExprToAIG;
+import ece351.f.aig.Fraig;
+import ece351.f.ast.FProgram;
+
+/**
+ * Decide equivalence by SAT sweeping. Both programs go into one AIG,
+ * which Fraig reduces by merging internal nodes that are proven equal;
+ * then each pair of outputs is compared. For structurally similar
+ * programs (e.g. a program and its simplification) the outputs usually
+ * end up as the same literal. Never gives up, unless it is given a 
+ * conflict budget for the final check of each pair of outputs or the
+ * thread is interrupted.
+ */
+public final class FraigEngine implements EquivalenceEngine {
+
+	private final long maxConflicts;
+
+	public FraigEngine() {
+		this(-1);
+	}
+
+	/** Give up after maxConflicts conflicts per output (negative for no limit). */
+	public FraigEngine(final long maxConflicts) {
+		this.maxConflicts = maxConflicts;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		try {
+			return sweep(a, b);
+		} catch (final CancellationException e) {
+			return EquivalenceResult.unknown(toString(), null);
+		}
+	}
+
+	private EquivalenceResult sweep(final FProgram a, final FProgram b) {
+		final ExprToAIG builder = new ExprToAIG(new AIG());
+		final int[] outputsA = new int[a.formulas.size()];
+		final int[] outputsB = new int[a.formulas.size()];
+		final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+		for (int i = 0; i < outputsA.length; i++) {
+			final AssignmentStatement fa = a.formulas.get(i);
+			final AssignmentStatement fb = formulasB.get(fa.outputVar);
+			outputsA[i] = builder.build(fa.expr);
+			// a missing output can never match
+			outputsB[i] = fb == null ? AIG.not(outputsA[i]) : builder.build(fb.expr);
+		}
+		final Fraig fraig = new Fraig(builder.aig);
+		final Map<String,Long> stats = new LinkedHashMap<String,Long>();
+		stats.put("ands", (long) builder.aig.numAnds());
+		stats.put("proved", (long) fraig.proved());
+		stats.put("refuted", (long) fraig.refuted());
+		stats.put("undecided", (long) fraig.undecided());
+		for (int i = 0; i < outputsA.length; i++) {
+			final boolean[] cex = fraig.counterexample(outputsA[i], outputsB[i], maxConflicts);
+			if (cex != null) {
+				final Map<String,Boolean> m = new LinkedHashMap<String,Boolean>();
+				for (final String input : TruthTableEngine.inputVars(a, b)) {
+					final int node = AIG.node(builder.inputs().get(input));
+					m.put(input, cex[builder.aig.inputIndex(node)]);
+				}
+				return EquivalenceResult.refuted(toString(), a, b, m, stats);
+			}
+		}
+		return EquivalenceResult.equivalent(toString(), stats);
+	}
+
+	@Override
+	public String toString() {
+		return "FRAIG";
+	}
+}
@@ -0,0 +1,108 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.VarExpr;
+import ece351.f.ast.FProgram;
+import ece351.util.PersistentVector;
+
+/**
+ * Equivalence checking across revisions of a design. Outputs are checked
+ * independently (see Equivalence.check()), so when one formula changes
+ * only its output needs a new proof. Equivalence asks pending() which 
+ * outputs those are before it runs any engine: outputs whose two formulas 
+ * have the same canonical digest are equivalent without any proof, and
+ * outputs that EquivalenceCache already knows to be equivalent need none
+ * either. Checking a revision against its predecessor thus costs one 
+ * engine call per changed formula. The result of a multi-output check
+ * counts the outputs that were reused and those that were checked.
+ */
+public final class IncrementalEquivalence {
+
+	private IncrementalEquivalence() {
+		throw new UnsupportedOperationException();
+	}
+
+	/** One output that needs a proof: its formula in each program, and the cache key of the pair. */
+	static final class Output {
+		final FProgram a;
+		final FProgram b;
+		final String key;
+
+		private Output(final FProgram a, final FProgram b, final String key) {
+			this.a = a;
+			this.b = b;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * The outputs of a that need a proof against b, in the order of a, or
+	 * null if b lacks one of them. Outputs that cache knows to differ are
+	 * proved again, for their counterexample.
+	 */
+	static List<Output> pending(final FProgram a, final FProgram b, final EquivalenceCache cache) {
+		final Map<String,String> digestsA = CanonicalHash.ofFormulas(a);
+		final Map<String,String> digestsB = CanonicalHash.ofFormulas(b);
+		final List<Output> pending = new ArrayList<Output>();
+		final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+		for (final AssignmentStatement fa : a.formulas) {
+			final AssignmentStatement fb = formulasB.get(fa.outputVar);
+			if (fb == null) return null;
+			final String output = fa.outputVar.identifier;
+			if (digestsA.get(output).equals(digestsB.get(output))) continue;
+			final FProgram pa = new FProgram(PersistentVector.of(fa));
+			final FProgram pb = new FProgram(PersistentVector.of(fb));
+			final String key = EquivalenceCache.key(pa, pb);
+			if (Boolean.TRUE.equals(cache.get(key))) continue;
+			pending.add(new Output(pa, pb, key));
+		}
+		return pending;
+	}
+
+	/**
+	 * The outputs of after whose formulas differ from those of before,
+	 * including outputs that before does not have.
+	 */
+	public static SortedSet<String> changedOutputs(final FProgram before, final FProgram after) {
+		final Map<String,String> old = CanonicalHash.ofFormulas(before);
+		final SortedSet<String> changed = new TreeSet<String>();
+		for (final Map.Entry<String,String> e : CanonicalHash.ofFormulas(after).entrySet()) {
+			if (!e.getValue().equals(old.get(e.getKey()))) {
+				changed.add(e.getKey());
+			}
+		}
+		return changed;
+	}
+}
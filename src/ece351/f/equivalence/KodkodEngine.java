@@ -0,0 +1,116 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ece351.f.ast.FProgram;
+import ece351.f.ast.KodkodConverter;
+
+/**
+ * Hand the miter to Kodkod directly, skipping Alloy's parser and type
+ * checker. Never gives up unless the checking thread is interrupted, or
+ * too many abandoned solves are still running.
+ */
+public final class KodkodEngine implements EquivalenceEngine {
+
+	/** 
+	 * Kodkod does not poll for interrupts, so it runs here, where an
+	 * abandoned solve can finish without holding up the checking thread.
+	 * Bounded like the pool of RunAlloy351: abandoned solves keep their
+	 * threads busy, so once the pool and its queue are full a check is
+	 * rejected (and the engine gives up) rather than starting yet another.
+	 */
+	private static final int THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int QUEUE = 4 * THREADS;
+	private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(THREADS, THREADS,
+			60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE), new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "kodkod");
+					t.setDaemon(true);
+					return t;
+				}
+			}, new ThreadPoolExecutor.AbortPolicy());
+	static {
+		POOL.allowCoreThreadTimeOut(true);
+	}
+
+	/** The solves running or queued, abandoned or not. */
+	static int backlog() {
+		return POOL.getActiveCount() + POOL.getQueue().size();
+	}
+
+	/** The most solves that can be running or queued at once. */
+	static int capacity() {
+		return THREADS + QUEUE;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		if (Thread.currentThread().isInterrupted()) {
+			return EquivalenceResult.unknown(toString(), null);
+		}
+		final Future<Map<String,Boolean>> found;
+		try {
+			found = POOL.submit(new Callable<Map<String,Boolean>>() {
+				@Override
+				public Map<String,Boolean> call() {
+					return KodkodConverter.counterexample(a, b);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			// too many abandoned solves are still running
+			return EquivalenceResult.unknown(toString(), null);
+		}
+		try {
+			final Map<String,Boolean> cex = found.get();
+			return cex == null
+					? EquivalenceResult.equivalent(toString(), null)
+					: EquivalenceResult.refuted(toString(), a, b, cex, null);
+		} catch (final InterruptedException e) {
+			found.cancel(true);
+			Thread.currentThread().interrupt();
+			return EquivalenceResult.unknown(toString(), null);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Kodkod";
+	}
+}
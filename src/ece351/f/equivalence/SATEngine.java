@@ -0,0 +1,116 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.VarExpr;
+import ece351.f.ast.FProgram;
+import ece351.f.sat.Solver;
+import ece351.f.sat.Tseitin;
+
+/**
+ * Decide equivalence with the in-process SAT solver. The two programs
+ * are joined into a miter: each pair of outputs feeds an xor, and the
+ * miter is satisfiable exactly when some xor can be true, i.e. when some
+ * input assignment distinguishes the programs. No files are written and
+ * nothing is shared between calls, so checks may run concurrently.
+ */
+public final class SATEngine implements EquivalenceEngine {
+
+	/** Where to dump the miter CNF, or null. */
+	private final PrintWriter dimacs;
+	private final long maxConflicts;
+
+	public SATEngine() {
+		this(null, -1);
+	}
+
+	/** Give up after maxConflicts conflicts (negative for no limit). */
+	public SATEngine(final long maxConflicts) {
+		this(null, maxConflicts);
+	}
+
+	/** Also write each miter to dimacs in DIMACS CNF format. */
+	public SATEngine(final PrintWriter dimacs) {
+		this(dimacs, -1);
+	}
+
+	public SATEngine(final PrintWriter dimacs, final long maxConflicts) {
+		this.dimacs = dimacs;
+		this.maxConflicts = maxConflicts;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		final Tseitin miter = new Tseitin(new Solver());
+		final List<Integer> diffs = new ArrayList<Integer>();
+		final Map<VarExpr,AssignmentStatement> formulasB = b.formulasByOutput();
+		for (final AssignmentStatement fa : a.formulas) {
+			final AssignmentStatement fb = formulasB.get(fa.outputVar);
+			if (fb == null) {
+				diffs.add(miter.constant(true));
+			} else {
+				diffs.add(miter.xor(miter.encode(fa.expr), miter.encode(fb.expr)));
+			}
+		}
+		final int[] some = new int[diffs.size()];
+		for (int i = 0; i < some.length; i++) {
+			some[i] = diffs.get(i);
+		}
+		final Solver solver = miter.solver;
+		solver.addClause(some);
+		if (dimacs != null) {
+			synchronized (dimacs) {
+				solver.toDimacs(dimacs);
+			}
+		}
+		final Solver.Result r = solver.solve(maxConflicts);
+		final Map<String,Long> stats = new LinkedHashMap<String,Long>();
+		stats.put("vars", (long) solver.numVars());
+		stats.put("clauses", (long) solver.numClauses());
+		stats.put("conflicts", solver.conflicts());
+		stats.put("decisions", solver.decisions());
+		if (r == Solver.Result.UNSAT) return EquivalenceResult.equivalent(toString(), stats);
+		if (r == Solver.Result.UNKNOWN) return EquivalenceResult.unknown(toString(), stats);
+		final Map<String,Boolean> m = new LinkedHashMap<String,Boolean>();
+		for (final String input : TruthTableEngine.inputVars(a, b)) {
+			m.put(input, solver.value(miter.vars().get(input)));
+		}
+		return EquivalenceResult.refuted(toString(), a, b, m, stats);
+	}
+
+	@Override
+	public String toString() {
+		return "SAT";
+	}
+}
@@ -0,0 +1,104 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import ece351.f.ast.FProgram;
+
+/**
+ * A cheap filter for non-equivalent programs: evaluate both programs on
+ * random input vectors, 64 per long. Programs that differ usually differ
+ * on many vectors, so a difference is almost always found at once, and
+ * the vector that exposed it is a counterexample. Agreement on every 
+ * vector proves nothing, so then the engine gives up and leaves the 
+ * decision to an exact engine.
+ * 
+ * The vectors come from a fixed seed, so results are reproducible.
+ */
+public final class SimulationEngine implements EquivalenceEngine {
+
+	public static final int DEFAULT_VECTORS = 4096;
+	public static final long DEFAULT_SEED = 351;
+
+	private final int words;
+	private final long seed;
+
+	public SimulationEngine() {
+		this(DEFAULT_VECTORS, DEFAULT_SEED);
+	}
+
+	/** Simulate vectors random input vectors (rounded up to a multiple of 64). */
+	public SimulationEngine(final int vectors, final long seed) {
+		if (vectors <= 0) throw new IllegalArgumentException("vectors must be positive: " + vectors);
+		this.words = (vectors + 63) / 64;
+		this.seed = seed;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		final Map<String,Long> stats = Collections.singletonMap("vectors", 64L * words);
+		final Map<String,Boolean> cex = counterexample(a, b);
+		return cex == null
+				? EquivalenceResult.unknown(toString(), stats)
+				: EquivalenceResult.refuted(toString(), a, b, cex, stats);
+	}
+
+	/**
+	 * An assignment to the inputs under which some output of a differs 
+	 * from the same output of b, or null if none was found.
+	 */
+	public Map<String,Boolean> counterexample(final FProgram a, final FProgram b) {
+		final List<String> inputs = new ArrayList<String>(TruthTableEngine.inputVars(a, b));
+		final Random random = new Random(seed);
+		final long[][] columns = new long[inputs.size()][words];
+		for (final long[] column : columns) {
+			for (int w = 0; w < words; w++) {
+				column[w] = random.nextLong();
+			}
+		}
+		final BitParallelEvaluator evaluator = new BitParallelEvaluator(inputs, words);
+		evaluator.setInputs(columns);
+		final long bit = evaluator.firstDifference(a, b, -1L);
+		if (bit < 0) return null;
+		final Map<String,Boolean> m = new LinkedHashMap<String,Boolean>();
+		for (int i = 0; i < inputs.size(); i++) {
+			m.put(inputs.get(i), ((columns[i][(int) (bit / 64)] >>> (bit % 64)) & 1) != 0);
+		}
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return "Simulation";
+	}
+}
@@ -0,0 +1,75 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.Expr;
+import ece351.f.analysis.DetermineInputVars;
+
+/**
+ * A signature of the boolean function that an Expr computes: its values
+ * on 64 input vectors, in which the value of each variable depends only
+ * on the variable's name. Equivalent Exprs have equal signatures, even
+ * if one mentions inputs that the other does not (such inputs cannot 
+ * matter). Different signatures prove that Exprs are not equivalent;
+ * equal ones prove nothing.
+ */
+public final class SimulationSignature {
+
+	private SimulationSignature() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static long of(final Expr e) {
+		final List<String> inputs = new ArrayList<String>(DetermineInputVars.inputVars(new AssignmentStatement("_signature", e)));
+		final long[][] columns = new long[inputs.size()][1];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i][0] = column(inputs.get(i));
+		}
+		final BitParallelEvaluator evaluator = new BitParallelEvaluator(inputs, 1);
+		evaluator.setInputs(columns);
+		return evaluator.evaluate(e)[0];
+	}
+
+	/** 64 pseudo-random values for the variable called name (SplitMix64 over its characters). */
+	private static long column(final String name) {
+		long h = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < name.length(); i++) {
+			h = mix(h + name.charAt(i));
+		}
+		return mix(h);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
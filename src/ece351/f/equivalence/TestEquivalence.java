@@ -0,0 +1,235 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+import ece351.util.CommandLine;
+import ece351.w.ast.WProgram;
+
+public class TestEquivalence extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** Verdicts left in the shared cache by earlier tests would skip the engines. */
+	@Before
+	public void clearCache() {
+		EquivalenceCache.shared().clear();
+	}
+
+	/** n outputs, each over its own inputs; output k is negated in the last input if k == flip. */
+	private static FProgram wide(final int n, final int flip) {
+		final StringBuilder b = new StringBuilder();
+		for (int k = 0; k < n; k++) {
+			b.append("o").append(k).append(" <= (a").append(k).append(" and b").append(k).append(") or ");
+			b.append(k == flip ? "not " : "").append("c").append(k).append(";\n");
+		}
+		return parse(b.toString());
+	}
+
+	@Test
+	public void perOutput() {
+		final FProgram p = wide(32, -1);
+		assertTrue(Equivalence.check(p, wide(32, -1).simplify()));
+		assertFalse(Equivalence.check(p, wide(32, 0)));
+		assertFalse(Equivalence.check(p, wide(32, 31)));
+		// outputs used as operands are free inputs, not references
+		final FProgram q = parse("x <= a and b; y <= x or c;");
+		assertTrue(Equivalence.check(q, parse("y <= c or x; x <= b and a;")));
+		assertFalse(Equivalence.check(q, parse("x <= a and b; y <= (a and b) or c;")));
+	}
+
+	@Test
+	public void differentOutputs() {
+		final FProgram p = parse("x <= a; y <= b;");
+		final FProgram q = parse("x <= a; y <= b; z <= c;");
+		// in both orders, and neither verdict is cached for the other
+		assertFalse(Equivalence.check(p, q));
+		assertFalse(Equivalence.check(q, p));
+		assertFalse(Equivalence.check(q, p));
+		assertFalse(Equivalence.check(p, q));
+		assertFalse(Equivalence.check(Equivalence.defaultEngines(), p, q));
+		assertEquals(0, EquivalenceCache.shared().size());
+	}
+
+	@Test
+	public void examine() {
+		final FProgram p = wide(8, -1);
+		final EquivalenceResult same = Equivalence.examine(p, parse(p.toString()));
+		assertTrue(same.isEquivalent());
+		assertNull(same.counterexample);
+		final EquivalenceResult r = Equivalence.examine(p, wide(8, 5));
+		assertEquals(Verdict.NOT_EQUIVALENT, r.verdict);
+		// the counterexample covers every input, not just those of o5
+		assertEquals(24, r.counterexample.size());
+		assertEquals(new TreeSet<String>(Arrays.asList("o5")), r.differingOutputs);
+		// o5 differs from its negated twin only when a5 and b5 are not both true
+		assertFalse(r.counterexample.get("a5") && r.counterexample.get("b5"));
+		final WProgram w = r.toWProgram();
+		assertEquals(24, w.waveforms.size());
+		// a second look, with the verdict cached, still has a counterexample
+		final EquivalenceResult again = Equivalence.examine(p, wide(8, 5));
+		assertEquals(Verdict.NOT_EQUIVALENT, again.verdict);
+		assertEquals(r.differingOutputs, again.differingOutputs);
+		assertEquals(24, again.toWProgram().waveforms.size());
+		final FProgram and = parse("x <= a and b;");
+		final FProgram or = parse("x <= a or b;");
+		assertNotNull(Equivalence.examine(and, or).toWProgram());
+		assertNotNull(Equivalence.examine(and, or).toWProgram());
+	}
+
+	/** x is the pigeonhole formula for n+1 pigeons in n holes: always false, and hard to prove. */
+	static FProgram pigeonhole(final int holes) {
+		return parse("x <= " + pigeonholeExpr(holes) + ";");
+	}
+
+	private static String pigeonholeExpr(final int holes) {
+		final StringBuilder b = new StringBuilder();
+		for (int p = 0; p <= holes; p++) {
+			b.append("(");
+			for (int h = 0; h < holes; h++) {
+				b.append(h > 0 ? " or " : "").append("p").append(p).append("h").append(h);
+			}
+			b.append(") and ");
+		}
+		for (int h = 0; h < holes; h++) {
+			for (int p = 0; p <= holes; p++) {
+				for (int q = p + 1; q <= holes; q++) {
+					b.append("(not p").append(p).append("h").append(h).append(" or not p").append(q).append("h").append(h).append(") and ");
+				}
+			}
+		}
+		return b.append("'1'").toString();
+	}
+
+	@Test
+	public void abandonSlowOutputs() throws InterruptedException {
+		// y keeps an unbudgeted SAT solver busy long after x has differed
+		final FProgram a = parse("y <= " + pigeonholeExpr(12) + "; x <= a;");
+		final FProgram b = parse("y <= '0'; x <= not a;");
+		try {
+			Equivalence.configure(new CommandLine("-engines", "sat"));
+			assertEquals(Verdict.NOT_EQUIVALENT, Equivalence.examine(a, b).verdict);
+			final long stop = System.nanoTime() + 2000000000L;
+			while (Equivalence.runningOutputs() > 0 && System.nanoTime() < stop) {
+				Thread.sleep(10);
+			}
+			assertEquals("the check of y must be abandoned", 0, Equivalence.runningOutputs());
+		} finally {
+			Equivalence.configure(null);
+		}
+	}
+
+	@Test
+	public void budget() {
+		final FProgram p = pigeonhole(11);
+		final FProgram zero = parse("x <= '0';");
+		try {
+			// simulation alone can never prove equivalence
+			Equivalence.configure(new CommandLine("-engines", "sim"));
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(zero, parse("x <= a and not a;")).verdict);
+			try {
+				Equivalence.check(zero, parse("x <= a and not a;"));
+				fail("should have given up");
+			} catch (final IllegalStateException e) {
+				// expected
+			}
+			Equivalence.configure(new CommandLine("-engines", "sat", "-conflicts", "100"));
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(p, zero).verdict);
+			Equivalence.configure(new CommandLine("-engines", "sat", "-timeout", "200"));
+			final long start = System.nanoTime();
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(p, zero).verdict);
+			assertTrue(System.nanoTime() - start < 10000000000L);
+			assertFalse("the alarm must not leak an interrupt", Thread.currentThread().isInterrupted());
+			// a fallback still reaches the verdict
+			Equivalence.configure(new CommandLine("-engines", "sim,fraig", "-conflicts", "100"));
+			assertFalse(Equivalence.check(parse("x <= a or b;"), parse("x <= a and b;")));
+		} finally {
+			Equivalence.configure(null);
+		}
+	}
+
+	/** An engine that ignores interrupts and outlasts its budget, and may first interrupt itself as a caller would. */
+	private static EquivalenceEngine slow(final boolean cancel) {
+		return new EquivalenceEngine() {
+			@Override
+			public EquivalenceResult check(final FProgram a, final FProgram b) {
+				if (cancel) Thread.currentThread().interrupt();
+				final long stop = System.nanoTime() + 200000000L;
+				while (System.nanoTime() < stop) {
+					Thread.yield();
+				}
+				return EquivalenceResult.unknown("slow", null);
+			}
+		};
+	}
+
+	@Test
+	public void callerInterruptSurvivesAlarm() {
+		final FProgram p = parse("x <= a;");
+		try {
+			Equivalence.configure(new CommandLine("-timeout", "20"));
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(Arrays.asList(slow(true)), p, p).verdict);
+			assertTrue("the caller's interrupt must survive", Thread.interrupted());
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(Arrays.asList(slow(false)), p, p).verdict);
+			assertFalse("the alarm must not leak an interrupt", Thread.interrupted());
+		} finally {
+			Thread.interrupted();
+			Equivalence.configure(null);
+		}
+	}
+
+	@Test
+	public void badOptions() {
+		for (final String[] args : new String[][]{
+				{"-timeout", "-1"}, {"-conflicts", "-1"}, {"-nodes", "-1"}, {"-engines", "sim,bogus"}}) {
+			try {
+				new CommandLine(args);
+				fail("should have rejected " + Arrays.toString(args));
+			} catch (final IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
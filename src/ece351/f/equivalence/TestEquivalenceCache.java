@@ -0,0 +1,102 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+
+public class TestEquivalenceCache extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void keyIsOrderIndependent() {
+		final FProgram p = parse("x <= a and (b or c); y <= a or not b;");
+		final FProgram q = parse("y <= not b or a; x <= (c or b) and a;");
+		final FProgram r = parse("x <= a or (b and c); y <= a or not b;");
+		assertEquals(CanonicalHash.of(p), CanonicalHash.of(q));
+		assertFalse(CanonicalHash.of(p).equals(CanonicalHash.of(r)));
+		assertEquals(EquivalenceCache.key(p, r), EquivalenceCache.key(r, q));
+		// operands of non-commutative structure are not confused
+		assertFalse(CanonicalHash.of(parse("x <= not a and b;")).equals(CanonicalHash.of(parse("x <= a and not b;"))));
+		assertFalse(CanonicalHash.of(parse("x <= a;")).equals(CanonicalHash.of(parse("y <= a;"))));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		final EquivalenceCache cache = new EquivalenceCache(2);
+		cache.put("a", true);
+		cache.put("b", false);
+		assertEquals(Boolean.TRUE, cache.get("a"));
+		cache.put("c", true);
+		assertNull(cache.get("b"));
+		assertEquals(Boolean.TRUE, cache.get("a"));
+		assertEquals(Boolean.TRUE, cache.get("c"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void persists() throws Exception {
+		final File store = File.createTempFile("equivalence", ".cache");
+		try {
+			final EquivalenceCache first = new EquivalenceCache(16, store);
+			first.put("k1", true);
+			first.put("k2", false);
+			first.save();
+			final EquivalenceCache second = new EquivalenceCache(16, store);
+			assertEquals(Boolean.TRUE, second.get("k1"));
+			assertEquals(Boolean.FALSE, second.get("k2"));
+			assertEquals(2, second.size());
+		} finally {
+			store.delete();
+		}
+	}
+
+	@Test
+	public void repeatedChecksHitTheCache() {
+		final FProgram p = parse("x <= (a and b) or (a and c) or (d and e);");
+		final FProgram q = parse("x <= (e and d) or (a and (b or c));");
+		final EquivalenceCache cache = EquivalenceCache.shared();
+		assertTrue(p.equivalent(q));
+		final long hits = cache.hits();
+		assertTrue(q.equivalent(p));
+		assertTrue(p.equivalent(q));
+		assertEquals(hits + 2, cache.hits());
+	}
+}
@@ -0,0 +1,113 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+import ece351.util.CommandLine;
+
+public class TestIncrementalEquivalence extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** The proofs are kept in the shared cache, so each test starts without any. */
+	@Before
+	public void clearCache() {
+		EquivalenceCache.shared().clear();
+	}
+
+	/** n outputs over their own inputs; output k uses c in place of b if k == changed. */
+	private static FProgram design(final int n, final int changed) {
+		final StringBuilder b = new StringBuilder();
+		for (int k = 0; k < n; k++) {
+			b.append("o").append(k).append(" <= (a").append(k).append(" and '1') or (");
+			b.append(k == changed ? "c" : "b").append(k).append(" and d").append(k).append(") or '0';\n");
+		}
+		return parse(b.toString());
+	}
+
+	@Test
+	public void reusesUnchangedOutputs() {
+		final FProgram v1 = design(16, -1);
+		EquivalenceResult r = Equivalence.examine(v1, v1.simplify());
+		assertTrue(r.isEquivalent());
+		assertEquals(Long.valueOf(16), r.stats.get("checked"));
+		// edit one formula, and re-simplify
+		final FProgram v2 = design(16, 7);
+		r = Equivalence.examine(v2, v2.simplify());
+		assertTrue(r.isEquivalent());
+		assertEquals(Long.valueOf(1), r.stats.get("checked"));
+		assertEquals(Long.valueOf(15), r.stats.get("reused"));
+		// a broken edit is caught, with a counterexample over every input
+		r = Equivalence.examine(v2, design(16, -1).simplify());
+		assertEquals(Verdict.NOT_EQUIVALENT, r.verdict);
+		assertEquals(new TreeSet<String>(Arrays.asList("o7")), r.differingOutputs);
+		assertEquals(49, r.counterexample.size());
+	}
+
+	@Test
+	public void revisions() {
+		final FProgram v1 = design(4, -1);
+		final FProgram v2 = design(4, 2);
+		assertEquals(new TreeSet<String>(Arrays.asList("o2")), IncrementalEquivalence.changedOutputs(v1, v2));
+		// identical formulas need no proof
+		final EquivalenceResult r = Equivalence.examine(v1, parse(v1.toString()));
+		assertTrue(r.isEquivalent());
+		assertEquals(Long.valueOf(0), r.stats.get("checked"));
+		assertFalse(Equivalence.examine(v1, v2).isEquivalent());
+	}
+
+	@Test
+	public void undecidedKeepsStats() {
+		final FProgram v1 = design(4, -1);
+		try {
+			// simulation alone can never prove the simplified outputs equivalent
+			Equivalence.configure(new CommandLine("-engines", "sim"));
+			final EquivalenceResult r = Equivalence.examine(v1, v1.simplify());
+			assertEquals(Verdict.UNKNOWN, r.verdict);
+			assertEquals(Long.valueOf(0), r.stats.get("reused"));
+			assertEquals(Long.valueOf(4), r.stats.get("checked"));
+			assertTrue(r.stats.containsKey("vectors"));
+		} finally {
+			Equivalence.configure(null);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+import ece351.util.CommandLine;
+
+public class TestKodkodEngine extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** Verdicts left in the shared cache by earlier tests would skip the engine. */
+	@Before
+	public void clearCache() {
+		EquivalenceCache.shared().clear();
+	}
+
+	@Test
+	public void equivalent() {
+		final FProgram p = parse("x <= a and b; y <= a or c;");
+		final EquivalenceResult r = new KodkodEngine().check(p, parse("y <= c or a; x <= not (not a or not b);"));
+		assertEquals(Verdict.EQUIVALENT, r.verdict);
+	}
+
+	@Test
+	public void refuted() {
+		final FProgram p = parse("x <= a and b; y <= a or c;");
+		final EquivalenceResult r = new KodkodEngine().check(p, parse("x <= a and b; y <= a or b;"));
+		assertEquals(Verdict.NOT_EQUIVALENT, r.verdict);
+		final Map<String,Boolean> cex = r.counterexample;
+		// y differs exactly when b differs from c and a is false
+		assertFalse(cex.get("a"));
+		assertTrue(cex.get("b") != cex.get("c"));
+	}
+
+	@Test
+	public void interrupted() {
+		Thread.currentThread().interrupt();
+		try {
+			assertEquals(Verdict.UNKNOWN, new KodkodEngine().check(TestEquivalence.pigeonhole(11), parse("x <= '0';")).verdict);
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	public void timeout() {
+		try {
+			Equivalence.configure(new CommandLine("-engines", "kodkod", "-timeout", "200"));
+			final long start = System.nanoTime();
+			assertEquals(Verdict.UNKNOWN, Equivalence.examine(TestEquivalence.pigeonhole(11), parse("x <= '0';")).verdict);
+			assertTrue(System.nanoTime() - start < 10000000000L);
+			assertFalse("the alarm must not leak an interrupt", Thread.currentThread().isInterrupted());
+		} finally {
+			Equivalence.configure(null);
+		}
+	}
+
+	@Test
+	public void abandonedSolvesAreBounded() {
+		try {
+			Equivalence.configure(new CommandLine("-engines", "kodkod", "-timeout", "20"));
+			// more abandoned solves than the pool can hold
+			for (int i = 0; i <= KodkodEngine.capacity(); i++) {
+				EquivalenceCache.shared().clear();
+				assertEquals(Verdict.UNKNOWN, Equivalence.examine(TestEquivalence.pigeonhole(11), parse("x <= '0';")).verdict);
+			}
+			assertTrue(KodkodEngine.backlog() <= KodkodEngine.capacity());
+		} finally {
+			Equivalence.configure(null);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+
+public class TestSimulationEngine extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** Evaluate both programs on one vector and check that they differ. */
+	private static void assertDiffer(final FProgram a, final FProgram b, final Map<String,Boolean> vector) {
+		final List<String> inputs = new ArrayList<String>(vector.keySet());
+		final long[][] columns = new long[inputs.size()][1];
+		for (int i = 0; i < inputs.size(); i++) {
+			columns[i][0] = vector.get(inputs.get(i)) ? -1L : 0L;
+		}
+		final BitParallelEvaluator evaluator = new BitParallelEvaluator(inputs, 1);
+		evaluator.setInputs(columns);
+		assertEquals(0, evaluator.firstDifference(a, b, 1L));
+	}
+
+	@Test
+	public void refutes() {
+		final SimulationEngine engine = new SimulationEngine();
+		final FProgram p = parse("x <= (a and b) or (c and d); y <= a or e;");
+		final FProgram q = parse("x <= (a and b) or (c and not d); y <= a or e;");
+		final Map<String,Boolean> cex = engine.counterexample(p, q);
+		assertNotNull(cex);
+		assertEquals(5, cex.size());
+		assertDiffer(p, q, cex);
+		assertEquals(Verdict.NOT_EQUIVALENT, engine.check(p, q).verdict);
+	}
+
+	@Test
+	public void cannotProveEquivalence() {
+		final SimulationEngine engine = new SimulationEngine();
+		final FProgram p = parse("x <= (a and b) or (a and c);");
+		assertEquals(Verdict.UNKNOWN, engine.check(p, parse("x <= a and (b or c);")).verdict);
+		// a difference on one vector in 2^24 is practically invisible
+		final StringBuilder and = new StringBuilder("x <= i0");
+		for (int i = 1; i < 24; i++) {
+			and.append(" and i").append(i);
+		}
+		final FProgram q = parse(and + ";");
+		assertEquals(Verdict.UNKNOWN, engine.check(q, parse("x <= '0';")).verdict);
+		// but the exact engines behind it still find it
+		assertFalse(Equivalence.check(q, parse("x <= '0';")));
+	}
+}
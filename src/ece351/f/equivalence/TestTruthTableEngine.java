@@ -0,0 +1,108 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.util.BaseTest351;
+
+public class TestTruthTableEngine extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void counterexample() {
+		final TruthTableEngine engine = new TruthTableEngine();
+		final FProgram p = parse("x <= a and b;");
+		final Map<String,Boolean> expected = new LinkedHashMap<String,Boolean>();
+		expected.put("a", true);
+		expected.put("b", false);
+		assertEquals(expected, engine.counterexample(p, parse("x <= a and not b;")));
+		assertNull(engine.counterexample(p, parse("x <= not (not a or not b);")));
+	}
+
+	@Test
+	public void manyInputs() {
+		// differ only in the last row, which lies in the last word of the last block
+		final StringBuilder and = new StringBuilder("x <= i0");
+		for (int i = 1; i < 18; i++) {
+			and.append(" and i").append(i);
+		}
+		final FProgram p = parse(and + ";");
+		final FProgram q = parse("x <= '0';" + and.toString().replace("x <=", " y <=") + ";");
+		final TruthTableEngine engine = new TruthTableEngine();
+		final Map<String,Boolean> cex = engine.counterexample(p, parse("x <= '0';"));
+		assertEquals(18, cex.size());
+		for (final boolean v : cex.values()) {
+			assertTrue(v);
+		}
+		assertEquals(Verdict.EQUIVALENT, engine.check(p, p).verdict);
+		assertEquals(Verdict.NOT_EQUIVALENT, engine.check(q, parse("x <= '0'; y <= '0';")).verdict);
+	}
+
+	@Test
+	public void threshold() {
+		final FProgram p = parse("x <= a or b or c;");
+		assertEquals(Verdict.UNKNOWN, new TruthTableEngine(3).check(p, p).verdict);
+		assertEquals(Verdict.EQUIVALENT, new TruthTableEngine(4).check(p, p).verdict);
+	}
+
+	@Test
+	public void agreesWithBDDs() {
+		final TruthTableEngine tt = new TruthTableEngine();
+		final BDDEngine bdd = new BDDEngine();
+		final File[] files = new File("tests/f").listFiles();
+		for (final File f : files) {
+			if (!f.getName().endsWith(".f")) continue;
+			final FProgram original = parse(f.getPath());
+			if (TruthTableEngine.inputVars(original, original).size() >= TruthTableEngine.DEFAULT_THRESHOLD) continue;
+			final FProgram simplified = original.simplify();
+			assertEquals(f.getName(), Verdict.EQUIVALENT, tt.check(original, simplified).verdict);
+			// compare against a different program with the same outputs
+			for (final File g : files) {
+				if (!g.getName().endsWith(".f") || g.equals(f)) continue;
+				final FProgram other = parse(g.getPath());
+				if (!other.outputVars().equals(original.outputVars())) continue;
+				if (TruthTableEngine.inputVars(original, other).size() >= TruthTableEngine.DEFAULT_THRESHOLD) continue;
+				assertEquals(f.getName() + " " + g.getName(), bdd.check(original, other).verdict, tt.check(original, other).verdict);
+			}
+		}
+	}
+}
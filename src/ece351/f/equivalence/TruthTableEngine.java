@@ -0,0 +1,155 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.equivalence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+
+import ece351.f.analysis.DetermineInputVars;
+import ece351.f.ast.FProgram;
+
+/**
+ * Decide equivalence by exhaustive evaluation. Each row of the truth
+ * table is one bit, so a long holds 64 rows and the gates are evaluated
+ * 64 rows at a time with word-wide and/or/not. Input i is the truth
+ * table column whose bit r is bit i of r.
+ * 
+ * The table is evaluated in blocks of BLOCK_WORDS words, so memory stays
+ * bounded and the search stops at the first block with a difference.
+ * Only practical for small input counts: the engine gives up on programs
+ * with threshold or more inputs.
+ */
+public final class TruthTableEngine implements EquivalenceEngine {
+
+	/** The 2^n table is exhaustive, so n must stay small. */
+	public static final int DEFAULT_THRESHOLD = 20;
+
+	/** Words evaluated per block (64 words = 4096 rows). */
+	private static final int BLOCK_WORDS = 64;
+
+	/** Columns of the first six inputs within one word. */
+	private static final long[] PATTERNS = {
+		0xAAAAAAAAAAAAAAAAL,
+		0xCCCCCCCCCCCCCCCCL,
+		0xF0F0F0F0F0F0F0F0L,
+		0xFF00FF00FF00FF00L,
+		0xFFFF0000FFFF0000L,
+		0xFFFFFFFF00000000L,
+	};
+
+	private final int threshold;
+
+	public TruthTableEngine() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/** Handles programs with fewer than threshold inputs. */
+	public TruthTableEngine(final int threshold) {
+		if (threshold > 63) throw new IllegalArgumentException("threshold too large: " + threshold);
+		this.threshold = threshold;
+	}
+
+	/** The inputs of both programs, sorted lexicographically. */
+	static SortedSet<String> inputVars(final FProgram a, final FProgram b) {
+		final SortedSet<String> inputs = new TreeSet<String>(DetermineInputVars.inputVars(a));
+		inputs.addAll(DetermineInputVars.inputVars(b));
+		return inputs;
+	}
+
+	@Override
+	public EquivalenceResult check(final FProgram a, final FProgram b) {
+		final int n = inputVars(a, b).size();
+		if (n >= threshold) return EquivalenceResult.unknown(toString(), null);
+		final Map<String,Long> stats = Collections.singletonMap("rows", 1L << n);
+		final Map<String,Boolean> cex;
+		try {
+			cex = counterexample(a, b);
+		} catch (final CancellationException e) {
+			return EquivalenceResult.unknown(toString(), null);
+		}
+		return cex == null
+				? EquivalenceResult.equivalent(toString(), stats)
+				: EquivalenceResult.refuted(toString(), a, b, cex, stats);
+	}
+
+	/**
+	 * An assignment to the inputs under which some output of a differs 
+	 * from the same output of b, or null if there is none. Throws a
+	 * CancellationException if the thread is interrupted.
+	 */
+	public Map<String,Boolean> counterexample(final FProgram a, final FProgram b) {
+		final List<String> inputs = new ArrayList<String>(inputVars(a, b));
+		final int n = inputs.size();
+		if (n >= threshold) throw new IllegalArgumentException("too many inputs: " + n);
+		final long rows = 1L << n;
+		final long totalWords = (rows + 63) / 64;
+		final int blockWords = (int) Math.min(BLOCK_WORDS, totalWords);
+		final long valid = rows < 64 ? (1L << rows) - 1 : -1L;
+		final BitParallelEvaluator evaluator = new BitParallelEvaluator(inputs, blockWords);
+		final long[][] columns = new long[n][blockWords];
+		for (int i = 0; i < n && i < PATTERNS.length; i++) {
+			Arrays.fill(columns[i], PATTERNS[i]);
+		}
+		for (long firstWord = 0; firstWord < totalWords; firstWord += blockWords) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("truth table interrupted");
+			}
+			// above the sixth input every word is all zeros or all ones
+			for (int i = PATTERNS.length; i < n; i++) {
+				for (int w = 0; w < blockWords; w++) {
+					columns[i][w] = (((firstWord + w) >> (i - PATTERNS.length)) & 1) != 0 ? -1L : 0L;
+				}
+			}
+			evaluator.setInputs(columns);
+			final long bit = evaluator.firstDifference(a, b, valid);
+			if (bit >= 0) {
+				return assignment(inputs, firstWord * 64 + bit);
+			}
+		}
+		return null;
+	}
+
+	private static Map<String,Boolean> assignment(final List<String> inputs, final long row) {
+		final Map<String,Boolean> m = new LinkedHashMap<String,Boolean>();
+		for (int i = 0; i < inputs.size(); i++) {
+			m.put(inputs.get(i), ((row >> i) & 1) != 0);
+		}
+		return m;
+	}
+
+	@Override
+	public String toString() {
+		return "TruthTable";
+	}
+}
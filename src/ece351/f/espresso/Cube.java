@@ -0,0 +1,192 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.espresso;
+
+import java.util.Arrays;
+
+/**
+ * A product term over n variables in positional notation: two bits per
+ * variable, bit 2i set if variable i may be 0 in the cube and bit 2i+1 
+ * set if it may be 1. So 10 is the literal i, 01 is not i, 11 means
+ * the cube does not depend on i, and 00 makes the cube empty. 
+ * Intersection, containment and cofactors are then word-wide bit 
+ * operations. Cubes are immutable.
+ */
+public final class Cube {
+
+	private static final long EVEN = 0x5555555555555555L;
+
+	public final int vars;
+	private final long[] bits;
+
+	private Cube(final int vars, final long[] bits) {
+		this.vars = vars;
+		this.bits = bits;
+	}
+
+	/** The cube that contains every point: the product of no literals. */
+	public static Cube universe(final int vars) {
+		final long[] bits = new long[(2 * vars + 63) / 64];
+		Arrays.fill(bits, -1L);
+		if ((2 * vars) % 64 != 0) {
+			bits[bits.length - 1] = (1L << ((2 * vars) % 64)) - 1;
+		}
+		return new Cube(vars, bits);
+	}
+
+	/** The cube of the single literal i (if positive) or not i. */
+	public static Cube literal(final int vars, final int i, final boolean positive) {
+		return universe(vars).lower(i, positive);
+	}
+
+	/** 0 if the cube requires variable i to be 0, 1 if it requires 1, 2 if it does not depend on i, -1 if empty in i. */
+	public int value(final int i) {
+		final int v = (int) (bits[(2 * i) / 64] >>> ((2 * i) % 64)) & 3;
+		switch (v) {
+		case 1: return 0;
+		case 2: return 1;
+		case 3: return 2;
+		default: return -1;
+		}
+	}
+
+	/** This cube with variable i free. */
+	public Cube raise(final int i) {
+		final long[] r = bits.clone();
+		r[(2 * i) / 64] |= 3L << ((2 * i) % 64);
+		return new Cube(vars, r);
+	}
+
+	/** This cube with variable i fixed to value (possibly empty). */
+	public Cube lower(final int i, final boolean value) {
+		final long[] r = bits.clone();
+		r[(2 * i) / 64] &= ~((value ? 1L : 2L) << ((2 * i) % 64));
+		return new Cube(vars, r);
+	}
+
+	/** Does some variable have neither value? */
+	public boolean isEmpty() {
+		for (int k = 0; k < bits.length; k++) {
+			final long w = bits[k];
+			// a pair is 00 exactly when neither of its bits is set
+			if (((w | (w >>> 1)) & EVEN & mask(k)) != (EVEN & mask(k))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** The pairs in use in word k (all of them, except in the last word). */
+	private long mask(final int k) {
+		final int used = 2 * vars - 64 * k;
+		return used >= 64 ? -1L : (1L << used) - 1;
+	}
+
+	public boolean isUniverse() {
+		return equals(universe(vars));
+	}
+
+	public Cube and(final Cube c) {
+		final long[] r = new long[bits.length];
+		for (int k = 0; k < r.length; k++) {
+			r[k] = bits[k] & c.bits[k];
+		}
+		return new Cube(vars, r);
+	}
+
+	/** Do this cube and c have a point in common? */
+	public boolean intersects(final Cube c) {
+		for (int k = 0; k < bits.length; k++) {
+			final long w = bits[k] & c.bits[k];
+			if (((w | (w >>> 1)) & EVEN & mask(k)) != (EVEN & mask(k))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Is every point of c in this cube? */
+	public boolean contains(final Cube c) {
+		for (int k = 0; k < bits.length; k++) {
+			if ((c.bits[k] & ~bits[k]) != 0) return false;
+		}
+		return true;
+	}
+
+	/** The smallest cube containing this one and c. */
+	public Cube supercube(final Cube c) {
+		final long[] r = new long[bits.length];
+		for (int k = 0; k < r.length; k++) {
+			r[k] = bits[k] | c.bits[k];
+		}
+		return new Cube(vars, r);
+	}
+
+	/** This cube restricted to the subspace p, or null if they are disjoint. */
+	public Cube cofactor(final Cube p) {
+		if (!intersects(p)) return null;
+		final long[] r = new long[bits.length];
+		for (int k = 0; k < r.length; k++) {
+			r[k] = (bits[k] | ~p.bits[k]) & mask(k);
+		}
+		return new Cube(vars, r);
+	}
+
+	/** Number of variables that the cube depends on. */
+	public int literals() {
+		int n = 0;
+		for (int k = 0; k < bits.length; k++) {
+			final long w = bits[k];
+			// a pair is a literal exactly when its two bits differ
+			n += Long.bitCount((w ^ (w >>> 1)) & EVEN & mask(k));
+		}
+		return n;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(bits);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof Cube)) return false;
+		final Cube that = (Cube) obj;
+		return vars == that.vars && Arrays.equals(bits, that.bits);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder(vars);
+		for (int i = 0; i < vars; i++) {
+			final int v = value(i);
+			b.append(v == 0 ? '0' : v == 1 ? '1' : v == 2 ? '-' : '~');
+		}
+		return b.toString();
+	}
+}
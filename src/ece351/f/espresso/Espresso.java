@@ -0,0 +1,306 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.espresso;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Heuristic two-level minimization in the style of Espresso-II
+ * (Brayton, Hachtel, McMullen and Sangiovanni-Vincentelli). A cover is a 
+ * list of cubes whose union is the function. Starting from the ON-set
+ * cover, each cube is EXPANDed into a prime implicant against the OFF-set,
+ * IRREDUNDANT drops the cubes covered by the others, and then the 
+ * REDUCE, EXPAND, IRREDUNDANT loop runs until the cost stops improving.
+ * Cost is the number of cubes, then the number of literals.
+ * 
+ * The OFF-set is computed by recursive complementation, which can blow
+ * up; if it would exceed {@link #MAX_COMPLEMENT} cubes then 
+ * {@link #minimize} gives up and returns null.
+ */
+public final class Espresso {
+
+	/** Largest OFF-set that we are willing to compute. */
+	public static final int MAX_COMPLEMENT = 1 << 12;
+
+	/** Bound on the REDUCE, EXPAND, IRREDUNDANT loop. */
+	private static final int MAX_ITERATIONS = 8;
+
+	private Espresso() {
+		throw new UnsupportedOperationException();
+	}
+
+	private static final class TooLarge extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Minimize the function on. Returns null if the OFF-set is too large.
+	 */
+	public static List<Cube> minimize(final List<Cube> on, final int vars) {
+		final List<Cube> offset;
+		try {
+			offset = complement(on, vars);
+		} catch (final TooLarge e) {
+			return null;
+		}
+		List<Cube> f = irredundant(expand(nonEmpty(on), offset));
+		for (int i = 0; i < MAX_ITERATIONS; i++) {
+			final List<Cube> g = irredundant(expand(reduce(f), offset));
+			if (cost(g) >= cost(f)) break;
+			f = g;
+		}
+		return f;
+	}
+
+	/** Number of cubes, then number of literals, as one comparable number. */
+	public static long cost(final List<Cube> f) {
+		long literals = 0;
+		for (final Cube c : f) {
+			literals += c.literals();
+		}
+		return ((long) f.size() << 32) + literals;
+	}
+
+	private static List<Cube> nonEmpty(final List<Cube> f) {
+		final LinkedHashSet<Cube> result = new LinkedHashSet<Cube>();
+		for (final Cube c : f) {
+			if (!c.isEmpty()) result.add(c);
+		}
+		return new ArrayList<Cube>(result);
+	}
+
+	/**
+	 * Raise each literal of each cube that can be raised without hitting
+	 * the OFF-set, and drop the cubes that the expanded cube then covers.
+	 * Cubes are expanded largest first, since those are most likely to 
+	 * swallow the others.
+	 */
+	static List<Cube> expand(final List<Cube> f, final List<Cube> offset) {
+		final List<Cube> todo = new ArrayList<Cube>(f);
+		Collections.sort(todo, BY_LITERALS);
+		final List<Cube> result = new ArrayList<Cube>();
+		while (!todo.isEmpty()) {
+			Cube c = todo.remove(0);
+			for (final int i : raiseOrder(c, offset)) {
+				final Cube raised = c.raise(i);
+				if (!intersectsAny(raised, offset)) {
+					c = raised;
+				}
+			}
+			for (int j = todo.size() - 1; j >= 0; j--) {
+				if (c.contains(todo.get(j))) todo.remove(j);
+			}
+			result.add(c);
+		}
+		return result;
+	}
+
+	/**
+	 * Literals of c, least constrained first: a literal that few OFF-set
+	 * cubes depend on is the one most likely to be raised successfully.
+	 */
+	private static List<Integer> raiseOrder(final Cube c, final List<Cube> offset) {
+		final int[] blocking = new int[c.vars];
+		for (final Cube r : offset) {
+			for (int i = 0; i < c.vars; i++) {
+				final int v = r.value(i);
+				if (v != 2 && v != c.value(i)) blocking[i]++;
+			}
+		}
+		final List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < c.vars; i++) {
+			if (c.value(i) == 0 || c.value(i) == 1) order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer a, final Integer b) {
+				return Integer.compare(blocking[a], blocking[b]);
+			}
+		});
+		return order;
+	}
+
+	/** Drop each cube that the rest of the cover still covers, smallest first. */
+	static List<Cube> irredundant(final List<Cube> f) {
+		final List<Cube> result = new ArrayList<Cube>(f);
+		final List<Cube> order = new ArrayList<Cube>(f);
+		Collections.sort(order, Collections.reverseOrder(BY_LITERALS));
+		for (final Cube c : order) {
+			result.remove(c);
+			if (!covers(result, c)) {
+				result.add(c);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Shrink each cube to the smallest cube that still covers the points
+	 * that no other cube covers, so that the next EXPAND can grow it in
+	 * a different direction. Largest cubes are reduced first.
+	 */
+	static List<Cube> reduce(final List<Cube> f) {
+		final List<Cube> result = new ArrayList<Cube>(f);
+		Collections.sort(result, BY_LITERALS);
+		for (int j = 0; j < result.size(); j++) {
+			final Cube c = result.get(j);
+			final List<Cube> rest = new ArrayList<Cube>(result);
+			rest.remove(j);
+			final List<Cube> uncovered;
+			try {
+				uncovered = complement(cofactor(rest, c), c.vars);
+			} catch (final TooLarge e) {
+				continue;
+			}
+			if (uncovered.isEmpty()) {
+				result.remove(j--);
+			} else {
+				Cube s = uncovered.get(0);
+				for (final Cube u : uncovered) {
+					s = s.supercube(u);
+				}
+				result.set(j, c.and(s));
+			}
+		}
+		return result;
+	}
+
+	private static final Comparator<Cube> BY_LITERALS = new Comparator<Cube>() {
+		@Override
+		public int compare(final Cube a, final Cube b) {
+			return Integer.compare(a.literals(), b.literals());
+		}
+	};
+
+	private static boolean intersectsAny(final Cube c, final List<Cube> f) {
+		for (final Cube d : f) {
+			if (c.intersects(d)) return true;
+		}
+		return false;
+	}
+
+	/** Is every point of c covered by f? */
+	public static boolean covers(final List<Cube> f, final Cube c) {
+		return tautology(cofactor(f, c));
+	}
+
+	/** The cubes of f restricted to the subspace p. */
+	static List<Cube> cofactor(final List<Cube> f, final Cube p) {
+		final List<Cube> result = new ArrayList<Cube>(f.size());
+		for (final Cube c : f) {
+			final Cube r = c.cofactor(p);
+			if (r != null) result.add(r);
+		}
+		return result;
+	}
+
+	/**
+	 * The variable on which the most cubes depend, preferring binate
+	 * variables (those that appear in both polarities). Returns -1 if no 
+	 * cube depends on any variable, and ~i if the most frequent variable i
+	 * is unate and there are no binate variables.
+	 */
+	private static int splittingVariable(final List<Cube> f) {
+		final int vars = f.get(0).vars;
+		int best = -1, bestCount = 0;
+		boolean bestBinate = false;
+		for (int i = 0; i < vars; i++) {
+			int zeros = 0, ones = 0;
+			for (final Cube c : f) {
+				final int v = c.value(i);
+				if (v == 0) zeros++;
+				else if (v == 1) ones++;
+			}
+			final boolean binate = zeros > 0 && ones > 0;
+			final int count = zeros + ones;
+			if (count == 0) continue;
+			if ((binate && !bestBinate) || (binate == bestBinate && count > bestCount)) {
+				best = i;
+				bestCount = count;
+				bestBinate = binate;
+			}
+		}
+		return best < 0 || bestBinate ? best : ~best;
+	}
+
+	/** Does f cover every point? Unate recursive paradigm. */
+	public static boolean tautology(final List<Cube> f) {
+		if (f.isEmpty()) return false;
+		for (final Cube c : f) {
+			if (c.isUniverse()) return true;
+		}
+		final int j = splittingVariable(f);
+		if (j < 0) {
+			// a unate cover is a tautology only if it has the universal cube
+			return false;
+		}
+		final int vars = f.get(0).vars;
+		return tautology(cofactor(f, Cube.literal(vars, j, true)))
+			&& tautology(cofactor(f, Cube.literal(vars, j, false)));
+	}
+
+	/** The cubes of the points that f does not cover. */
+	static List<Cube> complement(final List<Cube> f, final int vars) {
+		if (f.isEmpty()) {
+			return Collections.singletonList(Cube.universe(vars));
+		}
+		for (final Cube c : f) {
+			if (c.isUniverse()) return Collections.emptyList();
+		}
+		if (f.size() == 1) {
+			// De Morgan: one cube per literal
+			final Cube c = f.get(0);
+			final List<Cube> result = new ArrayList<Cube>();
+			for (int i = 0; i < vars; i++) {
+				final int v = c.value(i);
+				if (v == 0 || v == 1) result.add(Cube.literal(vars, i, v == 0));
+			}
+			return result;
+		}
+		int j = splittingVariable(f);
+		if (j < 0) j = ~j;
+		final Cube pos = Cube.literal(vars, j, true);
+		final Cube neg = Cube.literal(vars, j, false);
+		final List<Cube> high = complement(cofactor(f, pos), vars);
+		final List<Cube> low = complement(cofactor(f, neg), vars);
+		final LinkedHashSet<Cube> both = new LinkedHashSet<Cube>(high);
+		both.retainAll(low);
+		final List<Cube> result = new ArrayList<Cube>(both);
+		for (final Cube c : high) {
+			if (!both.contains(c)) result.add(c.and(pos));
+		}
+		for (final Cube c : low) {
+			if (!both.contains(c)) result.add(c.and(neg));
+		}
+		if (result.size() > MAX_COMPLEMENT) throw new TooLarge();
+		return result;
+	}
+}
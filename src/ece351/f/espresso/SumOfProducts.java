@@ -0,0 +1,126 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.espresso;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.VarExpr;
+
+/**
+ * Translation between sum-of-products Exprs and covers of cubes, so that
+ * the simplifier can hand an NaryOrExpr to Espresso. An SOP here is an 
+ * or whose children are literals (x or not x) or ands of literals.
+ */
+public final class SumOfProducts {
+
+	/** The variables of the cover, in cube position order. */
+	public final List<VarExpr> vars;
+	public final List<Cube> cover;
+
+	private SumOfProducts(final List<VarExpr> vars, final List<Cube> cover) {
+		this.vars = Collections.unmodifiableList(vars);
+		this.cover = Collections.unmodifiableList(cover);
+	}
+
+	/** The cover of e, or null if e is not a sum of products. */
+	public static SumOfProducts of(final NaryOrExpr e) {
+		final Map<VarExpr, Integer> index = new LinkedHashMap<VarExpr, Integer>();
+		final List<List<Expr>> products = new ArrayList<List<Expr>>(e.children.size());
+		for (final Expr child : e.children) {
+			final List<Expr> literals;
+			if (child instanceof NaryAndExpr) {
+				literals = ((NaryAndExpr) child).children;
+			} else {
+				literals = Collections.singletonList(child);
+			}
+			for (final Expr l : literals) {
+				final VarExpr v = variable(l);
+				if (v == null) return null;
+				if (!index.containsKey(v)) index.put(v, index.size());
+			}
+			products.add(literals);
+		}
+		final int n = index.size();
+		final List<Cube> cover = new ArrayList<Cube>(products.size());
+		for (final List<Expr> literals : products) {
+			Cube c = Cube.universe(n);
+			for (final Expr l : literals) {
+				c = c.lower(index.get(variable(l)), !(l instanceof NotExpr));
+			}
+			cover.add(c);
+		}
+		return new SumOfProducts(new ArrayList<VarExpr>(index.keySet()), cover);
+	}
+
+	/** The variable of literal e, or null if e is not a literal. */
+	private static VarExpr variable(final Expr e) {
+		if (e instanceof VarExpr) return (VarExpr) e;
+		if (e instanceof NotExpr && ((NotExpr) e).expr instanceof VarExpr) {
+			return (VarExpr) ((NotExpr) e).expr;
+		}
+		return null;
+	}
+
+	/** The Expr of the given cover over our variables. */
+	public Expr toExpr(final List<Cube> f) {
+		final List<Expr> products = new ArrayList<Expr>(f.size());
+		for (final Cube c : f) {
+			final List<Expr> literals = new ArrayList<Expr>();
+			for (int i = 0; i < vars.size(); i++) {
+				final int v = c.value(i);
+				if (v == 1) literals.add(vars.get(i));
+				else if (v == 0) literals.add(NotExpr.make(vars.get(i)));
+			}
+			if (literals.isEmpty()) return ConstantExpr.TrueExpr;
+			products.add(literals.size() == 1 ? literals.get(0) : NaryAndExpr.make(literals));
+		}
+		if (products.isEmpty()) return ConstantExpr.FalseExpr;
+		if (products.size() == 1) return products.get(0);
+		return NaryOrExpr.make(products);
+	}
+
+	/**
+	 * Two-level minimization of e. Returns e itself unless it is a sum 
+	 * of products that Espresso makes strictly cheaper.
+	 */
+	public static Expr minimize(final NaryOrExpr e) {
+		final SumOfProducts sop = of(e);
+		if (sop == null) return e;
+		final List<Cube> min = Espresso.minimize(sop.cover, sop.vars.size());
+		if (min == null || Espresso.cost(min) >= Espresso.cost(sop.cover)) return e;
+		return sop.toExpr(min);
+	}
+}
@@ -0,0 +1,166 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.espresso;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ece351.common.ast.NaryOrExpr;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+import ece351.util.CommandLine;
+import ece351.util.CommandLine.FSimplifierOptions;
+import ece351.util.TestInputs351;
+
+public class TestEspresso extends BaseTest351 {
+
+	private static final List<Cube> NONE = Collections.emptyList();
+
+	/** A cube from a string of 0, 1 and - (as printed by Cube.toString). */
+	private static Cube cube(final String s) {
+		Cube c = Cube.universe(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) != '-') c = c.lower(i, s.charAt(i) == '1');
+		}
+		return c;
+	}
+
+	private static List<Cube> cover(final String... cubes) {
+		final List<Cube> f = new ArrayList<Cube>();
+		for (final String s : cubes) {
+			f.add(cube(s));
+		}
+		return f;
+	}
+
+	private static String simplify(final String f, final String level) {
+		final CommandLine c = new CommandLine(new String[]{f, "-h", level});
+		return FParser.parse(c).simplify(c.simplifierOpts).toString().trim();
+	}
+
+	@Test
+	public void cubes() {
+		final Cube c = cube("1-0");
+		assertEquals("1-0", c.toString());
+		assertEquals(2, c.literals());
+		assertTrue(cube("1--").contains(c));
+		assertFalse(c.contains(cube("1--")));
+		assertFalse(c.intersects(cube("0--")));
+		assertTrue(c.and(cube("0--")).isEmpty());
+		assertEquals(cube("---"), c.supercube(cube("0-1")));
+		assertEquals(cube("--0"), c.cofactor(cube("1--")));
+		// more than one word of variables
+		final Cube wide = Cube.literal(40, 37, false);
+		assertEquals(1, wide.literals());
+		assertFalse(wide.isEmpty());
+		assertTrue(Cube.universe(40).contains(wide));
+		assertTrue(wide.lower(37, true).isEmpty());
+	}
+
+	@Test
+	public void tautology() {
+		assertTrue(Espresso.tautology(cover("1-", "0-")));
+		assertTrue(Espresso.tautology(cover("11", "0-", "-0")));
+		assertFalse(Espresso.tautology(cover("11", "0-")));
+		assertFalse(Espresso.tautology(NONE));
+		assertEquals(Arrays.asList(cube("00")), Espresso.complement(cover("1-", "-1"), 2));
+	}
+
+	@Test
+	public void classic() {
+		// a'b + ab + ab' = a + b
+		assertEquals(2, Espresso.minimize(cover("01", "11", "10"), 2).size());
+		// consensus: ab + a'c + bc = ab + a'c
+		assertEquals(Espresso.cost(cover("11-", "0-1")), 
+				Espresso.cost(Espresso.minimize(cover("11-", "0-1", "-11"), 3)));
+		// xor is already minimal
+		assertEquals(Espresso.cost(cover("01", "10")), 
+				Espresso.cost(Espresso.minimize(cover("01", "10"), 2)));
+	}
+
+	@Test
+	public void randomCovers() {
+		final Random r = new Random(351);
+		final int n = 6;
+		for (int trial = 0; trial < 200; trial++) {
+			final List<Cube> f = new ArrayList<Cube>();
+			for (int k = r.nextInt(12); k > 0; k--) {
+				final char[] s = new char[n];
+				for (int i = 0; i < n; i++) {
+					s[i] = "01--".charAt(r.nextInt(4));
+				}
+				f.add(cube(new String(s)));
+			}
+			final List<Cube> min = Espresso.minimize(f, n);
+			assertNotNull(min);
+			assertTrue(Espresso.cost(min) <= Espresso.cost(f));
+			// same function, point by point
+			for (int p = 0; p < (1 << n); p++) {
+				Cube point = Cube.universe(n);
+				for (int i = 0; i < n; i++) {
+					point = point.lower(i, (p >>> i & 1) == 1);
+				}
+				assertEquals(f + " at " + point, Espresso.covers(f, point), Espresso.covers(min, point));
+			}
+		}
+	}
+
+	@Test
+	public void simplifier() {
+		final String f = "x <= (a and b) or (a and not b) or (not a and b);";
+		assertEquals("x <= (a or b);", simplify(f, "-o5"));
+		// not a local rule: -o4 leaves it alone
+		assertEquals(3, ((NaryOrExpr) FParser.parse(new String[]{f, "-h"}).simplify().formulas.get(0).expr).children.size());
+		// consensus term bc is dropped
+		assertEquals(2, ((NaryOrExpr) FParser.parse(new CommandLine(new String[]{"x <= (a and b) or (not a and c) or (b and c);", "-h", "-o5"}))
+				.simplify(EnumSet.allOf(FSimplifierOptions.class)).formulas.get(0).expr).children.size());
+	}
+
+	@Test
+	public void formulas() {
+		for (final Object[] o : TestInputs351.formulaFiles()) {
+			final File file = (File) o[0];
+			final CommandLine c = new CommandLine("-h", "-o5", file.getAbsolutePath());
+			final FProgram original = FParser.parse(c);
+			final FProgram minimized = original.simplify(c.simplifierOpts);
+			assertTrue("minimizer breaks equivalence for " + file.getName(), original.equivalent(minimized));
+		}
+	}
+}
@@ -43,7 +43,11 @@ public abstract class FBase extends BaseParser351 {
     public Rule Keyword() {
         return FirstOf(AND(),
                        OR(),
-                       NOT());
+                       NOT(),
+                       XOR(),
+                       XNOR(),
+                       WHEN(),
+                       ELSE());
     }
 	
     public Rule AND() {
@@ -56,6 +60,26 @@ public abstract class FBase extends BaseParser351 {
                         TestNot(FirstOf(Char(),Digit(), "_")));
     }
 
+    public Rule XOR() {
+        return Sequence(IgnoreCase("xor"),
+                        TestNot(FirstOf(Char(),Digit(), "_")));
+    }
+
+    public Rule XNOR() {
+        return Sequence(IgnoreCase("xnor"),
+                        TestNot(FirstOf(Char(),Digit(), "_")));
+    }
+
+    public Rule WHEN() {
+        return Sequence(IgnoreCase("when"),
+                        TestNot(FirstOf(Char(),Digit(), "_")));
+    }
+
+    public Rule ELSE() {
+        return Sequence(IgnoreCase("else"),
+                        TestNot(FirstOf(Char(),Digit(), "_")));
+    }
+
     public Rule NOT() {
         return Sequence(IgnoreCase("not"),
                         TestNot(FirstOf(Char(),Digit(), "_")));
@@ -35,9 +35,12 @@ import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.Constants;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NotExpr;
 import ece351.common.ast.OrExpr;
 import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
 import ece351.f.ast.FProgram;
 import ece351.util.CommandLine;
 
@@ -96,7 +99,7 @@ public /*final*/ class FParboiledParser extends FBase implements Constants {
 	public Rule Formula() {
         return Sequence(
 			Var(),
-			push(new VarExpr((String)match())),
+			push(VarExpr.make((String)match())),
 			W0(), 
 			"<=", 
 			W0(), 
@@ -115,14 +118,29 @@ public /*final*/ class FParboiledParser extends FBase implements Constants {
 			W0(),
 			Term(), 
 			W0(), 
-			ZeroOrMore(Sequence(
-				OR(), 
-				W0(), 
-				Term(), 
-				W0(), 
-				swap(),
-				push(new OrExpr((Expr)pop(), (Expr)pop()))))
-			);
+			ZeroOrMore(FirstOf(
+				Sequence(
+					OR(), 
+					W0(), 
+					Term(), 
+					W0(), 
+					swap(),
+					push(OrExpr.make((Expr)pop(), (Expr)pop()))),
+				Sequence(
+					XOR(), 
+					W0(), 
+					Term(), 
+					W0(), 
+					swap(),
+					push(XOrExpr.make((Expr)pop(), (Expr)pop()))),
+				Sequence(
+					XNOR(), 
+					W0(), 
+					Term(), 
+					W0(), 
+					swap(),
+					push(XNOrExpr.make((Expr)pop(), (Expr)pop()))))
+			));
     }
 
     public Rule Term() {
@@ -136,7 +154,7 @@ public /*final*/ class FParboiledParser extends FBase implements Constants {
 				Factor(),
 				W0(),
 				swap(),
-				push(new AndExpr((Expr)pop(), (Expr)pop())))));
+				push(AndExpr.make((Expr)pop(), (Expr)pop())))));
     }
 
     public Rule Factor() {
@@ -145,17 +163,30 @@ public /*final*/ class FParboiledParser extends FBase implements Constants {
 				NOT(),
 				W0(),
 				Factor(),
-				push(new NotExpr((Expr)pop()))),
+				push(NotExpr.make((Expr)pop()))),
 			Sequence(
 				"(", 
 				W0(), 
 				Expr(),
 				W0(), 
+				Optional(
+					WHEN(), 
+					W0(), 
+					Expr(),
+					W0(), 
+					ELSE(), 
+					W0(), 
+					Expr(),
+					W0(), 
+					// stack is ifFalse, select, ifTrue: pop select first
+					swap3(),
+					swap(),
+					push(MuxExpr.make((Expr)pop(), (Expr)pop(), (Expr)pop()))),
 				")"),
 			Sequence(
 				Var(),
 				push(match()),
-				push(new VarExpr((String)pop()))),
+				push(VarExpr.make((String)pop()))),
 			Sequence(
 				Constant(),
 				push(ConstantExpr.make((String)pop()))));
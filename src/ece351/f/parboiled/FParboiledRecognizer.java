@@ -65,7 +65,7 @@ public /*final*/ class FParboiledRecognizer extends FBase implements Constants {
     }
 
     public Rule Expr() {
-        return Sequence(Term(), W0(), ZeroOrMore(Sequence(OR(), W0(), Term(), W0())));
+        return Sequence(Term(), W0(), ZeroOrMore(Sequence(FirstOf(OR(), XOR(), XNOR()), W0(), Term(), W0())));
     }
 
     public Rule Term() {
@@ -73,7 +73,7 @@ public /*final*/ class FParboiledRecognizer extends FBase implements Constants {
     }
 
     public Rule Factor() {
-        return FirstOf(Sequence(NOT(), W0(), Factor()), Sequence("(", W0(), Expr(), W0(), ")"), Var(), Constant());
+        return FirstOf(Sequence(NOT(), W0(), Factor()), Sequence("(", W0(), Expr(), W0(), Optional(WHEN(), W0(), Expr(), W0(), ELSE(), W0(), Expr(), W0()), ")"), Var(), Constant());
     }
 
     public Rule Var() {
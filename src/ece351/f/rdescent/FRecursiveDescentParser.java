@@ -31,9 +31,12 @@ import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.Constants;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NotExpr;
 import ece351.common.ast.OrExpr;
 import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
 import ece351.f.ast.FProgram;
 import ece351.util.CommandLine;
 import ece351.util.Lexer;
@@ -91,17 +94,26 @@ public final class FRecursiveDescentParser implements Constants {
     
     Expr expr() { 
         Expr te = term();
-        while (lexer.inspect("or")) {
-            lexer.consume("or");
-            te = new OrExpr(te, term());
+        while (true) {
+            if (lexer.inspect("or")) {
+                lexer.consume("or");
+                te = OrExpr.make(te, term());
+            } else if (lexer.inspect("xor")) {
+                lexer.consume("xor");
+                te = XOrExpr.make(te, term());
+            } else if (lexer.inspect("xnor")) {
+                lexer.consume("xnor");
+                te = XNOrExpr.make(te, term());
+            } else {
+                return te;
+            }
         }
-        return te;
     }
     Expr term() {
         Expr ter = factor();
         while (lexer.inspect("and")) {
             lexer.consume("and");
-            ter = new AndExpr(ter, factor());
+            ter = AndExpr.make(ter, factor());
         }
         return ter;
     }
@@ -110,10 +122,16 @@ public final class FRecursiveDescentParser implements Constants {
         Expr fact;
         if (lexer.inspect("not")) {
             lexer.consume("not");
-            fact = new NotExpr(factor());
+            fact = NotExpr.make(factor());
         } else if (lexer.inspect("(")) {
             lexer.consume("(");
             fact = expr();
+            if (lexer.inspect("when")) {
+                lexer.consume("when");
+                final Expr select = expr();
+                lexer.consume("else");
+                fact = MuxExpr.make(select, fact, expr());
+            }
             lexer.consume(")");
         } else if (peekConstant()) {
             fact = constant();
@@ -124,7 +142,7 @@ public final class FRecursiveDescentParser implements Constants {
     }
     VarExpr var() { 
         if (lexer.inspectID()) {
-            return new VarExpr(lexer.consumeID());
+            return VarExpr.make(lexer.consumeID());
         } else {
             throw new IllegalArgumentException();
         }
@@ -69,8 +69,8 @@ public final class FRecursiveDescentRecognizer implements Constants {
     
     void expr() {
         term();
-        while (lexer.inspect("or")) {
-            lexer.consume("or");
+        while (lexer.inspect("or") || lexer.inspect("xor") || lexer.inspect("xnor")) {
+            lexer.consume("or", "xor", "xnor");
             term();
         }
     }
@@ -88,6 +88,12 @@ public final class FRecursiveDescentRecognizer implements Constants {
         } else if (lexer.inspect("(")) {
             lexer.consume("(");
             expr();
+            if (lexer.inspect("when")) {
+                lexer.consume("when");
+                expr();
+                lexer.consume("else");
+                expr();
+            }
             lexer.consume(")");
         } else if (peekConstant()) {
             constant();
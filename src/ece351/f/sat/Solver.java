@@ -0,0 +1,568 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.sat;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A conflict-driven clause-learning SAT solver in the style of MiniSat:
+ * two watched literals per clause, VSIDS decision heuristic with phase 
+ * saving, first-UIP clause learning with local minimization, and Luby 
+ * restarts.
+ * 
+ * The interface uses DIMACS conventions: variables are numbered from 1,
+ * and a literal is v or -v. Internally literal v is 2v and -v is 2v+1.
+ * 
+ * Clauses may be added whenever the solver is not solving, including 
+ * after a call to solve(). A Solver is not thread-safe, but Solvers share
+ * no state, so independent checks may run concurrently. Interrupting the
+ * solving thread makes solve() return UNKNOWN soon after.
+ */
+public final class Solver {
+
+	public enum Result { SAT, UNSAT, UNKNOWN }
+
+	private static final double VAR_DECAY = 0.95;
+	private static final int RESTART_BASE = 100;
+	private static final int[] NO_ASSUMPTIONS = new int[0];
+
+	private int numVars = 0;
+
+	/** Per internal literal: 1 true, -1 false, 0 unassigned. */
+	private byte[] values = new byte[2];
+	/** Per variable. */
+	private int[] level = new int[1];
+	private int[] reason = new int[1];
+	private double[] activity = new double[1];
+	private boolean[] phase = new boolean[1];
+	private boolean[] seen = new boolean[1];
+	/** Per internal literal: the clauses watching it. */
+	private IntVec[] watches = new IntVec[2];
+
+	private final List<int[]> clauses = new ArrayList<int[]>();
+	/** The clauses as given, for DIMACS output. */
+	private final List<int[]> problem = new ArrayList<int[]>();
+	private int learnts = 0;
+
+	private int[] trail = new int[1];
+	private int trailSize = 0;
+	private final IntVec trailLim = new IntVec();
+	private int qhead = 0;
+
+	/** False once the clauses are known to be unsatisfiable. */
+	private boolean ok = true;
+	private int[] assumptions = NO_ASSUMPTIONS;
+	private boolean failedAssumption = false;
+	/** Set when the solving thread is found interrupted. */
+	private boolean interrupted = false;
+	private boolean[] model = null;
+
+	/** Max-heap of unassigned variables, ordered by activity. */
+	private int[] heap = new int[1];
+	private int heapSize = 0;
+	private int[] heapIndex = new int[1];
+	private double varInc = 1;
+
+	private long conflicts = 0;
+	private long decisions = 0;
+	private long propagations = 0;
+
+	/** A fresh variable. */
+	public int newVar() {
+		final int v = ++numVars;
+		if (v >= level.length) {
+			final int n = Math.max(2 * level.length, v + 1);
+			values = Arrays.copyOf(values, 2 * n);
+			level = Arrays.copyOf(level, n);
+			reason = Arrays.copyOf(reason, n);
+			activity = Arrays.copyOf(activity, n);
+			phase = Arrays.copyOf(phase, n);
+			seen = Arrays.copyOf(seen, n);
+			watches = Arrays.copyOf(watches, 2 * n);
+			trail = Arrays.copyOf(trail, n);
+			heap = Arrays.copyOf(heap, n);
+			heapIndex = Arrays.copyOf(heapIndex, n);
+		}
+		watches[2 * v] = new IntVec();
+		watches[2 * v + 1] = new IntVec();
+		reason[v] = -1;
+		heapIndex[v] = -1;
+		heapInsert(v);
+		return v;
+	}
+
+	public int numVars() {
+		return numVars;
+	}
+
+	public int numClauses() {
+		return problem.size();
+	}
+
+	public long conflicts() {
+		return conflicts;
+	}
+
+	public long decisions() {
+		return decisions;
+	}
+
+	public long propagations() {
+		return propagations;
+	}
+
+	/**
+	 * Add a clause of DIMACS literals. Returns false if the clauses 
+	 * are now known to be unsatisfiable.
+	 */
+	public boolean addClause(final int... lits) {
+		problem.add(lits.clone());
+		if (!ok) return false;
+		cancelUntil(0);
+		model = null;
+		final int[] c = new int[lits.length];
+		for (int i = 0; i < lits.length; i++) {
+			c[i] = toLit(lits[i]);
+		}
+		Arrays.sort(c);
+		int size = 0;
+		for (int i = 0; i < c.length; i++) {
+			final int l = c[i];
+			if (values[l] == 1 || (i > 0 && c[i - 1] == (l ^ 1))) {
+				// satisfied, or a tautology
+				return true;
+			}
+			if (values[l] == -1 || (i > 0 && c[i - 1] == l)) {
+				// false at the top level, or a duplicate
+				continue;
+			}
+			c[size++] = l;
+		}
+		if (size == 0) {
+			ok = false;
+		} else if (size == 1) {
+			enqueue(c[0], -1);
+			ok = propagate() == -1;
+		} else {
+			attach(Arrays.copyOf(c, size));
+		}
+		return ok;
+	}
+
+	private int toLit(final int dimacs) {
+		final int v = Math.abs(dimacs);
+		if (v == 0 || v > numVars) throw new IllegalArgumentException("no such variable: " + dimacs);
+		return dimacs > 0 ? 2 * v : 2 * v + 1;
+	}
+
+	private int attach(final int[] c) {
+		final int ci = clauses.size();
+		clauses.add(c);
+		watches[c[0]].push(ci);
+		watches[c[1]].push(ci);
+		return ci;
+	}
+
+	public Result solve() {
+		return solve(-1);
+	}
+
+	/**
+	 * Search for a satisfying assignment in which every one of the DIMACS
+	 * assumptions is true, giving up after maxConflicts conflicts (negative
+	 * for no limit). The assumptions hold for this call only, so UNSAT
+	 * under assumptions leaves the solver usable, and what was learnt
+	 * carries over to later calls.
+	 */
+	public Result solve(final long maxConflicts, final int... assumptions) {
+		model = null;
+		if (!ok) return Result.UNSAT;
+		this.assumptions = new int[assumptions.length];
+		for (int i = 0; i < assumptions.length; i++) {
+			this.assumptions[i] = toLit(assumptions[i]);
+		}
+		failedAssumption = false;
+		interrupted = false;
+		try {
+			final long limit = maxConflicts < 0 ? Long.MAX_VALUE : conflicts + maxConflicts;
+			for (int restarts = 0; ; restarts++) {
+				final long budget = (long) (luby(2, restarts) * RESTART_BASE);
+				final Result r = search(Math.min(conflicts + budget, limit));
+				if (r == Result.SAT) {
+					model = new boolean[numVars + 1];
+					for (int v = 1; v <= numVars; v++) {
+						model[v] = values[2 * v] == 1;
+					}
+					cancelUntil(0);
+					return r;
+				}
+				if (r == Result.UNSAT) {
+					if (failedAssumption) {
+						cancelUntil(0);
+					} else {
+						ok = false;
+					}
+					return r;
+				}
+				if (conflicts >= limit || interrupted) return Result.UNKNOWN;
+			}
+		} finally {
+			this.assumptions = NO_ASSUMPTIONS;
+		}
+	}
+
+	/** The value of variable v in the model found by the last successful solve(). */
+	public boolean value(final int v) {
+		if (model == null) throw new IllegalStateException("no model");
+		return model[v];
+	}
+
+	/** Write the problem clauses (not the learnt ones) in DIMACS CNF format. */
+	public void toDimacs(final PrintWriter out) {
+		out.println("p cnf " + numVars + " " + problem.size());
+		for (final int[] c : problem) {
+			final StringBuilder b = new StringBuilder();
+			for (final int l : c) {
+				b.append(l).append(' ');
+			}
+			out.println(b.append('0'));
+		}
+		out.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "Solver[vars=" + numVars + " clauses=" + problem.size() + " learnts=" + learnts
+				+ " conflicts=" + conflicts + " decisions=" + decisions + "]";
+	}
+
+	/*
+	 * Search.
+	 */
+
+	private Result search(final long conflictLimit) {
+		while (true) {
+			final int confl = propagate();
+			if (confl != -1) {
+				conflicts++;
+				if (decisionLevel() == 0) return Result.UNSAT;
+				learn(confl);
+				varInc /= VAR_DECAY;
+				if ((conflicts & 0xFF) == 0 && Thread.currentThread().isInterrupted()) {
+					interrupted = true;
+				}
+			} else {
+				if (conflicts >= conflictLimit || interrupted) {
+					cancelUntil(0);
+					return Result.UNKNOWN;
+				}
+				// decide the assumptions first, one per level
+				int next = -1;
+				while (decisionLevel() < assumptions.length) {
+					final int p = assumptions[decisionLevel()];
+					if (values[p] == 1) {
+						// already true: open an empty level to keep the numbering
+						trailLim.push(trailSize);
+					} else if (values[p] == -1) {
+						failedAssumption = true;
+						return Result.UNSAT;
+					} else {
+						next = p;
+						break;
+					}
+				}
+				if (next == -1) {
+					next = pickBranch();
+					if (next == -1) return Result.SAT;
+				}
+				decisions++;
+				trailLim.push(trailSize);
+				enqueue(next, -1);
+			}
+		}
+	}
+
+	private int decisionLevel() {
+		return trailLim.size;
+	}
+
+	private void enqueue(final int lit, final int from) {
+		values[lit] = 1;
+		values[lit ^ 1] = -1;
+		final int v = lit >> 1;
+		level[v] = decisionLevel();
+		reason[v] = from;
+		trail[trailSize++] = lit;
+	}
+
+	private void cancelUntil(final int lvl) {
+		if (decisionLevel() <= lvl) return;
+		final int bottom = trailLim.data[lvl];
+		for (int i = trailSize - 1; i >= bottom; i--) {
+			final int lit = trail[i];
+			final int v = lit >> 1;
+			values[lit] = 0;
+			values[lit ^ 1] = 0;
+			reason[v] = -1;
+			phase[v] = (lit & 1) == 0;
+			if (heapIndex[v] < 0) heapInsert(v);
+		}
+		trailSize = bottom;
+		qhead = bottom;
+		trailLim.size = lvl;
+	}
+
+	private int pickBranch() {
+		while (heapSize > 0) {
+			final int v = heapRemoveMax();
+			if (values[2 * v] == 0) {
+				return phase[v] ? 2 * v : 2 * v + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Unit propagation over the two watched literals of each clause.
+	 * The watched literals are always c[0] and c[1]; the implied literal
+	 * of a reason clause is c[0]. Returns a conflicting clause, or -1.
+	 */
+	private int propagate() {
+		while (qhead < trailSize) {
+			final int falseLit = trail[qhead++] ^ 1;
+			propagations++;
+			final IntVec ws = watches[falseLit];
+			final int n = ws.size;
+			int i = 0;
+			int j = 0;
+			clauses:
+			while (i < n) {
+				final int ci = ws.data[i++];
+				final int[] c = clauses.get(ci);
+				if (c[0] == falseLit) {
+					c[0] = c[1];
+					c[1] = falseLit;
+				}
+				if (values[c[0]] == 1) {
+					ws.data[j++] = ci;
+					continue;
+				}
+				for (int k = 2; k < c.length; k++) {
+					if (values[c[k]] != -1) {
+						c[1] = c[k];
+						c[k] = falseLit;
+						watches[c[1]].push(ci);
+						continue clauses;
+					}
+				}
+				// no replacement watch: the clause is unit or conflicting
+				ws.data[j++] = ci;
+				if (values[c[0]] == -1) {
+					while (i < n) {
+						ws.data[j++] = ws.data[i++];
+					}
+					ws.size = j;
+					qhead = trailSize;
+					return ci;
+				}
+				enqueue(c[0], ci);
+			}
+			ws.size = j;
+		}
+		return -1;
+	}
+
+	/**
+	 * First-UIP conflict analysis. Learns a clause, backjumps, and 
+	 * asserts the learnt clause's UIP literal.
+	 */
+	private void learn(int confl) {
+		final IntVec learnt = new IntVec();
+		learnt.push(-1);
+		int pathCount = 0;
+		int p = -1;
+		int index = trailSize - 1;
+		do {
+			final int[] c = clauses.get(confl);
+			for (int j = (p == -1) ? 0 : 1; j < c.length; j++) {
+				final int q = c[j];
+				final int v = q >> 1;
+				if (!seen[v] && level[v] > 0) {
+					bump(v);
+					seen[v] = true;
+					if (level[v] >= decisionLevel()) {
+						pathCount++;
+					} else {
+						learnt.push(q);
+					}
+				}
+			}
+			while (!seen[trail[index] >> 1]) {
+				index--;
+			}
+			p = trail[index--];
+			confl = reason[p >> 1];
+			seen[p >> 1] = false;
+			pathCount--;
+		} while (pathCount > 0);
+		learnt.data[0] = p ^ 1;
+
+		// local minimization: drop literals implied by the rest of the clause
+		final int[] marked = Arrays.copyOf(learnt.data, learnt.size);
+		int size = 1;
+		for (int i = 1; i < learnt.size; i++) {
+			final int q = learnt.data[i];
+			if (reason[q >> 1] == -1 || !redundant(q)) {
+				learnt.data[size++] = q;
+			}
+		}
+		for (int i = 1; i < marked.length; i++) {
+			seen[marked[i] >> 1] = false;
+		}
+		learnt.size = size;
+
+		// backjump to the second highest level in the clause
+		int backjump = 0;
+		if (size > 1) {
+			int max = 1;
+			for (int i = 2; i < size; i++) {
+				if (level[learnt.data[i] >> 1] > level[learnt.data[max] >> 1]) max = i;
+			}
+			final int tmp = learnt.data[1];
+			learnt.data[1] = learnt.data[max];
+			learnt.data[max] = tmp;
+			backjump = level[learnt.data[1] >> 1];
+		}
+		cancelUntil(backjump);
+		if (size == 1) {
+			enqueue(learnt.data[0], -1);
+		} else {
+			learnts++;
+			enqueue(learnt.data[0], attach(Arrays.copyOf(learnt.data, size)));
+		}
+	}
+
+	private boolean redundant(final int q) {
+		final int[] c = clauses.get(reason[q >> 1]);
+		for (int k = 1; k < c.length; k++) {
+			final int v = c[k] >> 1;
+			if (!seen[v] && level[v] > 0) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * VSIDS.
+	 */
+
+	private void bump(final int v) {
+		activity[v] += varInc;
+		if (activity[v] > 1e100) {
+			for (int u = 1; u <= numVars; u++) {
+				activity[u] *= 1e-100;
+			}
+			varInc *= 1e-100;
+		}
+		if (heapIndex[v] >= 0) heapUp(heapIndex[v]);
+	}
+
+	private void heapInsert(final int v) {
+		heapIndex[v] = heapSize;
+		heap[heapSize++] = v;
+		heapUp(heapIndex[v]);
+	}
+
+	private int heapRemoveMax() {
+		final int v = heap[0];
+		heapIndex[v] = -1;
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapIndex[heap[0]] = 0;
+			heapDown(0);
+		}
+		return v;
+	}
+
+	private void heapUp(int i) {
+		final int v = heap[i];
+		while (i > 0) {
+			final int parent = (i - 1) >> 1;
+			if (activity[heap[parent]] >= activity[v]) break;
+			heap[i] = heap[parent];
+			heapIndex[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	private void heapDown(int i) {
+		final int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) child++;
+			if (activity[heap[child]] <= activity[v]) break;
+			heap[i] = heap[child];
+			heapIndex[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		heapIndex[v] = i;
+	}
+
+	/** The Luby restart sequence 1 1 2 1 1 2 4 ..., as powers of y. */
+	private static double luby(final double y, int x) {
+		int size = 1;
+		int seq = 0;
+		while (size < x + 1) {
+			seq++;
+			size = 2 * size + 1;
+		}
+		while (size - 1 != x) {
+			size = (size - 1) >> 1;
+			seq--;
+			x = x % size;
+		}
+		return Math.pow(y, seq);
+	}
+
+	/** A growable int array. */
+	private static final class IntVec {
+		int[] data = new int[4];
+		int size = 0;
+
+		void push(final int x) {
+			if (size == data.length) data = Arrays.copyOf(data, 2 * size);
+			data[size++] = x;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.sat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.f.equivalence.EquivalenceEngine.Verdict;
+import ece351.f.equivalence.SATEngine;
+import ece351.f.equivalence.TruthTableEngine;
+import ece351.util.BaseTest351;
+
+public class TestSolver extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void random3SatAgreesWithBruteForce() {
+		final Random random = new Random(351);
+		for (int trial = 0; trial < 200; trial++) {
+			final int n = 10;
+			final List<int[]> cnf = new ArrayList<int[]>();
+			final Solver solver = new Solver();
+			for (int v = 0; v < n; v++) solver.newVar();
+			// near the phase transition, so about half are satisfiable
+			for (int i = 0; i < 43; i++) {
+				final int[] c = new int[3];
+				for (int j = 0; j < 3; j++) {
+					c[j] = (1 + random.nextInt(n)) * (random.nextBoolean() ? 1 : -1);
+				}
+				cnf.add(c);
+				solver.addClause(c);
+			}
+			final boolean expected = bruteForce(cnf, n);
+			final Solver.Result r = solver.solve();
+			assertEquals(expected ? Solver.Result.SAT : Solver.Result.UNSAT, r);
+			if (expected) {
+				for (final int[] c : cnf) {
+					assertTrue(satisfied(c, solver));
+				}
+			}
+		}
+	}
+
+	private static boolean bruteForce(final List<int[]> cnf, final int n) {
+		rows:
+		for (int row = 0; row < (1 << n); row++) {
+			for (final int[] c : cnf) {
+				boolean sat = false;
+				for (final int l : c) {
+					sat |= (((row >> (Math.abs(l) - 1)) & 1) != 0) == (l > 0);
+				}
+				if (!sat) continue rows;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean satisfied(final int[] c, final Solver solver) {
+		for (final int l : c) {
+			if (solver.value(Math.abs(l)) == (l > 0)) return true;
+		}
+		return false;
+	}
+
+	@Test
+	public void pigeonhole() {
+		// six pigeons do not fit in five holes
+		final int pigeons = 6;
+		final int holes = 5;
+		final Solver solver = new Solver();
+		final int[][] x = new int[pigeons][holes];
+		for (int p = 0; p < pigeons; p++) {
+			for (int h = 0; h < holes; h++) {
+				x[p][h] = solver.newVar();
+			}
+			solver.addClause(x[p]);
+		}
+		for (int h = 0; h < holes; h++) {
+			for (int p = 0; p < pigeons; p++) {
+				for (int q = p + 1; q < pigeons; q++) {
+					solver.addClause(-x[p][h], -x[q][h]);
+				}
+			}
+		}
+		assertEquals(Solver.Result.UNSAT, solver.solve());
+		assertEquals(Solver.Result.UNKNOWN, copyWithBudget(pigeons, holes).solve(1));
+	}
+
+	@Test
+	public void interrupted() {
+		// far too hard to finish, but the solver polls for interrupts every 256 conflicts
+		final Solver solver = copyWithBudget(12, 11);
+		Thread.currentThread().interrupt();
+		try {
+			assertEquals(Solver.Result.UNKNOWN, solver.solve());
+			assertTrue(solver.conflicts() < 512);
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private static Solver copyWithBudget(final int pigeons, final int holes) {
+		final Solver solver = new Solver();
+		for (int i = 0; i < pigeons * holes; i++) solver.newVar();
+		for (int p = 0; p < pigeons; p++) {
+			final int[] c = new int[holes];
+			for (int h = 0; h < holes; h++) c[h] = p * holes + h + 1;
+			solver.addClause(c);
+		}
+		for (int h = 0; h < holes; h++) {
+			for (int p = 0; p < pigeons; p++) {
+				for (int q = p + 1; q < pigeons; q++) {
+					solver.addClause(-(p * holes + h + 1), -(q * holes + h + 1));
+				}
+			}
+		}
+		return solver;
+	}
+
+	@Test
+	public void incremental() {
+		final Solver solver = new Solver();
+		final int a = solver.newVar();
+		final int b = solver.newVar();
+		solver.addClause(a, b);
+		assertEquals(Solver.Result.SAT, solver.solve());
+		solver.addClause(-a);
+		assertEquals(Solver.Result.SAT, solver.solve());
+		assertTrue(solver.value(b));
+		assertFalse(solver.addClause(-b));
+		assertEquals(Solver.Result.UNSAT, solver.solve());
+	}
+
+	@Test
+	public void assumptions() {
+		final Solver solver = new Solver();
+		final int a = solver.newVar();
+		final int b = solver.newVar();
+		final int c = solver.newVar();
+		solver.addClause(-a, b);
+		solver.addClause(-b, c);
+		assertEquals(Solver.Result.UNSAT, solver.solve(-1, a, -c));
+		// the assumptions do not stick
+		assertEquals(Solver.Result.SAT, solver.solve(-1, a));
+		assertTrue(solver.value(c));
+		assertEquals(Solver.Result.SAT, solver.solve(-1, -c));
+		assertFalse(solver.value(a));
+	}
+
+	@Test
+	public void dimacs() {
+		final Solver solver = new Solver();
+		solver.newVar();
+		solver.newVar();
+		solver.addClause(1, -2);
+		solver.addClause(2);
+		final StringWriter out = new StringWriter();
+		solver.toDimacs(new PrintWriter(out));
+		assertEquals("p cnf 2 2\n1 -2 0\n2 0\n", out.toString().replace("\r", ""));
+	}
+
+	@Test
+	public void miter() {
+		final SATEngine engine = new SATEngine();
+		final FProgram p = parse("x <= a and b; y <= a or c;");
+		assertEquals(Verdict.EQUIVALENT, engine.check(p, parse("y <= c or a; x <= not (not a or not b);")).verdict);
+		final Map<String,Boolean> cex = engine.check(p, parse("x <= a and b; y <= a or b;")).counterexample;
+		// y differs exactly when b differs from c and a is false
+		assertFalse(cex.get("a"));
+		assertTrue(cex.get("b") != cex.get("c"));
+	}
+
+	@Test
+	public void agreesWithTruthTables() throws Exception {
+		final TruthTableEngine tt = new TruthTableEngine();
+		final List<FProgram[]> pairs = new ArrayList<FProgram[]>();
+		final File[] files = new File("tests/f").listFiles();
+		for (final File f : files) {
+			if (!f.getName().endsWith(".f")) continue;
+			final FProgram original = parse(f.getPath());
+			pairs.add(new FProgram[]{original, original.simplify()});
+			for (final File g : files) {
+				if (!g.getName().endsWith(".f") || g.equals(f)) continue;
+				final FProgram other = parse(g.getPath());
+				if (other.outputVars().equals(original.outputVars())) {
+					pairs.add(new FProgram[]{original, other});
+				}
+			}
+		}
+		// checks share nothing, so they can run in parallel
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Verdict>> verdicts = new ArrayList<Future<Verdict>>();
+			for (final FProgram[] pair : pairs) {
+				verdicts.add(pool.submit(new Callable<Verdict>() {
+					@Override
+					public Verdict call() {
+						return new SATEngine().check(pair[0], pair[1]).verdict;
+					}
+				}));
+			}
+			for (int i = 0; i < pairs.size(); i++) {
+				final FProgram[] pair = pairs.get(i);
+				assertEquals(tt.check(pair[0], pair[1]).verdict, verdicts.get(i).get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
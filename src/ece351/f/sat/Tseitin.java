@@ -0,0 +1,216 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.sat;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.EqualExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NAndExpr;
+import ece351.common.ast.NOrExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.common.visitor.MemoizingExprVisitor;
+
+/**
+ * Tseitin encoding of Exprs into the clauses of a Solver. Each and/or/xor 
+ * gate gets a fresh variable constrained to equal the gate's output; 
+ * negations (including nand, nor and xnor) are free, since they only flip
+ * the sign of a literal. Every VarExpr is a free input with one variable
+ * per identifier. Exprs are hash-consed, so shared subtrees are encoded once.
+ */
+public final class Tseitin extends MemoizingExprVisitor<Integer> {
+
+	public final Solver solver;
+	private final Map<String,Integer> vars = new LinkedHashMap<String,Integer>();
+	private int trueLit = 0;
+
+	public Tseitin(final Solver solver) {
+		this.solver = solver;
+	}
+
+	/** A literal equal to e. */
+	public int encode(final Expr e) {
+		traverseExpr(e);
+		return memo.get(e);
+	}
+
+	/** The solver variable for each identifier seen so far. */
+	public Map<String,Integer> vars() {
+		return Collections.unmodifiableMap(vars);
+	}
+
+	/** A literal that is always true. */
+	public int constant(final boolean b) {
+		if (trueLit == 0) {
+			trueLit = solver.newVar();
+			solver.addClause(trueLit);
+		}
+		return b ? trueLit : -trueLit;
+	}
+
+	/** A fresh literal equal to the conjunction of lits. */
+	public int and(final int... lits) {
+		final int g = solver.newVar();
+		final int[] big = new int[lits.length + 1];
+		for (int i = 0; i < lits.length; i++) {
+			solver.addClause(-g, lits[i]);
+			big[i] = -lits[i];
+		}
+		big[lits.length] = g;
+		solver.addClause(big);
+		return g;
+	}
+
+	/** A fresh literal equal to the disjunction of lits. */
+	public int or(final int... lits) {
+		final int[] negated = new int[lits.length];
+		for (int i = 0; i < lits.length; i++) {
+			negated[i] = -lits[i];
+		}
+		return -and(negated);
+	}
+
+	/** A fresh literal equal to a xor b. */
+	public int xor(final int a, final int b) {
+		final int g = solver.newVar();
+		solver.addClause(-g, a, b);
+		solver.addClause(-g, -a, -b);
+		solver.addClause(g, -a, b);
+		solver.addClause(g, a, -b);
+		return g;
+	}
+
+	/** A fresh literal equal to a when s, else b. */
+	public int mux(final int s, final int a, final int b) {
+		final int g = solver.newVar();
+		solver.addClause(-s, -a, g);
+		solver.addClause(-s, a, -g);
+		solver.addClause(s, -b, g);
+		solver.addClause(s, b, -g);
+		return g;
+	}
+
+	private int lit(final Expr e) {
+		return memo.get(e);
+	}
+
+	private int[] lits(final NaryExpr e) {
+		final int[] r = new int[e.children.size()];
+		for (int i = 0; i < r.length; i++) {
+			r[i] = lit(e.children.get(i));
+		}
+		return r;
+	}
+
+	private Expr put(final Expr e, final int lit) {
+		memo.put(e, lit);
+		return e;
+	}
+
+	@Override
+	public Expr visitConstant(final ConstantExpr e) {
+		return put(e, constant(e.b));
+	}
+
+	@Override
+	public Expr visitVar(final VarExpr e) {
+		if (memo.containsKey(e)) return e;
+		Integer v = vars.get(e.identifier);
+		if (v == null) {
+			v = solver.newVar();
+			vars.put(e.identifier, v);
+		}
+		return put(e, v);
+	}
+
+	@Override
+	public Expr visitNot(final NotExpr e) {
+		return put(e, -lit(e.expr));
+	}
+
+	@Override
+	public Expr visitAnd(final AndExpr e) {
+		return put(e, and(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitOr(final OrExpr e) {
+		return put(e, or(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitNaryAnd(final NaryAndExpr e) {
+		return put(e, e.children.isEmpty() ? constant(true) : and(lits(e)));
+	}
+
+	@Override
+	public Expr visitNaryOr(final NaryOrExpr e) {
+		return put(e, e.children.isEmpty() ? constant(false) : or(lits(e)));
+	}
+
+	@Override
+	public Expr visitXOr(final XOrExpr e) {
+		return put(e, xor(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitNAnd(final NAndExpr e) {
+		return put(e, -and(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitNOr(final NOrExpr e) {
+		return put(e, -or(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitXNOr(final XNOrExpr e) {
+		return put(e, -xor(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitEqual(final EqualExpr e) {
+		return put(e, -xor(lit(e.left), lit(e.right)));
+	}
+
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		return put(e, mux(lit(e.select), lit(e.ifTrue), lit(e.ifFalse)));
+	}
+}
@@ -37,6 +37,7 @@ import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -228,6 +229,19 @@ public final class SimulatorGenerator extends ExprVisitor {
 		return e;
 	}
 
+	@Override
+	public Expr traverseMuxExpr(final MuxExpr e) {
+		// a native conditional, so only the chosen branch is evaluated
+		e.accept(this);
+		traverseExpr(e.select);
+		out.print(" ? ");
+		traverseExpr(e.ifTrue);
+		out.print(" : ");
+		traverseExpr(e.ifFalse);
+		out.print(") ");
+		return e;
+	}
+
 	@Override
 	public Expr visitConstant(final ConstantExpr e) {
 		out.print(Boolean.toString(e.b));
@@ -250,6 +264,7 @@ public final class SimulatorGenerator extends ExprVisitor {
 	@Override public Expr visitXNOr(final XNOrExpr e) { return visitOp(e); }
 	@Override public Expr visitNAnd(final NAndExpr e) { return visitOp(e); }
 	@Override public Expr visitEqual(final EqualExpr e) { return visitOp(e); }
+	@Override public Expr visitMux(final MuxExpr e) { out.print("("); return e; }
 	
 	private Expr visitOp(final Expr e) {
 		out.print(e.operator());
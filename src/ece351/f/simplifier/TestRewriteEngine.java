@@ -0,0 +1,144 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.simplifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.RewriteEngine;
+import ece351.common.ast.RuleSet;
+import ece351.common.ast.SimplifierCache;
+import ece351.common.ast.VarExpr;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+import ece351.util.CommandLine;
+import ece351.util.CommandLine.FSimplifierOptions;
+
+public class TestRewriteEngine extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	private static String simplify(final String s, final String level) {
+		final CommandLine c = new CommandLine("-h", level, s);
+		return FParser.parse(c).simplify(c.simplifierOpts).toString().trim();
+	}
+
+	@Test
+	public void optionsSelectRules() {
+		final String f = "x <= ((a and '1') or not not b) or (c and not c);";
+		assertEquals("x <= (('1' and a) or ((not c) and c) or (not (not b)));", simplify(f, "-o0"));
+		assertEquals("x <= (((not c) and c) or (not (not b)) or a);", simplify(f, "-o1"));
+		assertEquals("x <= (a or b);", simplify(f, "-o2"));
+		assertEquals(parse(f).simplify().toString().trim(), simplify(f, "-o4"));
+	}
+
+	@Test
+	public void xor() {
+		assertEquals("x <= a;", simplify("x <= (a xor '1') xor (b xnor b);", "-o4"));
+		assertEquals("x <= (not (a xor b));", simplify("x <= not a xor not not b;", "-o4"));
+		assertEquals("x <= '0';", simplify("x <= (a xor b) xor (b xor a);", "-o4"));
+		// a parity chain stays linear, and simplifies to something equivalent
+		final StringBuilder b = new StringBuilder("x <= v0");
+		for (int i = 1; i < 64; i++) {
+			b.append(i % 3 == 0 ? " xor not v" : " xnor v").append(i);
+		}
+		final FProgram p = parse(b.append(";").toString());
+		final FProgram s = p.simplify();
+		assertTrue(s.toString().length() < 2 * p.toString().length());
+		assertTrue(p.equivalent(s));
+	}
+
+	@Test
+	public void mux() {
+		assertEquals("x <= a;", simplify("x <= (a when '1' else b);", "-o4"));
+		assertEquals("x <= b;", simplify("x <= (a when s and not s else b);", "-o4"));
+		assertEquals("x <= a;", simplify("x <= (a when s else a);", "-o4"));
+		assertEquals("x <= (b when s else a);", simplify("x <= (a when not s else b);", "-o4"));
+		assertEquals("x <= ((not s) and b);", simplify("x <= ('0' when s else b);", "-o4"));
+		assertEquals("x <= (b or s);", simplify("x <= (s when s else b);", "-o4"));
+		// a chain of muxes mentions each select once, and stays equivalent
+		final StringBuilder b = new StringBuilder("x <= v0");
+		for (int i = 1; i < 32; i++) {
+			b.insert(5, "(v" + i + " when s" + i + " else ").append(")");
+		}
+		final FProgram p = parse(b.append(";").toString());
+		final FProgram s = p.simplify();
+		assertEquals(p.toString(), s.toString());
+		assertTrue(p.equivalent(s));
+	}
+
+	@Test
+	public void standardizeIsAlwaysOn() {
+		final RuleSet none = RuleSet.of(EnumSet.noneOf(FSimplifierOptions.class));
+		assertTrue(none.options.contains(FSimplifierOptions.STANDARDIZE));
+		assertEquals(RuleSet.ALL, RuleSet.of(EnumSet.range(FSimplifierOptions.STANDARDIZE, FSimplifierOptions.ABSORPTION)));
+		assertFalse(RuleSet.ALL.options.contains(FSimplifierOptions.MINIMIZE));
+	}
+
+	@Test
+	public void deepFormula() {
+		// deep enough that a recursive simplifier would be in trouble
+		final int n = 3000;
+		Expr e = VarExpr.make("v0");
+		for (int i = 1; i < n; i++) {
+			e = OrExpr.make(e, VarExpr.make("v" + i));
+		}
+		final RewriteEngine engine = new RewriteEngine(new SimplifierCache());
+		final Expr s = engine.rewrite(e);
+		assertTrue(s instanceof NaryOrExpr);
+		assertEquals(n, ((NaryOrExpr) s).children.size());
+		// every interior node is visited a bounded number of times
+		assertTrue(engine.toString(), engine.visits() <= 5 * n);
+	}
+
+	@Test
+	public void onlyDirtyNodesAreRevisited() {
+		final SimplifierCache cache = new SimplifierCache();
+		final Expr e = parse("x <= (a or b) and (c or d);").formulas.get(0).expr;
+		final Expr s = new RewriteEngine(cache).rewrite(e);
+		// the same tree a second time is answered from the cache
+		final RewriteEngine again = new RewriteEngine(cache);
+		assertEquals(s, again.rewrite(e));
+		assertEquals(0, again.visits());
+		// a new parent over simplified children only examines the parent
+		final RewriteEngine parent = new RewriteEngine(cache);
+		assertEquals(s, parent.rewrite(OrExpr.make(s, ConstantExpr.FalseExpr)));
+		assertTrue(parent.toString(), parent.visits() <= 3);
+	}
+}
@@ -0,0 +1,74 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.simplifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ece351.common.ast.Expr;
+import ece351.common.ast.SimplifierCache;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+
+public class TestSimplifierCache extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	@Test
+	public void sameResultAsUncached() {
+		final FProgram p = parse("x <= (a and '1') or (a and b); y <= not not ((a and '1') or (a and b)); z <= c or '0';");
+		final SimplifierCache cache = new SimplifierCache();
+		final FProgram cached = p.simplify(cache);
+		assertEquals(p.simplify(), cached);
+		// x and y share a cone, so the second formula should hit the cache
+		assertTrue(cache.hits() > 0);
+		assertSame(cached.formulas.get(0).expr, cached.formulas.get(1).expr);
+	}
+
+	@Test
+	public void fixedPointsAreRemembered() {
+		final SimplifierCache cache = new SimplifierCache();
+		final Expr e = parse("x <= (a or b) and (c or d);").formulas.get(0).expr;
+		final Expr s = e.simplify(cache);
+		assertTrue(cache.isSimplified(s));
+		assertSame(s, s.simplify(cache));
+		assertSame(s, e.simplify(cache));
+	}
+
+	@Test
+	public void bounded() {
+		final SimplifierCache cache = new SimplifierCache(4);
+		parse("a <= b or c; d <= e and f; g <= h or i or j; k <= not l;").simplify(cache);
+		assertTrue(cache.size() <= 4);
+	}
+}
@@ -29,6 +29,9 @@ package ece351.f.simplifier;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 import ece351.common.ast.ConstantExpr;
@@ -63,5 +66,37 @@ public class TestSimplifierNaryExpr extends BaseTest351 {
 		assertEquals(x, result);
 	}
 
+	@Test
+	public void testAbsorption() {
+		final VarExpr x = new VarExpr("x");
+		final VarExpr y = new VarExpr("y");
+		final VarExpr z = new VarExpr("z");
+		// x + x.y + y.z + x.y.z = x + y.z
+		final NaryExpr e = new NaryOrExpr(x, new NaryAndExpr(x, y), new NaryAndExpr(y, z), new NaryAndExpr(x, y, z));
+		assertEquals(new NaryOrExpr(x, new NaryAndExpr(y, z)), e.simplify());
+		// dually, x . (x + y) . (y + z) = x . (y + z)
+		final NaryExpr d = new NaryAndExpr(x, new NaryOrExpr(x, y), new NaryOrExpr(y, z));
+		assertEquals(new NaryAndExpr(x, new NaryOrExpr(y, z)), d.simplify());
+	}
 
+	@Test
+	public void testWideAbsorption() {
+		// the shape that Synthesizer produces: many products over shared inputs
+		final int n = 500;
+		final List<Expr> products = new ArrayList<Expr>();
+		for (int i = 0; i < n; i++) {
+			products.add(new NaryAndExpr(new VarExpr("a" + i), new VarExpr("b" + (i % 7)), new VarExpr("c" + (i % 11))));
+		}
+		for (int i = 0; i < 7; i++) {
+			products.add(new NaryAndExpr(new VarExpr("b" + i), new VarExpr("c" + i)));
+		}
+		final Expr result = new NaryOrExpr(products).simplify();
+		assertTrue(result.repOk());
+		// a_i.b_j.c_k is absorbed by b_j.c_k exactly when j == k
+		int kept = 7;
+		for (int i = 0; i < n; i++) {
+			if (i % 7 != i % 11) kept++;
+		}
+		assertEquals(kept, ((NaryOrExpr) result).children.size());
+	}
 }
@@ -35,16 +35,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.parboiled.common.ImmutableList;
-
 import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.Constants;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NaryAndExpr;
 import ece351.common.ast.NaryOrExpr;
 import ece351.common.ast.NotExpr;
 import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
 import ece351.f.ast.FProgram;
+import ece351.util.PersistentVector;
 import ece351.util.Tuple;
 
 
@@ -74,6 +77,8 @@ public final class GraphvizToF {
 
 		// A list of edges parsed from the input .dot file.
 		final ArrayList<Tuple<String, String>> edges = new ArrayList<Tuple<String, String>>();
+		// The label of each edge, or null: the port of a mux that it feeds.
+		final ArrayList<String> ports = new ArrayList<String>();
 		
 		// Read and parse input file line by line.
 		String strLine = null;
@@ -83,9 +88,19 @@ public final class GraphvizToF {
 			if((i = strLine.indexOf("->")) >= 0) {
 				// An edge.
 				final String source = strLine.substring(0, i-1).trim();
-				final String target = strLine.substring(i+3).replace(';', ' ').trim();
+				String target = strLine.substring(i+3).replace(';', ' ').trim();
+				String port = null;
+				final int j = target.indexOf('[');
+				if (j >= 0) {
+					final int k = target.indexOf("label=\"", j);
+					if (k >= 0) {
+						port = target.substring(k+7, target.indexOf('"', k+7));
+					}
+					target = target.substring(0, j).trim();
+				}
 
 				edges.add(new Tuple<String, String>(source, target));
+				ports.add(port);
 			} else {
 				// A node.
 				if(strLine.trim().startsWith("var") || strLine.trim().startsWith("Const")) {
@@ -107,17 +122,18 @@ public final class GraphvizToF {
 			final String key = entry.getKey();
 			final String val = entry.getValue();
 			if(key.startsWith("var")) {
-				exprMap.put(key, new VarExpr(val));
+				exprMap.put(key, VarExpr.make(val));
 			} else {
 				exprMap.put(key, ConstantExpr.make(val.replace('\'', ' ').trim()));
 			}
 		}
 
-		ImmutableList<AssignmentStatement> formulas = ImmutableList.of();
+		PersistentVector<AssignmentStatement> formulas = PersistentVector.of();
 
 		// Iterate through every edge, this is based on the assumption that
 		// the edges are sorted in post-order from the TechnologyMapper.
 		final ArrayList<Expr> children = new ArrayList<Expr>();
+		final Map<String, Expr> muxInputs = new HashMap<String, Expr>();
 		String previousTarget = "";
 		int gates = 0;
 		for(int i = 0; i < edges.size(); i++) {
@@ -128,19 +144,32 @@ public final class GraphvizToF {
 			if (target.equals(previousTarget) && !target.startsWith("var")) {
 				// new formula
 				children.add(exprMap.get(source));
+				if (ports.get(i) != null) muxInputs.put(ports.get(i), exprMap.get(source));
 			} else {
 				if(previousTarget.startsWith("or")) {
-					exprMap.put(previousTarget, new NaryOrExpr(children));
+					exprMap.put(previousTarget, NaryOrExpr.make(children));
 					gates++;
 				} else if (previousTarget.startsWith("and")) {
-					exprMap.put(previousTarget, new NaryAndExpr(children));
+					exprMap.put(previousTarget, NaryAndExpr.make(children));
 					gates++;
 				} else if (previousTarget.startsWith("not")) {
-					exprMap.put(previousTarget, new NotExpr(children.get(0)));
+					exprMap.put(previousTarget, NotExpr.make(children.get(0)));
+					gates++;
+				} else if (previousTarget.startsWith(Constants.XNOR)) {
+					exprMap.put(previousTarget, XNOrExpr.make(children.get(0), children.get(children.size() - 1)));
+					gates++;
+				} else if (previousTarget.startsWith(Constants.XOR)) {
+					// x xor x has only the one edge
+					exprMap.put(previousTarget, XOrExpr.make(children.get(0), children.get(children.size() - 1)));
+					gates++;
+				} else if (previousTarget.startsWith(Constants.MUX)) {
+					exprMap.put(previousTarget, MuxExpr.make(muxInputs.get(TechnologyMapper.SELECT), 
+							muxInputs.get(TechnologyMapper.IF_TRUE), muxInputs.get(TechnologyMapper.IF_FALSE)));
 					gates++;
 				}
 
 				children.clear();
+				muxInputs.clear();
 
 				if(target.startsWith("var")) {
 					final Expr sourceExpr = (Expr)exprMap.get(source);
@@ -150,6 +179,7 @@ public final class GraphvizToF {
 					formulas = formulas.append(new AssignmentStatement(targetExpr, sourceExpr));
 				} else {
 					children.add(exprMap.get(source));
+					if (ports.get(i) != null) muxInputs.put(ports.get(i), exprMap.get(source));
 				}
 
 				previousTarget = target;
@@ -35,14 +35,15 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import org.parboiled.common.ImmutableList;
-
 import kodkod.util.collections.IdentityHashSet;
 import ece351.common.ast.AndExpr;
 import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.Constants;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -50,6 +51,8 @@ import ece351.common.ast.NaryExpr;
 import ece351.common.ast.NaryOrExpr;
 import ece351.common.ast.NotExpr;
 import ece351.common.ast.OrExpr;
+import ece351.common.ast.RuleSet;
+import ece351.common.ast.SimplifierCache;
 import ece351.common.ast.VarExpr;
 import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
@@ -57,6 +60,8 @@ import ece351.common.visitor.PostOrderExprVisitor;
 import ece351.f.FParser;
 import ece351.f.analysis.ExtractAllExprs;
 import ece351.f.ast.FProgram;
+import ece351.util.CommandLine;
+import ece351.util.CommandLine.FSimplifierOptions;
 import ece351.util.Examiner;
 
 public final class TechnologyMapper extends PostOrderExprVisitor {
@@ -96,8 +101,17 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 	 */
 	private final Set<String> edges = new LinkedHashSet<String>();
 	
+	/** Simplifies the gates rewritten by De Morgan's laws in render(). */
+	private final SimplifierCache simplifier;
+	
 	public TechnologyMapper(final PrintWriter out) {
+		this(out, RuleSet.ALL.options);
+	}
+	
+	/** Simplify with only the rules enabled by options (e.g., CommandLine.simplifierOpts). */
+	public TechnologyMapper(final PrintWriter out, final Set<FSimplifierOptions> options) {
 		this.out = out;
+		this.simplifier = new SimplifierCache(RuleSet.of(options));
 	}
 	
 	public TechnologyMapper() {
@@ -108,7 +122,9 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 		main(new String[]{arg});
 	}
 	public static void main(final String[] args) {
-		render(FParser.parse(args), new PrintWriter(System.out));
+		final CommandLine c = new CommandLine(args);
+		// every rule, as always, unless -o asks for fewer
+		render(FParser.parse(c), new PrintWriter(System.out), c.simplifierOptGiven ? c.simplifierOpts : RuleSet.ALL.options);
 	}
 	
 	/**
@@ -119,6 +135,15 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 		tm.render(program);
 	}
 
+	/**
+	 * Translate an FProgram to Graphviz format, simplifying with only the
+	 * rules enabled by options.
+	 */
+	public static void render(final FProgram program, final PrintWriter out, final Set<FSimplifierOptions> options) {
+		final TechnologyMapper tm = new TechnologyMapper(out, options);
+		tm.render(program);
+	}
+
 	public void render(final FProgram program) {
 		render(program, Examiner.Isomorphic);
 	}
@@ -151,15 +176,15 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 						// List<Expr> simplified_childrens_new = new LinkedList<>();
 						// List<Expr> simplified_childrens_old = new LinkedList<>();
 						for (Expr children : ((NaryExpr)e).children) {
-							NotExpr simp_child = new NotExpr(children);
-							simplified_childrens_new.add(simp_child.simplify());
+							NotExpr simp_child = NotExpr.make(children);
+							simplified_childrens_new.add(simp_child.simplify(simplifier));
 							simplified_childrens_old.add(children);
 						}
 						NaryExpr a;
 						if (e instanceof NaryAndExpr) {
-							a = new NaryOrExpr(simplified_childrens_new);
+							a = NaryOrExpr.make(simplified_childrens_new);
 						} else {
-							a = new NaryAndExpr(simplified_childrens_new);
+							a = NaryAndExpr.make(simplified_childrens_new);
 						}
 						simplified = a;
 						simplified_childrens_new.add(simplified);
@@ -177,18 +202,18 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 					// List<Expr> simplified_childrens_new = new LinkedList<>();
 					// List<Expr> simplified_childrens_old = new LinkedList<>();
 					for (Expr children : ((NaryExpr)e).children) {
-						NotExpr simp_child = new NotExpr(children);
-						simplified_childrens_new.add(simp_child.simplify());
-						simplified_childrens_old.add(simp_child.simplify());
+						NotExpr simp_child = NotExpr.make(children);
+						simplified_childrens_new.add(simp_child.simplify(simplifier));
+						simplified_childrens_old.add(simp_child.simplify(simplifier));
 						simplified_childrens_old.add(children);
 					}
 					NaryExpr a;
 					if (e instanceof NaryAndExpr) {
-						a = new NaryOrExpr(simplified_childrens_new);
+						a = NaryOrExpr.make(simplified_childrens_new);
 					} else {
-						a = new NaryAndExpr(simplified_childrens_new);
+						a = NaryAndExpr.make(simplified_childrens_new);
 					}
-					simplified = new NotExpr(((Expr) a));
+					simplified = NotExpr.make(((Expr) a));
 					simplified_childrens_new.add(simplified);
 					simplified_childrens_new.add(a);
 					simplified_childrens_old.add(e);
@@ -349,6 +374,39 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 		return e;
 	}
 
+	/** There is no xor gate image, so xor gates are drawn as labelled nodes. */
+	@Override public Expr visitXOr(final XOrExpr e) {
+		return parity(e, false);
+	}
+
+	@Override public Expr visitXNOr(final XNOrExpr e) {
+		return parity(e, true);
+	}
+
+	/** An xor gate, or an xnor gate if inverted. */
+	private Expr parity(final BinaryExpr e, final boolean inverted) {
+		final Expr e2 = substitutions.get(e);
+		assert e2 != null : "no substitution for " + e + " " + e.serialNumber();
+		node(e2.serialNumber(), inverted ? Constants.XNOR : Constants.XOR);
+		edge(e.left, e2);
+		edge(e.right, e2);
+		return e;
+	}
+
+	@Override public Expr visitMux(final MuxExpr e) {
+		final Expr e2 = substitutions.get(e);
+		assert e2 != null : "no substitution for " + e + " " + e.serialNumber();
+		node(e2.serialNumber(), e.operator());
+		// labelled, so that GraphvizToF can tell the inputs apart, and
+		// so that equal inputs still get an edge each
+		edge(e.select, e2, SELECT);
+		edge(e.ifTrue, e2, IF_TRUE);
+		edge(e.ifFalse, e2, IF_FALSE);
+		return e;
+	}
+
+	/** The labels of the edges into a mux. */
+	static final String SELECT = "s", IF_TRUE = "1", IF_FALSE = "0";
 
 	private void node(final String name, final String label) {
 		nodes.add("    " + name + "[label=\"" + label + "\"];");
@@ -365,11 +423,14 @@ public final class TechnologyMapper extends PostOrderExprVisitor {
 	private void edge(final String source, final String target) {
 		edges.add("    " + source + " -> " + target + " ;");
 	}
+
+	private void edge(final Expr source, final Expr target, final String label) {
+		edges.add(String.format("    %s -> %s [label=\"%s\"] ;", 
+				substitutions.get(source).serialNumber(), substitutions.get(target).serialNumber(), label));
+	}
 	
-	@Override public Expr visitXOr(final XOrExpr e) { throw new IllegalStateException("TechnologyMapper does not support " + e.getClass()); }
 	@Override public Expr visitNAnd(final NAndExpr e) { throw new IllegalStateException("TechnologyMapper does not support " + e.getClass()); }
 	@Override public Expr visitNOr(final NOrExpr e) { throw new IllegalStateException("TechnologyMapper does not support " + e.getClass()); }
-	@Override public Expr visitXNOr(final XNOrExpr e) { throw new IllegalStateException("TechnologyMapper does not support " + e.getClass()); }
 	@Override public Expr visitEqual(final EqualExpr e) { throw new IllegalStateException("TechnologyMapper does not support " + e.getClass()); }
 
 }
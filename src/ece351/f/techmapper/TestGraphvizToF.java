@@ -0,0 +1,73 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.techmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+import ece351.util.Tuple;
+
+public final class TestGraphvizToF extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** Render p with the TechnologyMapper and read it back. */
+	private static Tuple<FProgram,Integer> roundTrip(final FProgram p) throws IOException {
+		final StringWriter sw = new StringWriter();
+		new TechnologyMapper(new PrintWriter(sw)).render(p);
+		return GraphvizToF.graphvizToF(new BufferedReader(new StringReader(sw.toString())));
+	}
+
+	@Test
+	public void xor() throws IOException {
+		final FProgram p = parse("x <= a xor b; y <= (a and c) xnor b; z <= (a xor c) or not b;");
+		final Tuple<FProgram,Integer> t = roundTrip(p);
+		assertTrue(t.x.toString(), p.equivalent(t.x));
+		// xor, and, xnor, xor, not, or
+		assertEquals(6, t.y.intValue());
+	}
+
+	@Test
+	public void mux() throws IOException {
+		final FProgram p = parse("y <= (a when s else b); z <= (s when s else (a and b));");
+		final Tuple<FProgram,Integer> t = roundTrip(p);
+		assertTrue(t.x.toString(), p.equivalent(t.x));
+	}
+}
@@ -36,9 +36,12 @@ import ece351.common.ast.AndExpr;
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.BinaryExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NotExpr;
 import ece351.common.ast.OrExpr;
 import ece351.common.ast.VarExpr;
+import ece351.common.ast.XNOrExpr;
+import ece351.common.ast.XOrExpr;
 import ece351.f.ast.FProgram;
 import ece351.util.BaseTest351;
 
@@ -132,6 +135,42 @@ public abstract class AbstractTestFParserBasic extends BaseTest351 {
 		assertFalse("unexpectedly equals: " + fp1 + " " + fp2, fp1.equals(fp2));
 	}
 	
+	/**
+	 * x <= a xor b and c; xor binds like or. 
+	 */
+	@Test
+	public void testXOr() {
+		final VarExpr a = VarExpr.make("a");
+		final VarExpr b = VarExpr.make("b");
+		final VarExpr c = VarExpr.make("c");
+		final FProgram fp = parse("x <= a xor b and c;");
+		compareExpectSame(fp, construct(XOrExpr.make(a, AndExpr.make(b, c))));
+		compareExpectDifferent(fp, construct(AndExpr.make(XOrExpr.make(a, b), c)));
+		compareExpectSame(parse("x <= a xnor b or c;"), construct(OrExpr.make(XNOrExpr.make(a, b), c)));
+	}
+
+	/**
+	 * x <= (a when s else b and c); the branches and select are whole exprs.
+	 */
+	@Test
+	public void testMux() {
+		final VarExpr a = VarExpr.make("a");
+		final VarExpr b = VarExpr.make("b");
+		final VarExpr c = VarExpr.make("c");
+		final VarExpr s = VarExpr.make("s");
+		final FProgram fp = parse("x <= (a when s else b and c);");
+		compareExpectSame(fp, construct(MuxExpr.make(s, a, AndExpr.make(b, c))));
+		compareExpectDifferent(fp, construct(MuxExpr.make(s, AndExpr.make(b, c), a)));
+		compareExpectSame(parse("x <= not (a when s or c else b);"), 
+				construct(NotExpr.make(MuxExpr.make(OrExpr.make(s, c), a, b))));
+		// toString() writes the same syntax back out
+		compareExpectSame(parse(fp.toString()), fp);
+	}
+
+	private static FProgram construct(final Expr e) {
+		return new FProgram().append(new AssignmentStatement(VarExpr.make("x"), e));
+	}
+
 	private FProgram constructNot() {
 		return constructNot("a");
 	}
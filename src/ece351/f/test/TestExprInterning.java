@@ -0,0 +1,106 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.OrExpr;
+import ece351.common.ast.VarExpr;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+
+/**
+ * Structurally equal Exprs made through the factory methods should be
+ * the same object.
+ */
+public class TestExprInterning extends BaseTest351 {
+
+	@Test
+	public void vars() {
+		final VarExpr x1 = VarExpr.make(new String("x"));
+		final VarExpr x2 = VarExpr.make(new String("x"));
+		assertSame(x1, x2);
+		assertTrue(x1.isInterned());
+	}
+
+	@Test
+	public void binary() {
+		final Expr e1 = AndExpr.make(VarExpr.make("a"), NotExpr.make(VarExpr.make("b")));
+		final Expr e2 = AndExpr.make(VarExpr.make("a"), NotExpr.make(VarExpr.make("b")));
+		assertSame(e1, e2);
+		// same children, different operator
+		final Expr e3 = OrExpr.make(VarExpr.make("a"), NotExpr.make(VarExpr.make("b")));
+		assertNotSame(e1, e3);
+		assertTrue(!e1.equals(e3));
+	}
+
+	@Test
+	public void nary() {
+		// children are sorted, so argument order does not matter
+		final Expr e1 = NaryOrExpr.make(VarExpr.make("b"), VarExpr.make("a"));
+		final Expr e2 = NaryOrExpr.make(VarExpr.make("a"), VarExpr.make("b"));
+		assertSame(e1, e2);
+		final NaryAndExpr e3 = NaryAndExpr.make(VarExpr.make("a"), VarExpr.make("b"));
+		assertSame(e3, e3.newNaryExpr(e3.children));
+	}
+
+	@Test
+	public void constructorStillWorks() {
+		// objects made with new are not interned, but are still equal
+		final Expr e1 = new AndExpr(new VarExpr("a"), ConstantExpr.TrueExpr);
+		final Expr e2 = AndExpr.make(VarExpr.make("a"), ConstantExpr.TrueExpr);
+		assertNotSame(e1, e2);
+		assertEquals(e1, e2);
+		assertEquals(e2, e1);
+		assertEquals(e1.hashCode(), e2.hashCode());
+		assertSame(e2, Expr.intern(e1));
+	}
+
+	@Test
+	public void parserShares() {
+		final FProgram p = FParser.parse(new String[]{"x <= a and b; y <= a and b;", "-h"});
+		assertSame(p.formulas.get(0).expr, p.formulas.get(1).expr);
+	}
+
+	@Test
+	public void simplifierShares() {
+		final FProgram p = FParser.parse(new String[]{"x <= (a or b) and c; y <= c and (b or a);", "-h"}).simplify();
+		assertSame(p.formulas.get(0).expr, p.formulas.get(1).expr);
+	}
+}
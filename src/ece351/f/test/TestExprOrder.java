@@ -0,0 +1,147 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.f.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ece351.common.ast.AndExpr;
+import ece351.common.ast.ConstantExpr;
+import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
+import ece351.common.ast.NaryAndExpr;
+import ece351.common.ast.NaryOrExpr;
+import ece351.common.ast.NotExpr;
+import ece351.common.ast.VarExpr;
+import ece351.common.ast.XOrExpr;
+import ece351.f.FParser;
+import ece351.f.analysis.ExtractAllExprs;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+import ece351.util.TestInputs351;
+
+/**
+ * Expr.compareTo must be a total order consistent with equals(), for
+ * interned and constructor-built nodes alike, since NaryExpr sorts its
+ * children with it.
+ */
+public class TestExprOrder extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	private static List<FProgram> formulaFiles() {
+		final List<FProgram> programs = new ArrayList<FProgram>();
+		for (final Object[] row : TestInputs351.formulaFiles()) {
+			programs.add(parse(((File) row[0]).getAbsolutePath()));
+		}
+		assertTrue("no formula files", !programs.isEmpty());
+		return programs;
+	}
+
+	/** Some of the subexpressions of the test formulas, with constructor-built twins. */
+	private static List<Expr> sample(final int n) {
+		final List<Expr> exprs = new ArrayList<Expr>();
+		final VarExpr a = new VarExpr("a"), b = new VarExpr("b"), c = new VarExpr("c");
+		exprs.add(new AndExpr(a, new NotExpr(b)));
+		exprs.add(AndExpr.make(VarExpr.make("a"), NotExpr.make(VarExpr.make("b"))));
+		exprs.add(new NaryOrExpr(a, b, c));
+		exprs.add(NaryOrExpr.make(VarExpr.make("c"), VarExpr.make("a"), VarExpr.make("b")));
+		exprs.add(new NaryAndExpr(a, b));
+		exprs.add(new MuxExpr(a, b, ConstantExpr.FalseExpr));
+		exprs.add(new XOrExpr(a, b));
+		exprs.add(new XOrExpr(b, a));
+		exprs.add(ConstantExpr.TrueExpr);
+		for (final FProgram p : formulaFiles()) {
+			for (final Expr e : ExtractAllExprs.allExprs(p)) {
+				if (exprs.size() >= n) return exprs;
+				exprs.add(e);
+			}
+		}
+		return exprs;
+	}
+
+	@Test
+	public void antisymmetricAndConsistentWithEquals() {
+		final List<Expr> exprs = sample(400);
+		for (final Expr x : exprs) {
+			for (final Expr y : exprs) {
+				final int xy = Integer.signum(x.compareTo(y));
+				assertEquals(x + " vs " + y, -xy, Integer.signum(y.compareTo(x)));
+				assertEquals(x + " vs " + y, xy == 0, x.equals(y));
+			}
+		}
+	}
+
+	@Test
+	public void transitive() {
+		final List<Expr> exprs = sample(80);
+		for (final Expr x : exprs) {
+			for (final Expr y : exprs) {
+				if (x.compareTo(y) > 0) continue;
+				for (final Expr z : exprs) {
+					if (y.compareTo(z) <= 0) {
+						assertTrue(x + " <= " + y + " <= " + z, x.compareTo(z) <= 0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void constructorBuiltNodesCompareEqual() {
+		final Expr made = NaryAndExpr.make(VarExpr.make("b"), NotExpr.make(VarExpr.make("a")));
+		final Expr built = new NaryAndExpr(new NotExpr(new VarExpr("a")), new VarExpr("b"));
+		assertEquals(0, made.compareTo(built));
+		assertEquals(0, built.compareTo(made));
+		assertEquals(made, built);
+	}
+
+	/**
+	 * The staff outputs are compared as ASTs, never as text, and the 
+	 * parser sorts operands with compareTo as it builds them. So the 
+	 * operand order in which a file was printed does not matter: a 
+	 * program reads back the same whichever order it was printed in.
+	 */
+	@Test
+	public void printedOrderDoesNotMatter() {
+		for (final FProgram p : formulaFiles()) {
+			final FProgram q = parse(p.toString());
+			assertEquals(p, q);
+			assertTrue(p.isomorphic(q));
+			final FProgram s = p.simplify();
+			assertEquals(s, parse(s.toString()).simplify());
+		}
+	}
+}
@@ -69,7 +69,11 @@ public final class Boolean351 {
 	}
 
 	public static boolean xor(final boolean b1, final boolean b2) {
-		return or(b1,b2) && not(and(b1,b2));
+		return b1 != b2;
+	}
+
+	public static boolean xnor(final boolean b1, final boolean b2) {
+		return b1 == b2;
 	}
 	
 	public static boolean implies(final boolean antecedant, final boolean consequent) {
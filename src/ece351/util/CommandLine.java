@@ -36,6 +36,8 @@ import java.util.EnumSet;
 
 import org.parboiled.common.FileUtils;
 
+import ece351.f.equivalence.Equivalence;
+
 
 public final class CommandLine {
 	
@@ -44,7 +46,8 @@ public final class CommandLine {
 		CONSTANT,
 		COMPLEMENT,
 		DEDUPLICATION,
-		ABSORPTION 
+		ABSORPTION,
+		MINIMIZE
 	}
 
 	public final int argcount;
@@ -55,6 +58,21 @@ public final class CommandLine {
 	
 	public final int simplifierOptLevel;
 	public final EnumSet<FSimplifierOptions> simplifierOpts;
+	/** Whether -o was given, rather than simplifierOptLevel being the default. */
+	public final boolean simplifierOptGiven;
+	
+	/** Wall-clock budget of one equivalence check in milliseconds, or 0 for none. */
+	public final long equivalenceTimeout;
+	/** Conflict budget of the SAT engines, or 0 for their default. */
+	public final long equivalenceConflicts;
+	/** Node budget of the BDD engine, or 0 for its default. */
+	public final int equivalenceNodes;
+	/** Comma-separated equivalence engines to try in order, or null for the default chain. */
+	public final String equivalenceEngines;
+	/** Lower xor and xnor to and, or and not after synthesis. */
+	public final boolean desugarXOr;
+	/** When lowering xor after synthesis, name compound operands with internal variables instead of copying them. */
+	public final boolean desugarShared;
 	
 	private String outputSpec = UNRESOLVED;
 	
@@ -90,6 +108,13 @@ public final class CommandLine {
 		boolean v = true; // debug flag is on by default
 		boolean d = false;
 		int o = 1; // Default level for simplifier
+		boolean oGiven = false;
+		long timeout = 0;
+		long conflicts = 0;
+		int nodes = 0;
+		String engines = null;
+		boolean x = false;
+		boolean share = false;
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].length() == 0 || args[i].replaceAll(" *", "").length() == 0) {
 				// ignore empty strings
@@ -109,11 +134,34 @@ public final class CommandLine {
 			} else if (args[i].equals("-d")) {
 				d = true;
 				continue;
+			} else if (args[i].equals("-desugar")) {
+				x = true;
+				continue;
+			} else if (args[i].equals("-share")) {
+				share = true;
+				continue;
 			} else if (args[i].equals("-f")) {
 				i++;
 				outputSpec = args[i];
 				continue;
+			} else if (args[i].equals("-timeout")) {
+				i++;
+				timeout = Long.parseLong(args[i]);
+				continue;
+			} else if (args[i].equals("-conflicts")) {
+				i++;
+				conflicts = Long.parseLong(args[i]);
+				continue;
+			} else if (args[i].equals("-nodes")) {
+				i++;
+				nodes = Integer.parseInt(args[i]);
+				continue;
+			} else if (args[i].equals("-engines")) {
+				i++;
+				engines = args[i];
+				continue;
 			} else if (args[i].startsWith("-o")) {
+				oGiven = true;
 				try {
 					if (!args[i].equals("-o")) {	// extract optimization level only if specified
 						o = Integer.parseInt(args[i].substring(2));
@@ -137,9 +185,29 @@ public final class CommandLine {
 		parbparser = p;
 		parseDOM = d;
 		
+		if (timeout < 0 || conflicts < 0 || nodes < 0) {
+			throw new IllegalArgumentException("equivalence budgets cannot be negative");
+		}
+		if (engines != null) {
+			for (final String name : engines.split(",")) {
+				if (!Equivalence.ENGINE_NAMES.contains(name.trim())) {
+					throw new IllegalArgumentException("unknown equivalence engine: " + name.trim());
+				}
+			}
+		}
+		equivalenceTimeout = timeout;
+		equivalenceConflicts = conflicts;
+		equivalenceNodes = nodes;
+		equivalenceEngines = engines;
+		desugarXOr = x;
+		desugarShared = share;
+		
 		simplifierOptLevel = o;
+		simplifierOptGiven = oGiven;
 		simplifierOpts = EnumSet.noneOf(FSimplifierOptions.class);
 		switch(simplifierOptLevel) {
+			case 5:
+				simplifierOpts.add(FSimplifierOptions.MINIMIZE);
 			case 4:
 				simplifierOpts.add(FSimplifierOptions.ABSORPTION);
 			case 3:
@@ -50,6 +50,11 @@ public final class ExaminableTuple<X, Y> implements Examinable {
 		return examine(Examiner.Equivalent, obj);
 	}
 	
+	@Override
+	public int hashCode() {
+		return 13 * (x == null ? 0 : x.hashCode()) + (y == null ? 0 : y.hashCode());
+	}
+
 	@Override
 	public boolean equals(final Object obj) {
 		if (obj instanceof Examinable) {
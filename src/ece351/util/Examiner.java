@@ -26,10 +26,12 @@
 
 package ece351.util;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-
-import org.parboiled.common.ImmutableList;
+import java.util.Map;
 
 public enum Examiner {
 
@@ -41,6 +43,9 @@ public enum Examiner {
 			return a.equals(b);
 		}
 
+		public int signature(final Examinable x) {
+			return x == null ? 0 : x.hashCode();
+		}
 	},
 	
 	Equivalent {
@@ -50,6 +55,10 @@ public enum Examiner {
 			if (b == null) return false;
 			return a.equivalent(b);
 		}
+
+		public int signature(final Examinable x) {
+			return x instanceof EquivalentHashable ? ((EquivalentHashable) x).equivalentHashCode() : 0;
+		}
 	},
 
 	Isomorphic {
@@ -59,10 +68,23 @@ public enum Examiner {
 			if (b == null) return false;
 			return a.isomorphic(b);
 		}
+
+		public int signature(final Examinable x) {
+			return x instanceof IsomorphicHashable ? ((IsomorphicHashable) x).isomorphicHashCode() : 0;
+		}
 	};
 	
 	public abstract boolean examine(final Examinable a, final Examinable b);
 
+	/**
+	 * A hash that agrees on any two objects that this examiner would
+	 * match: hashCode() for Equals, isomorphicHashCode() for Isomorphic
+	 * and equivalentHashCode() for Equivalent. Objects of types that have
+	 * no such hash all get 0. Objects with different signatures are never
+	 * examined against each other by symmetricDifference().
+	 */
+	public abstract int signature(final Examinable x);
+
 	/**
 	 * Returns true if the two lists have the same elements 
 	 * in the same order.
@@ -105,7 +127,9 @@ public enum Examiner {
 	 * by the examiner. If failfast is used then the results will be incomplete,
 	 * and are only reliable as an indication of whether the difference is non-empty.
 	 * This code assumes that individual examination calls are expensive, and makes
-	 * an effort to reduce their number.
+	 * an effort to reduce their number: the elements of B are bucketed by 
+	 * signature(), and each element of A is only examined against the 
+	 * unmatched elements of B in its own bucket.
 	 * @param e
 	 * @param a
 	 * @param b
@@ -113,7 +137,7 @@ public enum Examiner {
 	 * @return
 	 */
 	public static <T extends Examinable, L extends List<T>> Tuple<? extends List<T>,? extends List<T>> symmetricDifference(final Examiner e, final L a, final L b, final boolean failfast) {
-		final ImmutableList<T> empty = ImmutableList.of();
+		final PersistentVector<T> empty = PersistentVector.of();
 		if (a == null && b == null) return new Tuple<List<T>,List<T>>(empty,empty);
 		if (a == null) return new Tuple<List<T>,List<T>>(empty,b);
 		if (b == null) return new Tuple<List<T>,List<T>>(a,empty);
@@ -121,20 +145,32 @@ public enum Examiner {
 			if (a.size() != b.size()) return new Tuple<List<T>,List<T>>(a,b);
 		}
 		// now we know that both are not null
-		ImmutableList<T> aResult = empty;
+		PersistentVector<T> aResult = empty;
 		final int sizeB = b.size();
 		final BitSet bitsB = new BitSet(sizeB);
+		// unmatched indices of B, by signature, in increasing order
+		final Map<Integer,List<Integer>> buckets = new HashMap<Integer,List<Integer>>();
+		for (int j = 0; j < sizeB; j++) {
+			final Integer s = e.signature(b.get(j));
+			List<Integer> bucket = buckets.get(s);
+			if (bucket == null) {
+				bucket = new ArrayList<Integer>();
+				buckets.put(s, bucket);
+			}
+			bucket.add(j);
+		}
 		// check that everything in A is also in B
 		for (final T x : a) {
 			boolean matched = false;
-			for (int j = 0; j < sizeB; j++) {
-				if (!bitsB.get(j)) {
-					// we haven't matched this index yet, try to do so now
-					final T y = b.get(j);
-					if (e.examine(x, y)) {
+			final List<Integer> candidates = buckets.get(e.signature(x));
+			if (candidates != null) {
+				for (final Iterator<Integer> it = candidates.iterator(); it.hasNext(); ) {
+					final int j = it.next();
+					if (e.examine(x, b.get(j))) {
 						// matched!
 						matched = true;
 						bitsB.set(j);
+						it.remove();
 						break;
 					}
 				}
@@ -145,7 +181,7 @@ public enum Examiner {
 			}
 		}
 		// what didn't match from B?
-		ImmutableList<T> bResult = empty;
+		PersistentVector<T> bResult = empty;
 		for (int i = 0; i < sizeB; i++) {
 			if (!bitsB.get(i)) {
 				bResult = bResult.append(b.get(i));
@@ -153,7 +189,7 @@ public enum Examiner {
 		}
 		return new Tuple<List<T>,List<T>>(aResult,bResult);
 	}
-	
+
 	/**
 	 * Wrapper for types that do not extend Examinable.
 	 * For example, could be used to compare two lists of strings.
@@ -163,8 +199,8 @@ public enum Examiner {
 	 * @return
 	 */
 	public static <T> boolean unorderedEquals(final List<T> a, final List<T> b) {
-		ImmutableList<EqualsExaminer<T>> la = ImmutableList.of();
-		ImmutableList<EqualsExaminer<T>> lb = ImmutableList.of();
+		PersistentVector<EqualsExaminer<T>> la = PersistentVector.of();
+		PersistentVector<EqualsExaminer<T>> lb = PersistentVector.of();
 		for (final T item : a) { la = la.append(new EqualsExaminer<T>(item)); }
 		for (final T item : b) { lb = lb.append(new EqualsExaminer<T>(item)); }
 		return unorderedExamination(Examiner.Equals, la, lb);
@@ -177,8 +213,8 @@ public enum Examiner {
 	 * @return
 	 */
 	public static <T> boolean orderedEquals(final List<T> a, final List<T> b) {
-		ImmutableList<EqualsExaminer<T>> la = ImmutableList.of();
-		ImmutableList<EqualsExaminer<T>> lb = ImmutableList.of();
+		PersistentVector<EqualsExaminer<T>> la = PersistentVector.of();
+		PersistentVector<EqualsExaminer<T>> lb = PersistentVector.of();
 		for (final T item : a) { la = la.append(new EqualsExaminer<T>(item)); }
 		for (final T item : b) { lb = lb.append(new EqualsExaminer<T>(item)); }
 		return orderedExamination(Examiner.Equals, la, lb);
@@ -197,6 +233,8 @@ public enum Examiner {
 			return this.item.equals(that.item);
 		}
 		@Override
+		public int hashCode() { return item.hashCode(); }
+		@Override
 		public boolean isomorphic(Examinable obj) { return equals(obj); }
 		@Override
 		public boolean equivalent(Examinable obj) { return equals(obj);	}
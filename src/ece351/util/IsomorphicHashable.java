@@ -0,0 +1,44 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.util;
+
+/**
+ * An Examinable with a hash code that is consistent with isomorphic(),
+ * in the way that hashCode() is consistent with equals(): isomorphic
+ * objects have the same isomorphicHashCode(). Lets unordered comparisons
+ * (see Examiner.symmetricDifference()) compare only objects whose hashes 
+ * match, instead of every pair.
+ */
+public interface IsomorphicHashable extends Examinable {
+
+	/**
+	 * Equal for any two objects that are isomorphic. Must not depend on 
+	 * the order of anything that isomorphic() allows to be reordered.
+	 */
+	public int isomorphicHashCode();
+
+}
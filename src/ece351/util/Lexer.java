@@ -110,7 +110,9 @@ public final class Lexer {
             }
         }
         token = stringBuilder.toString();
-        if (token.equals("and") || token.equals("or") || token.equals("not")) {
+        if (token.equals("and") || token.equals("or") || token.equals("not")
+        		|| token.equals("xor") || token.equals("xnor")
+        		|| token.equals("when") || token.equals("else")) {
             kind = Kind.KEYWORD;
         }
     }
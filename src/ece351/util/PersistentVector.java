@@ -0,0 +1,250 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An immutable, array-backed list with a cheap append.
+ * 
+ * parboiled's ImmutableList copies the whole list on every append,
+ * so building a list one element at a time is O(n^2). A PersistentVector
+ * over-allocates its backing array and lets all of the vectors that are
+ * prefixes of one another share it: appending to the longest vector of
+ * a family writes into the spare capacity, so the usual
+ * <code>list = list.append(x)</code> loop is amortized O(1) per element.
+ * Appending to any other member of the family copies, so older vectors
+ * are never affected by an append.
+ * 
+ * Use a Builder for bulk construction.
+ * 
+ * The AST classes that hold PersistentVectors keep overloads of their
+ * constructors and setters that take an ImmutableList, so that code 
+ * compiled against the old signatures (such as the prebuilt V parser)
+ * still links. New code should pass any List.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final Object[] NO_ELEMENTS = new Object[0];
+	private static final PersistentVector<Object> EMPTY = new PersistentVector<Object>(NO_ELEMENTS, 0, new AtomicInteger(0));
+
+	/** Backing array, shared by every vector in this family. */
+	private final Object[] elements;
+	/** Number of elements visible through this vector. */
+	private final int size;
+	/** Number of slots of the backing array that are in use by the family. */
+	private final AtomicInteger claimed;
+
+	private PersistentVector(final Object[] elements, final int size, final AtomicInteger claimed) {
+		this.elements = elements;
+		this.size = size;
+		this.claimed = claimed;
+	}
+
+	/** Takes ownership of the array: the caller must not modify it again. */
+	private static <E> PersistentVector<E> wrap(final Object[] elements, final int size) {
+		if (size == 0) return of();
+		return new PersistentVector<E>(elements, size, new AtomicInteger(size));
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentVector<E> of() {
+		return (PersistentVector<E>) EMPTY;
+	}
+
+	public static <E> PersistentVector<E> of(final E e) {
+		return wrap(new Object[]{e}, 1);
+	}
+
+	@SafeVarargs
+	public static <E> PersistentVector<E> of(final E... es) {
+		return wrap(Arrays.copyOf(es, es.length, Object[].class), es.length);
+	}
+
+	/**
+	 * Vectors are immutable, so a vector argument is aliased
+	 * rather than copied.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentVector<E> copyOf(final Collection<? extends E> c) {
+		if (c instanceof PersistentVector<?>) return (PersistentVector<E>) c;
+		final Object[] a = c.toArray();
+		return wrap(a, a.length);
+	}
+
+	/**
+	 * A sorted copy of the argument, made with a single array copy.
+	 */
+	public static <E extends Comparable<? super E>> PersistentVector<E> sortedCopyOf(final Collection<? extends E> c) {
+		final Object[] a = c.toArray();
+		Arrays.sort(a);
+		return wrap(a, a.length);
+	}
+
+	public static <E> Builder<E> builder() {
+		return new Builder<E>(8);
+	}
+
+	public static <E> Builder<E> builder(final int expectedSize) {
+		return new Builder<E>(expectedSize);
+	}
+
+	/**
+	 * A new vector with all of the elements of this one plus the argument.
+	 * This vector is unchanged.
+	 */
+	public PersistentVector<E> append(final E e) {
+		if (size < elements.length && claimed.compareAndSet(size, size + 1)) {
+			// we are the longest vector of our family and there is room
+			elements[size] = e;
+			return new PersistentVector<E>(elements, size + 1, claimed);
+		}
+		final Object[] a = Arrays.copyOf(elements, grow(size, 1));
+		a[size] = e;
+		return new PersistentVector<E>(a, size + 1, new AtomicInteger(size + 1));
+	}
+
+	/**
+	 * A new vector with all of the elements of this one followed by 
+	 * all of the elements of the argument. This vector is unchanged.
+	 */
+	public PersistentVector<E> appendAll(final Collection<? extends E> c) {
+		if (c.isEmpty()) return this;
+		if (size == 0) return copyOf(c);
+		final Object[] extra = c.toArray();
+		final int n = extra.length;
+		if (size + n <= elements.length && claimed.compareAndSet(size, size + n)) {
+			System.arraycopy(extra, 0, elements, size, n);
+			return new PersistentVector<E>(elements, size + n, claimed);
+		}
+		final Object[] a = Arrays.copyOf(elements, grow(size, n));
+		System.arraycopy(extra, 0, a, size, n);
+		return new PersistentVector<E>(a, size + n, new AtomicInteger(size + n));
+	}
+
+	private static int grow(final int size, final int extra) {
+		return Math.max(size + extra, Math.max(4, size + (size >> 1)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E get(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+		}
+		return (E) elements[index];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj == this) return true;
+		if (obj instanceof PersistentVector<?>) {
+			final PersistentVector<?> that = (PersistentVector<?>) obj;
+			if (this.size != that.size) return false;
+			// members of the same family share their prefix
+			if (this.elements == that.elements) return true;
+		}
+		return super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+	/**
+	 * Accumulates elements in a growable array, then freezes them into 
+	 * a PersistentVector without copying. The builder can keep being 
+	 * used after build(); the built vector is unaffected.
+	 */
+	public static final class Builder<E> {
+		private Object[] elements;
+		private int size;
+		/** The last vector built, which owns the array; null if none. */
+		private PersistentVector<E> built;
+
+		private Builder(final int expectedSize) {
+			this.elements = new Object[Math.max(expectedSize, 1)];
+		}
+
+		public Builder<E> add(final E e) {
+			ensureCapacity(size + 1);
+			elements[size++] = e;
+			return this;
+		}
+
+		public Builder<E> addAll(final Iterable<? extends E> es) {
+			if (es instanceof Collection<?>) {
+				ensureCapacity(size + ((Collection<?>) es).size());
+			}
+			for (final E e : es) {
+				add(e);
+			}
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public PersistentVector<E> build() {
+			if (built == null) {
+				built = wrap(elements, size);
+			}
+			return built;
+		}
+
+		private void ensureCapacity(final int n) {
+			if (built != null) {
+				// a built vector owns the array now
+				elements = Arrays.copyOf(elements, grow(Math.max(n, size), 0));
+				built = null;
+			} else if (n > elements.length) {
+				elements = Arrays.copyOf(elements, grow(elements.length, n - elements.length));
+			}
+		}
+	}
+
+}
@@ -41,14 +41,19 @@
 
 package ece351.util;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.mit.csail.sdg.alloy4.A4Reporter;
 import edu.mit.csail.sdg.alloy4.ErrorWarning;
-import edu.mit.csail.sdg.alloy4.OurDialog;
 import edu.mit.csail.sdg.alloy4.Util;
 import edu.mit.csail.sdg.alloy4compiler.ast.Command;
 import edu.mit.csail.sdg.alloy4compiler.ast.Module;
@@ -72,65 +77,29 @@ public final class RunAlloy351 {
      * and they may contain filename/line/column information.
      */
     public static boolean check(final String content) {
+        // Each call parses its own copy of the model from memory: no file is
+        // written, and nothing JVM-global is modified, so calls may overlap.
+        // The native-library path hack that used to live here is not needed
+        // because we only use SAT4J, which is pure Java.
+        final String filename = Util.canon(MODEL_NAME);
+        final Map<String,String> loaded = new HashMap<String,String>();
+        loaded.put(filename, content);
 
-    	final File file = new File("RunAlloy351.als");
-		try {
-			final PrintWriter pw = new PrintWriter(new FileWriter(file));
-	    	pw.write(content);
-	    	pw.flush();
-	    	pw.close();
-		} catch (IOException e1) {
-			throw new RuntimeException(e1);
-		}
-    	
-//    	copyFromJAR();
-        final String binary = alloyHome() + fs + "binary";
-//        System.out.println(binary);
-        // Add the new JNI location to the java.library.path
-        try {
-            System.setProperty("java.library.path", binary);
-            // The above line is actually useless on Sun JDK/JRE (see Sun bug ID 4280189)
-            // The following 4 lines should work for Sun JDK/JRE (though they probably will not work for others)
-            String[] newarray = new String[]{binary};
-            java.lang.reflect.Field old = ClassLoader.class.getDeclaredField("usr_paths");
-            old.setAccessible(true);
-            old.set(null,newarray);
-        } catch (Throwable ex) { }
-    	
         // Alloy4 sends diagnostic messages and progress reports to the A4Reporter.
         // By default, the A4Reporter ignores all these events (but you can extend the A4Reporter to display the event for the user)
         A4Reporter rep = new A4Reporter() {
-//            private long lastTime=0;
-
-//            @Override public void debug(final String msg) {
-//            	System.out.println("DEBUG: " + msg);
-//            }
-            
             // For example, here we choose to display each "warning" by printing it to System.out
             @Override public void warning(ErrorWarning msg) {
                 System.out.println("Relevance Warning:\n"+(msg.toString().trim())+"\n\n");
                 System.out.flush();
             }
-            @Override public void solve(final int primaryVars, final int totalVars, final int clauses) {
-//                System.out.println("solve->"+totalVars+" vars. "+primaryVars+" primary vars. "+clauses+" clauses. "+(System.currentTimeMillis()-lastTime)+"ms.\n");
-//                lastTime = System.currentTimeMillis();
-//                System.out.flush();
-            }
-            @Override public void translate(String solver, int bitwidth, int maxseq, int skolemDepth, int symmetry) {
-//                lastTime = System.currentTimeMillis();
-//                System.out.println("translate->Solver="+solver+" Bitwidth="+bitwidth+" MaxSeq="+maxseq
-//                + (skolemDepth==0?"":" SkolemDepth="+skolemDepth)
-//                + " Symmetry="+(symmetry>0 ? (""+symmetry) : "OFF")+'\n');
-//                System.out.flush();
-            }
-            
         };
 
         // Parse+typecheck the model
 //        System.out.println("=========== Parsing+Typechecking =============");
         Module world = null;
         try {
-        	world = CompUtil.parseEverything_fromFile(rep, null, file.getAbsolutePath());
+        	world = CompUtil.parseEverything_fromFile(rep, loaded, filename);
         } catch (final Exception e) {
         	throw new RuntimeException(e);
         }
@@ -250,28 +219,37 @@ public final class RunAlloy351 {
 //        System.setProperty("alloy.home", alloyHome());
 //    }
     
-    private static synchronized String alloyHome() {
-        if (alloyHome!=null) return alloyHome;
-        String temp=System.getProperty("java.io.tmpdir");
-        if (temp==null || temp.length()==0)
-            OurDialog.fatal("Error. JVM need to specify a temporary directory using java.io.tmpdir property.");
-        String username=System.getProperty("user.name");
-        File tempfile=new File(temp+File.separatorChar+"alloy4tmp40-"+(username==null?"":username));
-        tempfile.mkdirs();
-        String ans=Util.canon(tempfile.getPath());
-        if (!tempfile.isDirectory()) {
-            OurDialog.fatal("Error. Cannot create the temporary directory "+ans);
-        }
-        if (!Util.onWindows()) {
-            String[] args={"chmod", "700", ans};
-            try {Runtime.getRuntime().exec(args).waitFor();}
-            catch (Throwable ex) {} // We only intend to make a best effort.
-        }
-        return alloyHome=ans;
+    /**
+     * Check the model asynchronously. The checks run on a shared pool with
+     * one thread per core. Throws a RejectedExecutionException when the 
+     * pool's queue is full, rather than running the check on the caller's
+     * thread, where it could not be abandoned at a deadline.
+     */
+    public static Future<Boolean> checkAsync(final String content) {
+        return POOL.submit(new Callable<Boolean>() {
+            @Override public Boolean call() {
+                return check(content);
+            }
+        });
     }
-    
-    private static String alloyHome = null;
-    private static final String fs = System.getProperty("file.separator");
+
+    /** Name under which the in-memory model is parsed. Never read from disk. */
+    private static final String MODEL_NAME = "RunAlloy351.als";
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final ExecutorService POOL = new ThreadPoolExecutor(
+            THREADS, THREADS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(4 * THREADS),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                @Override public Thread newThread(final Runnable r) {
+                    final Thread t = new Thread(r, "RunAlloy351-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            },
+            new ThreadPoolExecutor.AbortPolicy());
 
 
     
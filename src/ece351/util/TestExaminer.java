@@ -0,0 +1,154 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import ece351.common.ast.AssignmentStatement;
+import ece351.common.ast.Statement;
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.v.ast.Architecture;
+import ece351.v.ast.Component;
+import ece351.v.ast.DesignUnit;
+import ece351.v.ast.Entity;
+import ece351.v.ast.Process;
+import ece351.w.ast.Waveform;
+
+public class TestExaminer extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** n formulas, in reverse order if reversed, with formula k altered if k == altered. */
+	private static FProgram program(final int n, final boolean reversed, final int altered) {
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			final int k = reversed ? n - 1 - i : i;
+			b.append("o").append(k).append(" <= ");
+			if (reversed) {
+				b.append("c").append(k).append(" or (b").append(k).append(" and a").append(k).append(")");
+			} else {
+				b.append("(a").append(k).append(" and b").append(k).append(") or c").append(k);
+			}
+			b.append(k == altered ? " or d;\n" : ";\n");
+		}
+		return parse(b.toString());
+	}
+
+	@Test
+	public void isomorphicHashCodes() {
+		final AssignmentStatement x = program(1, false, -1).formulas.get(0);
+		final AssignmentStatement y = program(1, true, -1).formulas.get(0);
+		assertTrue(x.isomorphic(y));
+		assertEquals(x.isomorphicHashCode(), y.isomorphicHashCode());
+		assertFalse(x.isomorphic(program(1, false, 0).formulas.get(0)));
+	}
+
+	@Test
+	public void unorderedExamination() {
+		final FProgram p = program(2000, false, -1);
+		assertTrue(p.isomorphic(program(2000, true, -1)));
+		assertFalse(p.isomorphic(program(2000, true, 1234)));
+	}
+
+	@Test
+	public void symmetricDifference() {
+		final Waveform a = new Waveform("a").append("0");
+		final Waveform b = new Waveform("b").append("1");
+		final Waveform c = new Waveform("c").append("1");
+		final List<Waveform> x = Arrays.asList(a, b, b, c);
+		final List<Waveform> y = Arrays.asList(c, b, a, a);
+		final Tuple<? extends List<Waveform>,? extends List<Waveform>> d = Examiner.symmetricDifference(Examiner.Isomorphic, x, y, false);
+		assertEquals(Arrays.asList(b), d.x);
+		assertEquals(Arrays.asList(a), d.y);
+	}
+
+	@Test
+	public void equivalentHashCodes() {
+		final FProgram p = parse("x <= a and (b or c); y <= (a or not a) and d;");
+		final FProgram q = parse("y <= d; x <= (a and b) or (c and a);");
+		assertTrue(p.equivalent(q));
+		assertEquals(p.equivalentHashCode(), q.equivalentHashCode());
+		// equivalent formulas over different inputs still match
+		assertEquals(p.formulas.get(1).equivalentHashCode(), q.formulas.get(0).equivalentHashCode());
+		assertTrue(p.formulas.get(0).expr.equivalentHashCode() != parse("x <= a and b;").formulas.get(0).expr.equivalentHashCode());
+	}
+
+	@Test
+	public void signaturesAgreeWithExamination() {
+		final List<AssignmentStatement> x = parse("x <= a and b; y <= a or b; z <= not a;").formulas;
+		final List<AssignmentStatement> y = parse("z <= not a; x <= b and a; y <= not (not a and not b);").formulas;
+		for (final Examiner e : Examiner.values()) {
+			for (final AssignmentStatement s : x) {
+				for (final AssignmentStatement t : y) {
+					if (e.examine(s, t)) {
+						assertEquals(e + " " + s + " " + t, e.signature(s), e.signature(t));
+					}
+				}
+			}
+		}
+		assertTrue(Examiner.unorderedExamination(Examiner.Equivalent, x, y));
+		assertFalse(Examiner.unorderedExamination(Examiner.Isomorphic, x, y));
+		assertTrue(Examiner.unorderedExamination(Examiner.Equals, x, parse("z <= not a; y <= a or b; x <= a and b;").formulas));
+	}
+
+	@Test
+	public void vSignaturesAgreeWithExamination() {
+		final Process p = new Process(new ArrayList<Statement>(parse("x <= a and b; y <= a or b;").formulas), Arrays.asList("a", "b"));
+		final Process q = new Process(new ArrayList<Statement>(parse("x <= b and a; y <= not (not a and not b);").formulas), Arrays.asList("b", "a"));
+		final Component c = new Component(Arrays.asList("a", "b", "x"), "and2", "u1");
+		final Component d = new Component(Arrays.asList("x", "b", "a"), "and2", "u1");
+		final Entity n = new Entity(Arrays.asList("x", "y"), Arrays.asList("a", "b"), "top");
+		final DesignUnit u = new DesignUnit(new Architecture(Arrays.<Statement>asList(p), Arrays.asList(c), Arrays.<String>asList(), "top", "rtl"), n);
+		final DesignUnit v = new DesignUnit(new Architecture(Arrays.<Statement>asList(q), Arrays.asList(d), Arrays.<String>asList(), "top", "rtl"), n);
+		final List<Examinable> xs = Arrays.<Examinable>asList(p, c, n, u);
+		final List<Examinable> ys = Arrays.<Examinable>asList(q, d, n, v);
+		for (final Examiner e : Examiner.values()) {
+			for (int i = 0; i < xs.size(); i++) {
+				if (e.examine(xs.get(i), ys.get(i))) {
+					assertEquals(e + " " + xs.get(i), e.signature(xs.get(i)), e.signature(ys.get(i)));
+				}
+			}
+		}
+		assertTrue(c.isomorphic(d));
+		assertFalse(p.isomorphic(q));
+		assertTrue(p.equivalent(q));
+		assertTrue(u.equivalent(v));
+		// different ports, different signatures
+		assertTrue(Examiner.Isomorphic.signature(n) != Examiner.Isomorphic.signature(n.appendInput("c")));
+	}
+}
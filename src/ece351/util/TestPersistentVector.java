@@ -0,0 +1,113 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestPersistentVector extends BaseTest351 {
+
+	@Test
+	public void appendLeavesOriginalUnchanged() {
+		final PersistentVector<String> a = PersistentVector.of("0", "1");
+		final PersistentVector<String> b = a.append("U");
+		assertEquals(Arrays.asList("0", "1"), a);
+		assertEquals(Arrays.asList("0", "1", "U"), b);
+	}
+
+	@Test
+	public void divergentAppendsDoNotInterfere() {
+		PersistentVector<Integer> base = PersistentVector.of();
+		for (int i = 0; i < 10; i++) {
+			base = base.append(i);
+		}
+		// both branches start from the same prefix
+		final PersistentVector<Integer> x = base.append(100);
+		final PersistentVector<Integer> y = base.append(200);
+		assertEquals(10, base.size());
+		assertEquals(Integer.valueOf(100), x.get(10));
+		assertEquals(Integer.valueOf(200), y.get(10));
+		assertEquals(base, x.subList(0, 10));
+		assertEquals(base, y.subList(0, 10));
+	}
+
+	@Test
+	public void appendAll() {
+		final PersistentVector<Integer> a = PersistentVector.of(1, 2);
+		final PersistentVector<Integer> b = a.appendAll(Arrays.asList(3, 4, 5));
+		final PersistentVector<Integer> c = a.appendAll(Arrays.asList(6));
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), b);
+		assertEquals(Arrays.asList(1, 2, 6), c);
+		assertEquals(Arrays.asList(1, 2), a);
+	}
+
+	@Test
+	public void builder() {
+		final PersistentVector.Builder<Integer> builder = PersistentVector.builder();
+		final List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			builder.add(i);
+			expected.add(i);
+		}
+		final PersistentVector<Integer> v = builder.build();
+		assertEquals(expected, v);
+		// the builder may keep going without disturbing what it built
+		builder.add(-1);
+		final PersistentVector<Integer> w = v.append(-2);
+		assertEquals(1000, v.size());
+		assertEquals(Integer.valueOf(-1), builder.build().get(1000));
+		assertEquals(Integer.valueOf(-2), w.get(1000));
+	}
+
+	@Test
+	public void listContract() {
+		final PersistentVector<String> v = PersistentVector.copyOf(Arrays.asList("a", "b"));
+		final List<String> l = Arrays.asList("a", "b");
+		assertTrue(v.equals(l) && l.equals(v));
+		assertEquals(l.hashCode(), v.hashCode());
+		assertTrue(PersistentVector.copyOf(v) == v);
+		assertEquals(Arrays.asList("a", "b", "c"), PersistentVector.sortedCopyOf(Arrays.asList("c", "a", "b")));
+	}
+
+	@Test
+	public void immutable() {
+		try {
+			PersistentVector.of("a").add("b");
+			fail("should not be able to mutate a PersistentVector");
+		} catch (final UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.AlloyConverter;
+import ece351.f.ast.FProgram;
+
+public class TestRunAlloy351 extends BaseTest351 {
+
+	private static final int MODELS = 16;
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** Model i has its own variables; it has a counterexample iff i is odd. */
+	private static String model(final int i) {
+		final String a = "a" + i;
+		final String b = "b" + i;
+		final FProgram p = parse("x <= " + a + " and " + b + ";");
+		final FProgram q = parse(i % 2 == 0 
+				? "x <= " + b + " and " + a + ";" 
+				: "x <= " + a + " or " + b + ";");
+		return AlloyConverter.convert(p, q);
+	}
+
+	/** Overlapping calls to check() on distinct models each see their own model. */
+	@Test
+	public void concurrentChecks() throws Exception {
+		final ExecutorService threads = Executors.newFixedThreadPool(MODELS);
+		try {
+			final List<Future<Boolean>> verdicts = new ArrayList<Future<Boolean>>(MODELS);
+			for (int i = 0; i < MODELS; i++) {
+				final String model = model(i);
+				verdicts.add(threads.submit(new Callable<Boolean>() {
+					@Override public Boolean call() {
+						return RunAlloy351.check(model);
+					}
+				}));
+			}
+			for (int i = 0; i < MODELS; i++) {
+				assertEquals("model " + i, i % 2 == 1, verdicts.get(i).get());
+			}
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	/** No more checks than the pool accepts on a single core. */
+	@Test
+	public void concurrentAsyncChecks() throws Exception {
+		final int n = 4;
+		final List<Future<Boolean>> verdicts = new ArrayList<Future<Boolean>>(n);
+		for (int i = 0; i < n; i++) {
+			verdicts.add(RunAlloy351.checkAsync(model(i)));
+		}
+		for (int i = 0; i < n; i++) {
+			assertEquals("model " + i, i % 2 == 1, verdicts.get(i).get());
+		}
+	}
+}
@@ -38,8 +38,6 @@ import java.util.List;
 import java.util.Stack;
 import java.util.regex.Pattern;
 
-import org.parboiled.common.ImmutableList;
-
 
 public final class Utils351 {
 
@@ -171,7 +169,7 @@ public final class Utils351 {
 		return result.toArray(new File[]{});
 	}
 
-	public static String bitListToString(final ImmutableList<String> list) {
+	public static String bitListToString(final List<String> list) {
 		StringBuilder s = new StringBuilder();
 		for(final String item : list) {
 			s.append(item); s.append(", ");
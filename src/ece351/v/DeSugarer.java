@@ -26,10 +26,20 @@
 
 package ece351.v;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
 import ece351.common.ast.AndExpr;
+import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -40,12 +50,44 @@ import ece351.common.ast.VarExpr;
 import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
 import ece351.common.visitor.PostOrderExprVisitor;
+import ece351.f.analysis.DetermineInputVars;
+import ece351.f.ast.FProgram;
 import ece351.util.CommandLine;
 import ece351.v.ast.VProgram;
 
 public final class DeSugarer extends PostOrderVVisitor {
 
-	public DeSugarer() { super(); }
+	/** 
+	 * Leave xor, xnor and mux alone (and turn = into xnor), for the passes
+	 * that support them natively. Expanding an xor mentions each operand
+	 * twice, so nested xors would grow exponentially.
+	 */
+	private final boolean keepXOr;
+
+	/**
+	 * When lowering xor in an FProgram, name each compound operand with a
+	 * fresh variable rather than copying it, so the output stays linear
+	 * in the input.
+	 */
+	private final boolean share;
+
+	/** The fresh variable for each shared operand, in order of creation. */
+	private final Map<Expr, VarExpr> temporaries = new LinkedHashMap<Expr, VarExpr>();
+	/** Names that a fresh variable must not use. */
+	private final Set<String> taken = new HashSet<String>();
+	private int fresh = 0;
+
+	public DeSugarer() { this(false); }
+
+	public DeSugarer(final boolean keepXOr) {
+		this(keepXOr, false);
+	}
+
+	public DeSugarer(final boolean keepXOr, final boolean share) {
+		super();
+		this.keepXOr = keepXOr;
+		this.share = share;
+	}
 	
 	public static void main(final String[] args) {
 		System.out.println(desugar(args));
@@ -57,40 +99,107 @@ public final class DeSugarer extends PostOrderVVisitor {
 	
 	public static VProgram desugar(final CommandLine c) {
         final VProgram program = VParser.parse(c.readInputSpec());
-        return desugar(program);
+        return desugar(program, false);
 	}
 	
 	public static VProgram desugar(final VProgram program) {
-		final DeSugarer d = new DeSugarer();
+		return desugar(program, false);
+	}
+
+	public static VProgram desugar(final VProgram program, final boolean keepXOr) {
+		final DeSugarer d = new DeSugarer(keepXOr);
 		return d.traverseVProgram(program);
 	}
 
+	/**
+	 * Lower the xors, xnors and muxes that synthesis kept: the optional late pass
+	 * for consumers that only understand and, or and not.
+	 */
+	public static FProgram desugar(final FProgram program) {
+		return desugar(program, false);
+	}
+
+	/**
+	 * If share, then the compound operands of xors become new formulas.
+	 * Their variables are internal (see FProgram.internalVars), so the
+	 * result has the outputs of program and is equivalent to it.
+	 */
+	public static FProgram desugar(final FProgram program, final boolean share) {
+		final DeSugarer d = new DeSugarer(false, share);
+		for (final AssignmentStatement f : program.formulas) {
+			d.taken.add(f.outputVar.identifier);
+		}
+		d.taken.addAll(DetermineInputVars.inputVars(program));
+		final FProgram result = d.traverseFProgram(program);
+		final List<AssignmentStatement> formulas = new ArrayList<AssignmentStatement>(result.formulas);
+		final Set<VarExpr> internal = new TreeSet<VarExpr>(result.internalVars);
+		for (final Map.Entry<Expr, VarExpr> t : d.temporaries.entrySet()) {
+			formulas.add(new AssignmentStatement(t.getValue(), t.getKey()));
+			internal.add(t.getValue());
+		}
+		return new FProgram(formulas, internal);
+	}
+
+	/** e itself if it is cheap to copy, or else the fresh variable naming it. */
+	private Expr operand(final Expr e) {
+		if (!share || e instanceof VarExpr || e instanceof ConstantExpr
+				|| (e instanceof NotExpr && ((NotExpr) e).expr instanceof VarExpr)) {
+			return e;
+		}
+		VarExpr t = temporaries.get(e);
+		if (t == null) {
+			String name;
+			do {
+				name = "xor_tmp" + fresh++;
+			} while (!taken.add(name));
+			t = VarExpr.make(name);
+			temporaries.put(e, t);
+		}
+		return t;
+	}
+
 	@Override
 	public Expr visitXOr(final XOrExpr e) {
-		return new OrExpr(new AndExpr(e.left, new NotExpr(e.right)),
-				  			new AndExpr(new NotExpr(e.left), e.right));
+		if (keepXOr) return e;
+		return xor(e.left, e.right);
+	}
+
+	private Expr xor(final Expr x, final Expr y) {
+		final Expr l = operand(x);
+		final Expr r = operand(y);
+		return OrExpr.make(AndExpr.make(l, NotExpr.make(r)),
+				  			AndExpr.make(NotExpr.make(l), r));
+	}
+	
+	@Override
+	public Expr visitMux(final MuxExpr e) {
+		if (keepXOr) return e;
+		// the lowering mentions the select twice
+		final Expr s = operand(e.select);
+		return OrExpr.make(AndExpr.make(s, e.ifTrue), 
+							AndExpr.make(NotExpr.make(s), e.ifFalse));
 	}
 	
 	@Override
 	public Expr visitNAnd(final NAndExpr e) {
-		return new NotExpr(new AndExpr(e.left, e.right));
+		return NotExpr.make(AndExpr.make(e.left, e.right));
 	}
 	
 	@Override
 	public Expr visitNOr(final NOrExpr e) {
-		return new NotExpr(new OrExpr(e.left, e.right));
+		return NotExpr.make(OrExpr.make(e.left, e.right));
 	}
 	
 	@Override
 	public Expr visitXNOr(final XNOrExpr e) {
-		return new NotExpr(new OrExpr(new AndExpr(e.left, new NotExpr(e.right)),
-				  			new AndExpr(new NotExpr(e.left), e.right)));
+		if (keepXOr) return e;
+		return NotExpr.make(xor(e.left, e.right));
 	}
 
 	@Override
 	public Expr visitEqual(final EqualExpr e) {
-		return new NotExpr(new OrExpr(new AndExpr(e.left, new NotExpr(e.right)),
-				  			new AndExpr(new NotExpr(e.left), e.right)));
+		if (keepXOr) return XNOrExpr.make(e.left, e.right);
+		return NotExpr.make(xor(e.left, e.right));
 	}
 
 	// these stay the same, no desugaring
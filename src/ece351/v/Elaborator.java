@@ -30,13 +30,12 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.parboiled.common.ImmutableList;
-
 import ece351.common.ast.AndExpr;
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -49,6 +48,7 @@ import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
 import ece351.common.visitor.PostOrderExprVisitor;
 import ece351.util.CommandLine;
+import ece351.util.PersistentVector;
 import ece351.v.ast.Architecture;
 import ece351.v.ast.Component;
 import ece351.v.ast.DesignUnit;
@@ -92,7 +92,7 @@ public final class Elaborator extends PostOrderExprVisitor {
 		// iterate over all of the designUnits in root.
 		for (final DesignUnit du: root.designUnits) {
 			// for each one, construct a new architecture.
-			Architecture a = du.arch.varyComponents(ImmutableList.<Component>of());
+			Architecture a = du.arch.varyComponents(PersistentVector.<Component>of());
 			// this gives us a copy of the architecture with an empty list of components.
 			// now we can build up this Architecture with new components.
 			if (du.arch.components.size() > 0) {
@@ -168,8 +168,8 @@ public final class Elaborator extends PostOrderExprVisitor {
 	
 	// you do not have to use these helper methods; we found them useful though
 	private  IfElseStatement changeIfVars(final IfElseStatement s) {
-		ImmutableList<AssignmentStatement> elseBody = ImmutableList.of();
-		ImmutableList<AssignmentStatement> ifBody = ImmutableList.of();
+		PersistentVector<AssignmentStatement> elseBody = PersistentVector.of();
+		PersistentVector<AssignmentStatement> ifBody = PersistentVector.of();
 		for (AssignmentStatement a: s.elseBody) {
 			elseBody = elseBody.append(changeStatementVars(a));
 		}
@@ -189,7 +189,7 @@ public final class Elaborator extends PostOrderExprVisitor {
 	@Override
 	public Expr visitVar(VarExpr e) {
 		if (current_map.containsKey(e.identifier)) {
-			return new VarExpr(current_map.get(e.identifier));
+			return VarExpr.make(current_map.get(e.identifier));
 		}
 		return e;
 	}
@@ -201,6 +201,7 @@ public final class Elaborator extends PostOrderExprVisitor {
 	@Override public Expr visitOr(OrExpr e) { return e; }
 	@Override public Expr visitXOr(XOrExpr e) { return e; }
 	@Override public Expr visitEqual(EqualExpr e) { return e; }
+	@Override public Expr visitMux(MuxExpr e) { return e; }
 	@Override public Expr visitNAnd(NAndExpr e) { return e; }
 	@Override public Expr visitNOr(NOrExpr e) { return e; }
 	@Override public Expr visitXNOr(XNOrExpr e) { return e; }
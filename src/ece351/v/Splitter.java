@@ -29,13 +29,12 @@ package ece351.v;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
-import org.parboiled.common.ImmutableList;
-
 import ece351.common.ast.AndExpr;
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -48,6 +47,7 @@ import ece351.common.ast.XNOrExpr;
 import ece351.common.ast.XOrExpr;
 import ece351.common.visitor.PostOrderExprVisitor;
 import ece351.util.CommandLine;
+import ece351.util.PersistentVector;
 import ece351.v.ast.Architecture;
 import ece351.v.ast.DesignUnit;
 import ece351.v.ast.IfElseStatement;
@@ -86,7 +86,7 @@ public final class Splitter extends PostOrderExprVisitor {
 			if (du.arch == null) continue;
 			// Loop over the statements in the architecture
 			Architecture newArch = du.arch;
-			newArch = newArch.varyStatements(ImmutableList.of());
+			newArch = newArch.varyStatements(PersistentVector.of());
 			for (final Statement statement : du.arch.statements) {
 				// Determine if the statement is a process
 				if (statement instanceof Process) {
@@ -96,7 +96,7 @@ public final class Splitter extends PostOrderExprVisitor {
 						if (stmt instanceof IfElseStatement) {
 							// Split the process if there are if/else statements so that the if/else statements only assign values to one pin
 							final IfElseStatement ifElseStmt = (IfElseStatement) stmt;
-							ImmutableList<Statement> newStatements = splitIfElseStatement(ifElseStmt);
+							PersistentVector<Statement> newStatements = splitIfElseStatement(ifElseStmt);
 							for (final Statement s : newStatements) {
 								newArch = newArch.appendStatement(s);
 							}
@@ -104,7 +104,7 @@ public final class Splitter extends PostOrderExprVisitor {
 							// Just append the statement if it is not an if/else statement
 							Process newProcess = new Process()
 															.setSensitivityList(process.sensitivityList)
-															.setStatements(ImmutableList.of(stmt));
+															.setStatements(PersistentVector.of(stmt));
 							newArch = newArch.appendStatement(newProcess);
 						}
 					}
@@ -120,8 +120,8 @@ public final class Splitter extends PostOrderExprVisitor {
 	
 	// You do not have to use this helper method, but we found it useful
 	
-	private ImmutableList<Statement> splitIfElseStatement(final IfElseStatement ifStmt) {
-		ImmutableList<Statement> result = ImmutableList.of();
+	private PersistentVector<Statement> splitIfElseStatement(final IfElseStatement ifStmt) {
+		PersistentVector<Statement> result = PersistentVector.of();
 		// loop over each statement in the ifBody
 		for (final AssignmentStatement if_as : ifStmt.ifBody) {
 			// loop over each statement in the elseBody
@@ -135,12 +135,12 @@ public final class Splitter extends PostOrderExprVisitor {
 					traverseExpr(else_as.expr);
 					traverseExpr(ifStmt.condition);
 					// build sensitivity list from this.usedVarsInExpr
-					ImmutableList<String> sensitivityList = ImmutableList.of();
+					PersistentVector<String> sensitivityList = PersistentVector.of();
 					for (final String s : this.usedVarsInExpr) {
 						sensitivityList = sensitivityList.append(s);
 					}
 					// build the resulting list of split statements
-					IfElseStatement newIfElse = new IfElseStatement(ImmutableList.of(else_as), ImmutableList.of(if_as), ifStmt.condition);
+					IfElseStatement newIfElse = new IfElseStatement(PersistentVector.of(else_as), PersistentVector.of(if_as), ifStmt.condition);
 					result = result.append(new Process()
 											.setSensitivityList(sensitivityList)
 											.appendStatement(newIfElse));
@@ -168,6 +168,7 @@ public final class Splitter extends PostOrderExprVisitor {
 	@Override public Expr visitNOr(NOrExpr e) { return e; }
 	@Override public Expr visitXNOr(XNOrExpr e) { return e; }
 	@Override public Expr visitEqual(EqualExpr e) { return e; }
+	@Override public Expr visitMux(MuxExpr e) { return e; }
 	@Override public Expr visitNaryAnd(NaryAndExpr e) { return e; }
 	@Override public Expr visitNaryOr(NaryOrExpr e) { return e; }
 
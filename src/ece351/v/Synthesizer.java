@@ -31,6 +31,7 @@ import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -67,8 +68,10 @@ public final class Synthesizer extends PostOrderExprVisitor {
 	}
 	
 	public static FProgram synthesize(final CommandLine c) {
-        final VProgram program = DeSugarer.desugar(c);
-        return synthesize(program);
+		// keep xor native through synthesis; lower it afterwards only if asked
+        final VProgram program = DeSugarer.desugar(VParser.parse(c.readInputSpec()), true);
+        final FProgram result = synthesize(program);
+        return c.desugarXOr ? DeSugarer.desugar(result, c.desugarShared) : result;
 	}
 	
 	public static FProgram synthesize(final VProgram program) {
@@ -127,14 +130,14 @@ public final class Synthesizer extends PostOrderExprVisitor {
 
 		// build result
 		FProgram result = new FProgram();
-		VarExpr cond_var = new VarExpr(conditionPrefix + condCount++);
+		VarExpr cond_var = VarExpr.make(conditionPrefix + condCount++);
 		Expr cond_expr = traverseExpr(statement.condition);
 		AssignmentStatement condNew = new AssignmentStatement(cond_var, cond_expr);
 		result = result.append(condNew);
-		Expr ifExpr = new AndExpr(cond_var, traverseExpr(ifb.expr));
-		Expr elseExpr = new AndExpr(new NotExpr(cond_var), traverseExpr(elb.expr));
+		// a native mux mentions the condition once
+		Expr mux = MuxExpr.make(cond_var, traverseExpr(ifb.expr), traverseExpr(elb.expr));
 		String outputVar = this.varPrefix + ifb.outputVar.identifier;
-		AssignmentStatement ifElseNew = new AssignmentStatement(outputVar, new OrExpr(ifExpr, elseExpr));
+		AssignmentStatement ifElseNew = new AssignmentStatement(outputVar, mux);
 		result = result.append(ifElseNew);
 		return result;
 	}
@@ -142,7 +145,7 @@ public final class Synthesizer extends PostOrderExprVisitor {
 	/** Rewrite var names with prefix to mitigate name collision. */
 	@Override
 	public Expr visitVar(final VarExpr e) {
-		return new VarExpr(varPrefix + e.identifier);
+		return VarExpr.make(varPrefix + e.identifier);
 	}
 	
 	@Override public Expr visitConstant(ConstantExpr e) { return e; }
@@ -151,14 +154,15 @@ public final class Synthesizer extends PostOrderExprVisitor {
 	@Override public Expr visitOr(OrExpr e) { return e; }
 	@Override public Expr visitNaryAnd(NaryAndExpr e) { return e; }
 	@Override public Expr visitNaryOr(NaryOrExpr e) { return e; }
+	@Override public Expr visitXOr(XOrExpr e) { return e; }
+	@Override public Expr visitXNOr(XNOrExpr e) { return e; }
+	@Override public Expr visitMux(MuxExpr e) { return e; }
 	
 	// We shouldn't see these in the AST, since F doesn't support them
 	// They should have been desugared away previously
-	@Override public Expr visitXOr(XOrExpr e) { throw new IllegalStateException("xor not desugared"); } 
 	@Override public Expr visitEqual(EqualExpr e) { throw new IllegalStateException("EqualExpr not desugared"); }
 	@Override public Expr visitNAnd(NAndExpr e) { throw new IllegalStateException("nand not desugared"); }
 	@Override public Expr visitNOr(NOrExpr e) { throw new IllegalStateException("nor not desugared"); }
-	@Override public Expr visitXNOr(XNOrExpr e) { throw new IllegalStateException("xnor not desugared"); }
 	
 }
 
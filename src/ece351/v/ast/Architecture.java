@@ -37,35 +37,46 @@ import org.parboiled.common.ImmutableList;
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.Statement;
 import ece351.f.ast.FProgram;
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 import ece351.util.Tuple;
 import ece351.util.Utils351;
 
-public final class Architecture implements Examinable {
+public final class Architecture implements Examinable, IsomorphicHashable, EquivalentHashable {
 	public final String architectureName;
 	public final String entityName;
-	public final ImmutableList<String> signals;
-	public final ImmutableList<Component> components;
-	public final ImmutableList<Statement> statements;
+	public final PersistentVector<String> signals;
+	public final PersistentVector<Component> components;
+	public final PersistentVector<Statement> statements;
 
 	public Architecture(final String ent, final String arch) {
 		this.architectureName = arch;
 		this.entityName = ent;
-		this.statements = ImmutableList.of();
-		this.signals = ImmutableList.of();
-		this.components = ImmutableList.of();
+		this.statements = PersistentVector.of();
+		this.signals = PersistentVector.of();
+		this.components = PersistentVector.of();
+	}
+
+	public Architecture(final List<Statement> statementList,
+			final List<Component> components,
+			final List<String> signalList, final String ent,
+			final String arch) {
+		this.architectureName = arch;
+		this.entityName = ent;
+		this.statements = PersistentVector.copyOf(statementList);
+		this.signals = PersistentVector.copyOf(signalList);
+		this.components = PersistentVector.copyOf(components);
 	}
 
 	public Architecture(final ImmutableList<Statement> statementList,
 			final ImmutableList<Component> components,
 			final ImmutableList<String> signalList, final String ent,
 			final String arch) {
-		this.architectureName = arch;
-		this.entityName = ent;
-		this.statements = statementList;
-		this.signals = signalList;
-		this.components = components;
+		this((List<Statement>) statementList, (List<Component>) components, 
+				(List<String>) signalList, ent, arch);
 	}
 
 	public Architecture appendComponent(final Component c) {
@@ -94,16 +105,28 @@ public final class Architecture implements Examinable {
 	}
 		
 	public Architecture varySignals(final ImmutableList<String> list) {
+		return varySignals((List<String>) list);
+	}
+
+	public Architecture varySignals(final List<String> list) {
 		return new Architecture(statements, components, list,
 				entityName, architectureName);
 	}
 	
 	public Architecture varyComponents(final ImmutableList<Component> list) {
+		return varyComponents((List<Component>) list);
+	}
+
+	public Architecture varyComponents(final List<Component> list) {
 		return new Architecture(statements, list, signals,
 				entityName, architectureName);
 	}
 	
 	public Architecture varyStatements(final ImmutableList<Statement> list) {
+		return varyStatements((List<Statement>) list);
+	}
+
+	public Architecture varyStatements(final List<Statement> list) {
 		return new Architecture(list, components, signals,
 				entityName, architectureName);
 	}
@@ -175,6 +198,32 @@ public final class Architecture implements Examinable {
 		return examine(Examiner.Equivalent, obj);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return hashCode(Examiner.Isomorphic);
+	}
+
+	@Override
+	public int equivalentHashCode() {
+		return hashCode(Examiner.Equivalent);
+	}
+
+	/**
+	 * Consistent with examine(examiner, ...). Leaves out the statements,
+	 * since examine() may match processes whose assignments are split 
+	 * differently.
+	 */
+	private int hashCode(final Examiner examiner) {
+		int h = 31 * architectureName.hashCode() + entityName.hashCode();
+		for (final String s : signals) {
+			h += s.hashCode();
+		}
+		for (final Component c : components) {
+			h += examiner.signature(c);
+		}
+		return h;
+	}
+
 	private boolean examine(final Examiner examiner, final Examinable obj) {
 		// basics
 		if (obj == null)
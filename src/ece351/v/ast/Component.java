@@ -26,32 +26,43 @@
 
 package ece351.v.ast;
 
+import java.util.List;
 import java.util.TreeSet;
 
 import org.parboiled.common.ImmutableList;
 
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 import ece351.util.Utils351;
 
-public final class Component implements Examinable {
+public final class Component implements Examinable, IsomorphicHashable, EquivalentHashable {
 	public final String entityName;
 	public final String instanceName;
-	public final ImmutableList<String> signalList;
+	public final PersistentVector<String> signalList;
 	public Component(
 			final String entityName , 
 			final String instanceName) {
 		this.entityName = entityName;
 		this.instanceName = instanceName;
-		this.signalList = ImmutableList.of();
+		this.signalList = PersistentVector.of();
 	}
 	public Component(
-			final ImmutableList<String> signals,
+			final List<String> signals,
 			final String entityName , 
 			final String instanceName) {
 		this.entityName = entityName;
 		this.instanceName = instanceName;
-		this.signalList = signals;
+		this.signalList = PersistentVector.copyOf(signals);
+	}
+
+	public Component(
+			final ImmutableList<String> signals,
+			final String entityName , 
+			final String instanceName) {
+		this((List<String>) signals, entityName, instanceName);
 	}
 	
 	public Component appendSignal(final String signal) {
@@ -67,6 +78,10 @@ public final class Component implements Examinable {
 	}
 	
 	public Component varySignals(final ImmutableList<String> list) {
+		return varySignals((List<String>) list);
+	}
+
+	public Component varySignals(final List<String> list) {
 		return new Component(list, entityName, instanceName);
 	}
 	
@@ -112,10 +127,25 @@ public final class Component implements Examinable {
 		return true;
 	}
 
+	/** A sum over the signals, since isomorphic() does not order them. */
+	@Override
+	public int isomorphicHashCode() {
+		int h = 31 * entityName.hashCode() + instanceName.hashCode();
+		for (final String s : signalList) {
+			h += s.hashCode();
+		}
+		return h;
+	}
+
 	@Override
 	public boolean equivalent(final Examinable obj) {
 		return isomorphic(obj);
 	}
+
+	@Override
+	public int equivalentHashCode() {
+		return isomorphicHashCode();
+	}
 	
 	public boolean repOk() {
 		assert entityName != null;
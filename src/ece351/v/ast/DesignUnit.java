@@ -26,11 +26,13 @@
 
 package ece351.v.ast;
 
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
 
 
-public final class DesignUnit implements Examinable {
+public final class DesignUnit implements Examinable, IsomorphicHashable, EquivalentHashable {
 	public final Architecture arch;
 	public final Entity entity;
 	public final String identifier;
@@ -76,6 +78,21 @@ public final class DesignUnit implements Examinable {
 		return examine(Examiner.Equivalent, obj);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return hashCode(Examiner.Isomorphic);
+	}
+
+	@Override
+	public int equivalentHashCode() {
+		return hashCode(Examiner.Equivalent);
+	}
+
+	/** Consistent with examine(examiner, ...). */
+	private int hashCode(final Examiner examiner) {
+		return 31 * (31 * identifier.hashCode() + examiner.signature(arch)) + examiner.signature(entity);
+	}
+
 	private boolean examine(final Examiner examiner, final Examinable obj) {
 		// basics
 		if (obj == null) return false;
@@ -26,28 +26,38 @@
 
 package ece351.v.ast;
 
+import java.util.List;
+
 import org.parboiled.common.ImmutableList;
 
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 import ece351.util.Utils351;
 
-public final class Entity implements Examinable {
+public final class Entity implements Examinable, IsomorphicHashable, EquivalentHashable {
 	public final String identifier;
-	public final ImmutableList<String> input;
-	public final ImmutableList<String> output;
+	public final PersistentVector<String> input;
+	public final PersistentVector<String> output;
 	
 	public Entity(final String id) {
 		this.identifier = id;
-		this.input = ImmutableList.of();
-		this.output = ImmutableList.of();
+		this.input = PersistentVector.of();
+		this.output = PersistentVector.of();
 	}
 	
+	public Entity(final List<String> out,
+			final List<String> in, final String id) {
+		this.identifier = id;
+		this.input = PersistentVector.copyOf(in);
+		this.output = PersistentVector.copyOf(out);
+	}
+
 	public Entity(final ImmutableList<String> out,
 			final ImmutableList<String> in, final String id) {
-		this.identifier = id;
-		this.input = in;
-		this.output = out;
+		this((List<String>) out, (List<String>) in, id);
 	}
 	
 	public boolean repOk() {
@@ -66,10 +76,18 @@ public final class Entity implements Examinable {
 	}
 	
 	public Entity setInput(final ImmutableList<String> list) {
+		return setInput((List<String>) list);
+	}
+
+	public Entity setInput(final List<String> list) {
 		return new Entity(output, list, identifier);
 	}
 	
 	public Entity setOutput(final ImmutableList<String> list) {
+		return setOutput((List<String>) list);
+	}
+
+	public Entity setOutput(final List<String> list) {
 		return new Entity(list, input, identifier);
 	}
 	
@@ -109,9 +127,20 @@ public final class Entity implements Examinable {
 		return equals(obj);
 	}
 
+	/** Ports are ordered, as in equals(). */
+	@Override
+	public int isomorphicHashCode() {
+		return 31 * (31 * identifier.hashCode() + input.hashCode()) + output.hashCode();
+	}
+
 	@Override
 	public boolean equivalent(final Examinable obj) {
 		return isomorphic(obj);
 	}
 
+	@Override
+	public int equivalentHashCode() {
+		return isomorphicHashCode();
+	}
+
 }
@@ -26,6 +26,8 @@
 
 package ece351.v.ast;
 
+import java.util.List;
+
 import org.parboiled.common.ImmutableList;
 
 import ece351.common.ast.AssignmentStatement;
@@ -34,23 +36,29 @@ import ece351.common.ast.Statement;
 import ece351.f.ast.FProgram;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.PersistentVector;
 
 public final class IfElseStatement extends Statement implements Examinable {
 	public final Expr condition;
-	public final ImmutableList<AssignmentStatement> ifBody;
-	public final ImmutableList<AssignmentStatement> elseBody;
+	public final PersistentVector<AssignmentStatement> ifBody;
+	public final PersistentVector<AssignmentStatement> elseBody;
 
 	public IfElseStatement(final Expr cond) {
 		this.condition = cond;
-		this.elseBody = ImmutableList.of();
-		this.ifBody = ImmutableList.of();
+		this.elseBody = PersistentVector.of();
+		this.ifBody = PersistentVector.of();
+	}
+
+	public IfElseStatement(final List<AssignmentStatement> elseBody,
+			final List<AssignmentStatement> ifBody, final Expr cond) {
+		this.condition = cond;
+		this.elseBody = PersistentVector.copyOf(elseBody);
+		this.ifBody = PersistentVector.copyOf(ifBody);
 	}
 
 	public IfElseStatement(final ImmutableList<AssignmentStatement> elseBody,
 			final ImmutableList<AssignmentStatement> ifBody, final Expr cond) {
-		this.condition = cond;
-		this.elseBody = elseBody;
-		this.ifBody = ifBody;
+		this((List<AssignmentStatement>) elseBody, (List<AssignmentStatement>) ifBody, cond);
 	}
 
 	public boolean repOk() {
@@ -76,10 +84,18 @@ public final class IfElseStatement extends Statement implements Examinable {
 	}
 
 	public IfElseStatement setTrueBlock(final ImmutableList<AssignmentStatement> list) {
+		return setTrueBlock((List<AssignmentStatement>) list);
+	}
+
+	public IfElseStatement setTrueBlock(final List<AssignmentStatement> list) {
 		return new IfElseStatement(elseBody, list, condition);
 	}
 	
 	public IfElseStatement setElseBlock(final ImmutableList<AssignmentStatement> list) {
+		return setElseBlock((List<AssignmentStatement>) list);
+	}
+
+	public IfElseStatement setElseBlock(final List<AssignmentStatement> list) {
 		return new IfElseStatement(list, ifBody, condition);
 	}
 	
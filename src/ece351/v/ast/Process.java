@@ -26,28 +26,39 @@
 
 package ece351.v.ast;
 
+import java.util.List;
+
 import org.parboiled.common.ImmutableList;
 
 import ece351.common.ast.AssignmentStatement;
 import ece351.common.ast.Statement;
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 import ece351.util.Utils351;
 
-public final class Process extends Statement implements Examinable {
-	public final ImmutableList<String> sensitivityList;
-	public final ImmutableList<Statement> sequentialStatements;
+public final class Process extends Statement implements Examinable, IsomorphicHashable, EquivalentHashable {
+	public final PersistentVector<String> sensitivityList;
+	public final PersistentVector<Statement> sequentialStatements;
 
 	public Process() {
-		this.sensitivityList = ImmutableList.of();
-		this.sequentialStatements = ImmutableList.of();
+		this.sensitivityList = PersistentVector.of();
+		this.sequentialStatements = PersistentVector.of();
 	}
 	
+	public Process(
+			final List<Statement> statements,
+			final List<String> sensitivityList) {
+		this.sensitivityList = PersistentVector.copyOf(sensitivityList);
+		this.sequentialStatements = PersistentVector.copyOf(statements);
+	}
+
 	public Process(
 			final ImmutableList<Statement> statements,
 			final ImmutableList<String> sensitivityList) {
-		this.sensitivityList = sensitivityList;
-		this.sequentialStatements = statements;
+		this((List<Statement>) statements, (List<String>) sensitivityList);
 	}
 	
 	public boolean repOk() {
@@ -68,10 +79,18 @@ public final class Process extends Statement implements Examinable {
 	}
 
 	public Process setSensitivityList(final ImmutableList<String> list) {
+		return setSensitivityList((List<String>) list);
+	}
+
+	public Process setSensitivityList(final List<String> list) {
 		return new Process(sequentialStatements, list);
 	}
 	
 	public Process setStatements(final ImmutableList<Statement> list) {
+		return setStatements((List<Statement>) list);
+	}
+
+	public Process setStatements(final List<Statement> list) {
 		return new Process(list, sensitivityList);
 	}
 	
@@ -112,6 +131,28 @@ public final class Process extends Statement implements Examinable {
 		return examine(Examiner.Equivalent, obj);
 	}
 
+	@Override
+	public int isomorphicHashCode() {
+		return hashCode(Examiner.Isomorphic);
+	}
+
+	@Override
+	public int equivalentHashCode() {
+		return hashCode(Examiner.Equivalent);
+	}
+
+	/** Consistent with examine(examiner, ...): the sensitivity list is unordered, the statements are not. */
+	private int hashCode(final Examiner examiner) {
+		int h = 0;
+		for (final String s : sensitivityList) {
+			h += s.hashCode();
+		}
+		for (final Statement s : sequentialStatements) {
+			h = 31 * h + examiner.signature(s);
+		}
+		return h;
+	}
+
 	private boolean examine(final Examiner examiner, final Examinable obj) {
 		// basics
 		if (obj == null) return false;
@@ -25,31 +25,39 @@
  * ********************************************************************/
 
 package ece351.v.ast;
+
+import java.util.List;
+
 import org.parboiled.common.ImmutableList;
 
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.PersistentVector;
 
 public final class VProgram implements Examinable {
 	//may not need to make AST for these nodes because we do not need to do 
 	//anything with it, we COULD check if they are using things that are defined in the libraries
 	//but that is too much work
 	
-	public final ImmutableList<DesignUnit> designUnits;
+	public final PersistentVector<DesignUnit> designUnits;
 	
 	/**
 	 * Constructs a VProgram with an empty list of design units
 	 */
 	public VProgram() {
-		this.designUnits = ImmutableList.of();
+		this.designUnits = PersistentVector.of();
 	}
 	
 	/**
 	 * Constucts a VProgram with a list of design units given by parameter designUnits
 	 * @param designUnits
 	 */
+	public VProgram(final List<DesignUnit> designUnits) {
+		this.designUnits = PersistentVector.copyOf(designUnits);
+	}
+
 	public VProgram(final ImmutableList<DesignUnit> designUnits) {
-		this.designUnits = designUnits;
+		this((List<DesignUnit>) designUnits);
 	}
 
 	public boolean repOk() {
@@ -69,6 +77,10 @@ public final class VProgram implements Examinable {
 		return new VProgram(designUnits.append(d));
 	}
 	
+	public VProgram setDesignUnits(final List<DesignUnit> list) {
+		return new VProgram(list);
+	}
+
 	public VProgram setDesignUnits(final ImmutableList<DesignUnit> list) {
 		return new VProgram(list);
 	}
@@ -39,6 +39,7 @@ import ece351.common.ast.AndExpr;
 import ece351.common.ast.ConstantExpr;
 import ece351.common.ast.EqualExpr;
 import ece351.common.ast.Expr;
+import ece351.common.ast.MuxExpr;
 import ece351.common.ast.NAndExpr;
 import ece351.common.ast.NOrExpr;
 import ece351.common.ast.NaryAndExpr;
@@ -127,6 +128,7 @@ public final class TestDeSugarer extends BaseTest351 {
 		@Override public Expr visitNAnd(NAndExpr e) { throw new IllegalStateException("nand not desugared"); }
 		@Override public Expr visitNOr(NOrExpr e) { throw new IllegalStateException("nor not desugared"); }
 		@Override public Expr visitXNOr(XNOrExpr e) { throw new IllegalStateException("xnor not desugared"); }
+		@Override public Expr visitMux(MuxExpr e) { throw new IllegalStateException("mux not desugared"); }
 		
 		// these are ok in the desugared tree
 		@Override public Expr visitConstant(final ConstantExpr e) { return e; }
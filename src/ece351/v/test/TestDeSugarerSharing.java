@@ -0,0 +1,91 @@
+/* *********************************************************************
+ * ECE351 
+ * Department of Electrical and Computer Engineering 
+ * University of Waterloo 
+ * Term: Fall 2021 (1219)
+ *
+ * The base version of this file is the intellectual property of the
+ * University of Waterloo. Redistribution is prohibited.
+ *
+ * By pushing changes to this file I affirm that I am the author of
+ * all changes. I affirm that I have complied with the course
+ * collaboration policy and have not plagiarized my work. 
+ *
+ * I understand that redistributing this file might expose me to
+ * disciplinary action under UW Policy 71. I understand that Policy 71
+ * allows for retroactive modification of my final grade in a course.
+ * For example, if I post my solutions to these labs on GitHub after I
+ * finish ECE351, and a future student plagiarizes them, then I too
+ * could be found guilty of plagiarism. Consequently, my final grade
+ * in ECE351 could be retroactively lowered. This might require that I
+ * repeat ECE351, which in turn might delay my graduation.
+ *
+ * https://uwaterloo.ca/secretariat-general-counsel/policies-procedures-guidelines/policy-71
+ * 
+ * ********************************************************************/
+
+package ece351.v.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import ece351.f.FParser;
+import ece351.f.ast.FProgram;
+import ece351.util.BaseTest351;
+import ece351.v.DeSugarer;
+
+public final class TestDeSugarerSharing extends BaseTest351 {
+
+	private static FProgram parse(final String s) {
+		return FParser.parse(new String[]{s, "-h"});
+	}
+
+	/** x <= (((a0 xor a1) xor a2) xor ...) of the given depth. */
+	private static FProgram chain(final int depth) {
+		final StringBuilder b = new StringBuilder("x <= a0");
+		for (int i = 1; i <= depth; i++) {
+			b.insert(5, "(").append(" xor a").append(i).append(")");
+		}
+		return parse(b.append(";").toString());
+	}
+
+	@Test
+	public void linear() {
+		final FProgram p = chain(20);
+		final FProgram copied = DeSugarer.desugar(chain(12));
+		final FProgram shared = DeSugarer.desugar(p, true);
+		// copying doubles the formula at every level
+		assertTrue(copied.toString().length() > 1 << 12);
+		// sharing adds one formula per compound operand
+		assertEquals(20, shared.formulas.size());
+		assertTrue(shared.toString().length() < 100 * 20);
+	}
+
+	@Test
+	public void equivalent() {
+		final FProgram p = chain(4);
+		final FProgram shared = DeSugarer.desugar(p, true);
+		// the temporaries are internal, not outputs
+		assertEquals(p.outputVars(), shared.outputVars());
+		assertTrue(p.equivalent(shared));
+		assertTrue(shared.equivalent(p));
+		assertTrue(p.equivalent(DeSugarer.desugar(p)));
+		assertTrue(shared.equivalent(DeSugarer.desugar(p)));
+		assertEquals(p.equivalentHashCode(), shared.equivalentHashCode());
+		assertFalse(shared.equivalent(parse("x <= a0 xor a1 xor a2 xor a3;")));
+	}
+
+	@Test
+	public void operandsAreSharedAndNamesAreFresh() {
+		// the same operand is named once, and xor_tmp0 is already taken
+		final FProgram p = parse("x <= (a and b) xor c; y <= (a and b) xnor xor_tmp0;");
+		final FProgram shared = DeSugarer.desugar(p, true);
+		assertEquals(3, shared.formulas.size());
+		assertTrue(shared.toString(), shared.toString().contains("xor_tmp1 <= (a and b);"));
+		assertEquals(p.outputVars(), shared.outputVars());
+		assertTrue(p.equivalent(shared));
+	}
+}
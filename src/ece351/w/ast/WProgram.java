@@ -26,15 +26,20 @@
 
 package ece351.w.ast;
 
+import java.util.List;
+
 import org.parboiled.common.ImmutableList;
 
 import ece351.util.Debug;
+import ece351.util.EquivalentHashable;
 import ece351.util.Examinable;
 import ece351.util.Examiner;
+import ece351.util.IsomorphicHashable;
+import ece351.util.PersistentVector;
 
 
-public final class WProgram implements Examinable {
-	public final ImmutableList<Waveform> waveforms;
+public final class WProgram implements Examinable, IsomorphicHashable, EquivalentHashable {
+	public final PersistentVector<Waveform> waveforms;
 
 	/**
 	 * Constructs a WProgram with a list of waveforms given by parameter
@@ -42,15 +47,19 @@ public final class WProgram implements Examinable {
 	 * 
 	 * @param waveforms
 	 */
+	public WProgram(final List<Waveform> waveforms) {
+		this.waveforms = PersistentVector.copyOf(waveforms);
+	}
+
 	public WProgram(final ImmutableList<Waveform> waveforms) {
-		this.waveforms = waveforms;
+		this((List<Waveform>) waveforms);
 	}
 	
 	/**
 	 * Constructs a WProgram with a empty list of waveforms
 	 */
 	public WProgram() {
-		this.waveforms = ImmutableList.of();
+		this.waveforms = PersistentVector.of();
 	}
 
 	public boolean repOk() {
@@ -174,6 +183,18 @@ public final class WProgram implements Examinable {
 		return Examiner.unorderedExamination(Examiner.Isomorphic, this.waveforms, other.waveforms);
 	}
 
+	/**
+	 * A sum over the waveforms, since order doesn't matter.
+	 */
+	@Override
+	public int isomorphicHashCode() {
+		int h = 0;
+		for (final Waveform w : waveforms) {
+			h += w.isomorphicHashCode();
+		}
+		return h;
+	}
+
 	/** 
 	 * Define in terms of isomorphic. 
 	 */
@@ -182,4 +203,9 @@ public final class WProgram implements Examinable {
 		return isomorphic(obj);
 	}
 
+	@Override
+	public int equivalentHashCode() {
+		return isomorphicHashCode();
+	}
+
 }